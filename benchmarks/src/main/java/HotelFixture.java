@@ -0,0 +1,220 @@
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletableFuture;
+
+import codealpha.bench.HotelWorkload;
+
+// Drives HotelReservationSystem for the benchmarks, which cannot name it.
+public class HotelFixture implements HotelWorkload {
+    private static final String PROPERTY_NAME = "hotel";
+    private static final int FIRST_ROOM_NUMBER = 1000;
+
+    private HotelReservationSystem system;
+    private Room[] rooms;
+    private ArrayList<Reservation> booked;
+    private HotelHttpService http;
+    private Reservation[] reservations;
+    private OccupancyCalendar occupancy;
+    private PaymentProcessor payments;
+
+    @Override
+    public void writeHotel(Path directory, int roomCount, int reservationCount, long seed) throws IOException {
+        SplittableRandom random = new SplittableRandom(seed);
+        RoomType[] types = RoomType.values();
+        Room[] layout = new Room[roomCount];
+        LocalDate[] nextFree = new LocalDate[roomCount];
+        LocalDate tomorrow = LocalDate.now().plusDays(1);
+
+        try (BufferedWriter out = Files.newBufferedWriter(
+                directory.resolve(PROPERTY_NAME + "_reservations.journal"), StandardCharsets.UTF_8)) {
+            out.write("JOURNAL|0\n");
+            for (int i = 0; i < roomCount; i++) {
+                layout[i] = new Room(String.valueOf(FIRST_ROOM_NUMBER + i), types[random.nextInt(types.length)]);
+                nextFree[i] = tomorrow;
+                writeEntry(out, ReservationJournal.roomEntry(layout[i]));
+            }
+
+            // Each room's stays follow one another with a gap of up to two
+            // days, so none of them overlap and none is waiting on payment.
+            for (int i = 0; i < reservationCount; i++) {
+                int room = random.nextInt(roomCount);
+                LocalDate checkIn = nextFree[room].plusDays(random.nextInt(3));
+                LocalDate checkOut = checkIn.plusDays(1 + random.nextInt(5));
+                nextFree[room] = checkOut.plusDays(1);
+                Reservation reservation = new Reservation(ReservationIdGenerator.nextId(), "Guest " + i, 
+                    layout[room], checkIn, checkOut, 1 + random.nextInt(layout[room].getRoomType().getMaxOccupancy()));
+                writeEntry(out, ReservationJournal.bookingEntry(reservation));
+                writeEntry(out, ReservationJournal.paymentEntry(reservation));
+            }
+        }
+    }
+
+    private static void writeEntry(BufferedWriter out, String entry) throws IOException {
+        out.write(entry);
+        out.write('\n');
+    }
+
+    @Override
+    public void open(Path directory) {
+        system = new HotelReservationSystem(PROPERTY_NAME, directory);
+        ArrayList<Room> found = new ArrayList<>();
+        for (Room room; (room = system.findRoom(String.valueOf(FIRST_ROOM_NUMBER + found.size()))) != null; ) {
+            found.add(room);
+        }
+        rooms = found.toArray(new Room[0]);
+        booked = new ArrayList<>(system.listReservations());
+    }
+
+    @Override
+    public void close() {
+        stopHttp();
+        if (system != null) {
+            system.shutdown();
+            system = null;
+        }
+    }
+
+    @Override
+    public boolean isRoomAvailable(int room, LocalDate checkIn, LocalDate checkOut) {
+        return system.isRoomAvailable(rooms[room], checkIn, checkOut);
+    }
+
+    @Override
+    public int findAvailableRooms(LocalDate checkIn, LocalDate checkOut, int guests) {
+        return system.findAvailableRooms(checkIn, checkOut, guests).size();
+    }
+
+    // The availability check the room indexes replaced: every reservation
+    // is compared against the stay, as the original hotel did, though on
+    // the fields directly rather than by parsing getDetailsString().
+    @Override
+    public boolean linearScanIsRoomAvailable(int room, LocalDate checkIn, LocalDate checkOut) {
+        Room target = rooms[room];
+        for (Reservation reservation : booked) {
+            if (reservation.getRoom() == target && !reservation.isCancelled() 
+                    && !checkOut.isBefore(reservation.getCheckInDate()) 
+                    && !checkIn.isAfter(reservation.getCheckOutDate())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // One pass over every reservation marks the rooms taken during the stay,
+    // which is already far cheaper than the original scan per room.
+    @Override
+    public int linearScanFindAvailableRooms(LocalDate checkIn, LocalDate checkOut, int guests) {
+        HashSet<Room> taken = new HashSet<>();
+        for (Reservation reservation : booked) {
+            if (!reservation.isCancelled() && !checkOut.isBefore(reservation.getCheckInDate()) 
+                    && !checkIn.isAfter(reservation.getCheckOutDate())) {
+                taken.add(reservation.getRoom());
+            }
+        }
+        int available = 0;
+        for (Room room : rooms) {
+            if (room.getRoomType().getMaxOccupancy() >= guests && !taken.contains(room)) {
+                available++;
+            }
+        }
+        return available;
+    }
+
+    @Override
+    public boolean bookRoom(String guestName, int room, LocalDate checkIn, LocalDate checkOut, int guests) {
+        return system.bookRoom(guestName, rooms[room].getRoomNumber(), checkIn, checkOut, guests) != null;
+    }
+
+    @Override
+    public void startHttp(int port) throws IOException {
+        http = new HotelHttpService(system, port);
+        http.start();
+    }
+
+    @Override
+    public void stopHttp() {
+        if (http != null) {
+            http.stop();
+            http = null;
+        }
+    }
+
+    @Override
+    public void createReservations(int reservationCount, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        RoomType[] types = RoomType.values();
+        LocalDate tomorrow = LocalDate.now().plusDays(1);
+        occupancy = new OccupancyCalendar(tomorrow, 400);
+        reservations = new Reservation[reservationCount];
+        for (int i = 0; i < reservationCount; i++) {
+            Room room = new Room(String.valueOf(FIRST_ROOM_NUMBER + i), types[random.nextInt(types.length)]);
+            LocalDate checkIn = tomorrow.plusDays(random.nextInt(365));
+            reservations[i] = new Reservation("Guest " + i, room, checkIn, 
+                checkIn.plusDays(1 + random.nextInt(14)), 1 + random.nextInt(5));
+            room.attachTo(occupancy);
+            room.addBooking(checkIn, reservations[i].getCheckOutDate());
+        }
+    }
+
+    @Override
+    public long quoteCents(int reservation) {
+        Reservation stay = reservations[reservation];
+        return PricingEngine.quoteCents(stay.getRoom().getRoomType(), stay.getCheckInDate(), 
+            stay.getCheckOutDate(), stay.getNumberOfGuests());
+    }
+
+    @Override
+    public long quoteCentsWithOccupancy(int reservation) {
+        Reservation stay = reservations[reservation];
+        return PricingEngine.quoteCents(stay.getRoom().getRoomType(), stay.getCheckInDate(), 
+            stay.getCheckOutDate(), stay.getNumberOfGuests(), occupancy);
+    }
+
+    // The per-reservation formula the pricing engine replaced: the base
+    // price every night plus a flat fee per extra guest, in doubles.
+    @Override
+    public double legacyTotalCost(int reservation) {
+        Reservation stay = reservations[reservation];
+        RoomType type = stay.getRoom().getRoomType();
+        long nights = ChronoUnit.DAYS.between(stay.getCheckInDate(), stay.getCheckOutDate());
+        double additionalGuestFee = stay.getNumberOfGuests() > type.getMaxOccupancy() 
+            ? (stay.getNumberOfGuests() - type.getMaxOccupancy()) * 50.0 
+            : 0.0;
+        return nights * type.getBasePrice() + nights * additionalGuestFee;
+    }
+
+    @Override
+    public String detailsString(int reservation) {
+        return reservations[reservation].getDetailsString();
+    }
+
+    @Override
+    public void printDetails(int reservation, PrintWriter out) {
+        reservations[reservation].printDetails(out);
+    }
+
+    // Same batch size and flush interval as the hotel's own processor.
+    @Override
+    public void openPayments(long latencyMillis, double failureRate) {
+        payments = new PaymentProcessor(new SimulatedPaymentGateway(latencyMillis, failureRate), 64, 10);
+    }
+
+    @Override
+    public CompletableFuture<Boolean> submitPayment(int reservation) {
+        return payments.submit(reservations[reservation]);
+    }
+
+    @Override
+    public void closePayments() {
+        payments.shutdown();
+    }
+}
@@ -0,0 +1,70 @@
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Locale;
+
+import codealpha.bench.ItineraryWorkload;
+import codealpha.bench.SyntheticTrip;
+
+// Drives TravelItineraryPlanner for the benchmarks, which cannot name it.
+// The planner only takes destinations through its console prompts, so a
+// trip is entered as the answers to them.
+public class ItineraryFixture implements ItineraryWorkload {
+    private TravelItineraryPlanner planner = new TravelItineraryPlanner();
+
+    @Override
+    public String[] categories() {
+        ActivityCategory[] categories = ActivityCategory.values();
+        String[] labels = new String[categories.length];
+        for (int i = 0; i < categories.length; i++) {
+            labels[i] = categories[i].label;
+        }
+        return labels;
+    }
+
+    @Override
+    public void plan(SyntheticTrip trip) {
+        StringBuilder input = new StringBuilder();
+        for (SyntheticTrip.Stop stop : trip.stops) {
+            input.append(stop.name).append('\n').append(stop.arrival).append('\n')
+                .append(stop.departure).append('\n').append(amount(stop.budget)).append('\n');
+            for (SyntheticTrip.Visit visit : stop.activities) {
+                input.append("Y\n").append(visit.name).append('\n').append(visit.date).append('\n')
+                    .append(amount(visit.cost)).append('\n').append(visit.category).append('\n');
+            }
+            input.append("N\n");
+        }
+
+        InputStream console = System.in;
+        System.setIn(new ByteArrayInputStream(input.toString().getBytes(StandardCharsets.UTF_8)));
+        try {
+            planner = new TravelItineraryPlanner();
+            for (int i = 0; i < trip.stops.size(); i++) {
+                planner.addDestination();
+            }
+        } finally {
+            System.setIn(console);
+        }
+    }
+
+    // The planner reads amounts with Scanner.nextDouble in the default locale.
+    private static String amount(double value) {
+        return String.format(Locale.getDefault(Locale.Category.FORMAT), "%.2f", value);
+    }
+
+    @Override
+    public void displayItinerary() {
+        planner.displayItinerary();
+    }
+
+    @Override
+    public void saveItinerary(Path file) {
+        planner.saveItinerary(file.toString());
+    }
+
+    @Override
+    public void loadItinerary(Path file) {
+        planner.loadItinerary(file.toString());
+    }
+}
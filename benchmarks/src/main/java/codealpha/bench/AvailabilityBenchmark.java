@@ -0,0 +1,106 @@
+package codealpha.bench;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Room availability on a 2,000-room hotel as its booking history grows.
+// Searches fall on the next two years, so they hit both the occupancy
+// calendar (the first year) and the per-room booking maps beyond it.
+// findAvailableRooms is the search behind the console's "Search Available
+// Rooms", without the prompts. The linearScan variants answer the same
+// queries by scanning every reservation, the baseline the indexes replaced.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class AvailabilityBenchmark {
+    private static final int ROOMS = 2_000;
+    private static final int QUERIES = 1 << 12;
+
+    @Param({"10000", "100000", "1000000"})
+    public int reservations;
+
+    private HotelWorkload hotel;
+    private Path directory;
+    private PrintStream console;
+    private int[] rooms;
+    private LocalDate[] checkIns;
+    private LocalDate[] checkOuts;
+    private int[] guests;
+    private int next;
+
+    @Setup
+    public void setUp() throws IOException {
+        console = Fixtures.silenceConsole();
+        directory = Fixtures.createTempDirectory("hotel-availability");
+        hotel = Fixtures.load("HotelFixture", HotelWorkload.class);
+        hotel.writeHotel(directory, ROOMS, reservations, 42);
+        hotel.open(directory);
+
+        SplittableRandom random = new SplittableRandom(7);
+        LocalDate tomorrow = LocalDate.now().plusDays(1);
+        rooms = new int[QUERIES];
+        checkIns = new LocalDate[QUERIES];
+        checkOuts = new LocalDate[QUERIES];
+        guests = new int[QUERIES];
+        for (int i = 0; i < QUERIES; i++) {
+            rooms[i] = random.nextInt(ROOMS);
+            checkIns[i] = tomorrow.plusDays(random.nextInt(730));
+            checkOuts[i] = checkIns[i].plusDays(1 + random.nextInt(7));
+            guests[i] = 1 + random.nextInt(4);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        hotel.close();
+        Fixtures.deleteRecursively(directory);
+        System.setOut(console);
+    }
+
+    @Benchmark
+    public boolean isRoomAvailable() {
+        int i = next++ & (QUERIES - 1);
+        return hotel.isRoomAvailable(rooms[i], checkIns[i], checkOuts[i]);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public int findAvailableRooms() {
+        int i = next++ & (QUERIES - 1);
+        return hotel.findAvailableRooms(checkIns[i], checkOuts[i], guests[i]);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public boolean isRoomAvailableLinearScan() {
+        int i = next++ & (QUERIES - 1);
+        return hotel.linearScanIsRoomAvailable(rooms[i], checkIns[i], checkOuts[i]);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public int findAvailableRoomsLinearScan() {
+        int i = next++ & (QUERIES - 1);
+        return hotel.linearScanFindAvailableRooms(checkIns[i], checkOuts[i], guests[i]);
+    }
+}
@@ -0,0 +1,9 @@
+package codealpha.bench;
+
+import org.openjdk.jmh.annotations.Fork;
+
+// The same searches with -Dhotel.metrics=false; the difference to
+// AvailabilityBenchmark is what the counters, timers and JFR events cost.
+@Fork(value = 1, jvmArgsAppend = {"-Xmx3g", "-Dhotel.metrics=false"})
+public class AvailabilityNoMetricsBenchmark extends AvailabilityBenchmark {
+}
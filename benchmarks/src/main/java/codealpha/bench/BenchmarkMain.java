@@ -0,0 +1,23 @@
+package codealpha.bench;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Runs JMH with the GC profiler on, so every result comes with its
+// allocation rate and collection counts, and writes the results as JSON
+// to jmh-result.json. Passing -prof or -rf replaces those defaults.
+public final class BenchmarkMain {
+    private BenchmarkMain() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        ArrayList<String> options = new ArrayList<>(List.of(args));
+        if (!options.contains("-prof")) {
+            options.addAll(0, List.of("-prof", "gc"));
+        }
+        if (!options.contains("-rf")) {
+            options.addAll(0, List.of("-rf", "json"));
+        }
+        org.openjdk.jmh.Main.main(options.toArray(new String[0]));
+    }
+}
@@ -0,0 +1,81 @@
+package codealpha.bench;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Durable bookings per second: every confirmed booking is forced to the
+// journal before it returns, and concurrent ones share a force. Booking n
+// takes room n % rooms two days after that room's previous one, so every
+// request succeeds however the threads interleave. Bookings are left
+// unpaid, so from thirty seconds in their expiring holds are journaled
+// alongside, as they would be in production.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+public class BookingBenchmark {
+    @Param({"200", "2000"})
+    public int rooms;
+
+    private HotelWorkload hotel;
+    private Path directory;
+    private PrintStream console;
+    private LocalDate firstNight;
+    private AtomicLong bookings;
+
+    @Setup
+    public void setUp() throws IOException {
+        console = Fixtures.silenceConsole();
+        directory = Fixtures.createTempDirectory("hotel-booking");
+        hotel = Fixtures.load("HotelFixture", HotelWorkload.class);
+        hotel.writeHotel(directory, rooms, 0, 42);
+        hotel.open(directory);
+        firstNight = LocalDate.now().plusDays(1);
+        bookings = new AtomicLong();
+    }
+
+    @TearDown
+    public void tearDown() {
+        hotel.close();
+        Fixtures.deleteRecursively(directory);
+        System.setOut(console);
+    }
+
+    private boolean book() {
+        long n = bookings.getAndIncrement();
+        LocalDate checkIn = firstNight.plusDays(2 * (n / rooms));
+        return hotel.bookRoom("Guest " + n, (int) (n % rooms), checkIn, checkIn.plusDays(1), 1);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public boolean bookRoom() {
+        return book();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public boolean bookRoomConcurrently() {
+        return book();
+    }
+}
@@ -0,0 +1,67 @@
+package codealpha.bench;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+// How the grade analytics scale with cores. The parallel sort forks its
+// tasks into whichever pool runs it, so the report runs inside a pool of
+// the given parallelism; the common pool is sized up front only so the
+// sort does not fall back to one thread on its own. Results beyond the
+// machine's core count are not meaningful.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx3g", "-Djava.util.concurrent.ForkJoinPool.common.parallelism=8"})
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class GradeAnalyticsScalingBenchmark {
+    @Param({"1", "2", "4", "8"})
+    public int parallelism;
+
+    @Param({"1000000", "10000000"})
+    public int grades;
+
+    private GradeBookWorkload tracker;
+    private ForkJoinPool pool;
+    private Path directory;
+    private PrintStream console;
+
+    @Setup
+    public void setUp() throws IOException {
+        console = Fixtures.silenceConsole();
+        directory = Fixtures.createTempDirectory("grade-scaling");
+        Path csv = directory.resolve("grades.csv");
+        SyntheticGrades.writeCsv(csv, grades, 42);
+        tracker = Fixtures.load("GradeBookFixture", GradeBookWorkload.class);
+        tracker.importGrades(csv);
+        pool = new ForkJoinPool(parallelism);
+    }
+
+    @TearDown
+    public void tearDown() {
+        pool.shutdown();
+        Fixtures.deleteRecursively(directory);
+        System.setOut(console);
+    }
+
+    @Benchmark
+    public void displayGradeAnalytics() {
+        pool.submit(tracker::displayGradeAnalytics).join();
+    }
+}
@@ -0,0 +1,19 @@
+package codealpha.bench;
+
+import java.nio.file.Path;
+
+// Grade tracker operations driven by the benchmarks; reset starts over
+// with an empty tracker.
+public interface GradeBookWorkload {
+    void reset();
+
+    void importGrades(Path csv);
+
+    void displayGradeStatistics();
+
+    void displayGradeAnalytics();
+
+    void saveGrades(Path file);
+
+    void loadGrades(Path file);
+}
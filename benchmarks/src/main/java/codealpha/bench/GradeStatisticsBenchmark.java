@@ -0,0 +1,73 @@
+package codealpha.bench;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+// The grade tracker's reports and its CSV import at growing class sizes.
+// The statistics report prints every grade, so it grows with the data;
+// the analytics sort a copy of the grade column.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class GradeStatisticsBenchmark {
+    @Param({"100000", "1000000", "10000000"})
+    public int grades;
+
+    private GradeBookWorkload tracker;
+    private GradeBookWorkload importer;
+    private Path directory;
+    private Path csv;
+    private PrintStream console;
+
+    @Setup
+    public void setUp() throws IOException {
+        console = Fixtures.silenceConsole();
+        directory = Fixtures.createTempDirectory("grade-statistics");
+        csv = directory.resolve("grades.csv");
+        SyntheticGrades.writeCsv(csv, grades, 42);
+        tracker = Fixtures.load("GradeBookFixture", GradeBookWorkload.class);
+        tracker.importGrades(csv);
+        importer = Fixtures.load("GradeBookFixture", GradeBookWorkload.class);
+    }
+
+    @TearDown
+    public void tearDown() {
+        Fixtures.deleteRecursively(directory);
+        System.setOut(console);
+    }
+
+    @Benchmark
+    public void displayGradeStatistics() {
+        tracker.displayGradeStatistics();
+    }
+
+    @Benchmark
+    public void displayGradeAnalytics() {
+        tracker.displayGradeAnalytics();
+    }
+
+    @Benchmark
+    public GradeBookWorkload importGrades() {
+        importer.reset();
+        importer.importGrades(csv);
+        return importer;
+    }
+}
@@ -0,0 +1,10 @@
+package codealpha.bench;
+
+import org.openjdk.jmh.annotations.Fork;
+
+// The same reports and import with -Dgrades.metrics=false; the difference to
+// GradeStatisticsBenchmark is what the latency histograms, counters and JFR
+// report events cost.
+@Fork(value = 1, jvmArgsAppend = {"-Xmx3g", "-Dgrades.metrics=false"})
+public class GradeStatisticsNoMetricsBenchmark extends GradeStatisticsBenchmark {
+}
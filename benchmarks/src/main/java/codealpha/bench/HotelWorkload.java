@@ -0,0 +1,57 @@
+package codealpha.bench;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.concurrent.CompletableFuture;
+
+// Hotel operations driven by the benchmarks. Rooms and reservations are
+// referred to by their position in the generated data.
+public interface HotelWorkload {
+    // Writes a journal with roomCount rooms and reservationCount paid,
+    // non-overlapping stays from tomorrow on, the way the hotel itself would.
+    void writeHotel(Path directory, int roomCount, int reservationCount, long seed) throws IOException;
+
+    // Starts the hotel from the files in directory, replaying its journal.
+    void open(Path directory);
+
+    void close();
+
+    boolean isRoomAvailable(int room, LocalDate checkIn, LocalDate checkOut);
+
+    int findAvailableRooms(LocalDate checkIn, LocalDate checkOut, int guests);
+
+    // The same answers from a scan over every reservation, without the
+    // hotel's indexes, as a baseline.
+    boolean linearScanIsRoomAvailable(int room, LocalDate checkIn, LocalDate checkOut);
+
+    int linearScanFindAvailableRooms(LocalDate checkIn, LocalDate checkOut, int guests);
+
+    boolean bookRoom(String guestName, int room, LocalDate checkIn, LocalDate checkOut, int guests);
+
+    void startHttp(int port) throws IOException;
+
+    void stopHttp();
+
+    // Creates reservationCount stand-alone reservations, not booked into any
+    // hotel, for the pricing, formatting and payment benchmarks. Their stays
+    // are also marked in an occupancy calendar of their own.
+    void createReservations(int reservationCount, long seed);
+
+    long quoteCents(int reservation);
+
+    long quoteCentsWithOccupancy(int reservation);
+
+    double legacyTotalCost(int reservation);
+
+    String detailsString(int reservation);
+
+    void printDetails(int reservation, PrintWriter out);
+
+    void openPayments(long latencyMillis, double failureRate);
+
+    CompletableFuture<Boolean> submitPayment(int reservation);
+
+    void closePayments();
+}
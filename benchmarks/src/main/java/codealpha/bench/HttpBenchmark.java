@@ -0,0 +1,108 @@
+package codealpha.bench;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+// GET /rooms latency percentiles against a 2,000-room hotel served over
+// HTTP on localhost. Each JMH thread is one client waiting on its own
+// request; raise the client count with -t, e.g. -t 1000.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class HttpBenchmark {
+    private static final int ROOMS = 2_000;
+    private static final int QUERIES = 1 << 10;
+
+    @Param({"100000"})
+    public int reservations;
+
+    private HotelWorkload hotel;
+    private Path directory;
+    private PrintStream console;
+    private HttpClient client;
+    private HttpRequest[] requests;
+
+    @Setup
+    public void setUp() throws IOException {
+        console = Fixtures.silenceConsole();
+        directory = Fixtures.createTempDirectory("hotel-http");
+        hotel = Fixtures.load("HotelFixture", HotelWorkload.class);
+        hotel.writeHotel(directory, ROOMS, reservations, 42);
+        hotel.open(directory);
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        hotel.startHttp(port);
+
+        client = HttpClient.newHttpClient();
+        SplittableRandom random = new SplittableRandom(7);
+        LocalDate tomorrow = LocalDate.now().plusDays(1);
+        requests = new HttpRequest[QUERIES];
+        for (int i = 0; i < QUERIES; i++) {
+            LocalDate checkIn = tomorrow.plusDays(random.nextInt(365));
+            requests[i] = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/rooms?checkIn=" 
+                + checkIn + "&checkOut=" + checkIn.plusDays(1 + random.nextInt(7)) 
+                + "&guests=" + (1 + random.nextInt(4)))).build();
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        hotel.close();
+        Fixtures.deleteRecursively(directory);
+        System.setOut(console);
+    }
+
+    @State(Scope.Thread)
+    public static class Client {
+        int next;
+    }
+
+    private int searchRooms(Client state) throws IOException, InterruptedException {
+        HttpResponse<byte[]> response = client.send(requests[state.next++ & (QUERIES - 1)], 
+            HttpResponse.BodyHandlers.ofByteArray());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("GET /rooms returned " + response.statusCode());
+        }
+        return response.body().length;
+    }
+
+    @Benchmark
+    @Threads(1)
+    public int searchRooms1Client(Client state) throws IOException, InterruptedException {
+        return searchRooms(state);
+    }
+
+    @Benchmark
+    @Threads(64)
+    public int searchRooms64Clients(Client state) throws IOException, InterruptedException {
+        return searchRooms(state);
+    }
+}
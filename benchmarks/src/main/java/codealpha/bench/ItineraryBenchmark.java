@@ -0,0 +1,55 @@
+package codealpha.bench;
+
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+// The full itinerary report, with its per-destination and trip-wide
+// category breakdowns and daily cost timeline, for a twenty-stop trip.
+// Forecasts are cached after setup, so no simulated weather latency is
+// measured.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ItineraryBenchmark {
+    private static final int DESTINATIONS = 20;
+
+    @Param({"1000", "10000", "100000"})
+    public int activities;
+
+    private ItineraryWorkload planner;
+    private PrintStream console;
+
+    @Setup
+    public void setUp() {
+        console = Fixtures.silenceConsole();
+        planner = Fixtures.load("ItineraryFixture", ItineraryWorkload.class);
+        planner.plan(SyntheticTrip.generate(DESTINATIONS, activities, planner.categories(), 42));
+        planner.displayItinerary();
+    }
+
+    @TearDown
+    public void tearDown() {
+        System.setOut(console);
+    }
+
+    @Benchmark
+    public void displayItinerary() {
+        planner.displayItinerary();
+    }
+}
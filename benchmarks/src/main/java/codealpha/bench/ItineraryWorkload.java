@@ -0,0 +1,18 @@
+package codealpha.bench;
+
+import java.nio.file.Path;
+
+// Travel planner operations driven by the benchmarks.
+public interface ItineraryWorkload {
+    // Category labels as the planner's prompt accepts them.
+    String[] categories();
+
+    // Starts a new planner and enters the trip through its console prompts.
+    void plan(SyntheticTrip trip);
+
+    void displayItinerary();
+
+    void saveItinerary(Path file);
+
+    void loadItinerary(Path file);
+}
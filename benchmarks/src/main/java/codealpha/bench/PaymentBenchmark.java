@@ -0,0 +1,77 @@
+package codealpha.bench;
+
+import java.util.ArrayList;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Payment authorizations per second through the batching processor while
+// the simulated gateway is fast, slow or declining everything. Each
+// invocation submits a burst of payments and waits for all of them, so a
+// slow gateway costs one round trip per burst rather than per payment.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class PaymentBenchmark {
+    private static final int BURST = 1_000;
+
+    @Param({"fast", "slow", "failing"})
+    public String gateway;
+
+    private HotelWorkload hotel;
+    private ArrayList<CompletableFuture<Boolean>> results = new ArrayList<>(BURST);
+
+    @Setup
+    public void setUp() {
+        hotel = Fixtures.load("HotelFixture", HotelWorkload.class);
+        hotel.createReservations(BURST, 42);
+        switch (gateway) {
+            case "fast":
+                hotel.openPayments(5, 0.0);
+                break;
+            case "slow":
+                hotel.openPayments(200, 0.0);
+                break;
+            case "failing":
+                hotel.openPayments(5, 1.0);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown gateway: " + gateway);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        hotel.closePayments();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BURST)
+    public int authorizeBurst() {
+        results.clear();
+        for (int i = 0; i < BURST; i++) {
+            results.add(hotel.submitPayment(i));
+        }
+        int approved = 0;
+        for (CompletableFuture<Boolean> result : results) {
+            if (result.join()) approved++;
+        }
+        return approved;
+    }
+}
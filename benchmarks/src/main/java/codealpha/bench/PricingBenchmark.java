@@ -0,0 +1,79 @@
+package codealpha.bench;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Quoting a stay of one to fourteen nights with the pricing engine, with and
+// without occupancy surcharges, against the flat double formula it replaced,
+// and a reservation's details built as a formatted String against printed
+// straight into a buffer. Run with -prof gc: the quotes and printDetails
+// should allocate nothing per call.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class PricingBenchmark {
+    @Param({"1000", "100000"})
+    public int reservations;
+
+    private HotelWorkload hotel;
+    private StringWriter buffer;
+    private PrintWriter out;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        hotel = Fixtures.load("HotelFixture", HotelWorkload.class);
+        hotel.createReservations(reservations, 42);
+        buffer = new StringWriter(1 << 10);
+        out = new PrintWriter(buffer);
+    }
+
+    private int nextReservation() {
+        int i = next++;
+        if (next == reservations) next = 0;
+        return i;
+    }
+
+    @Benchmark
+    public long quoteCents() {
+        return hotel.quoteCents(nextReservation());
+    }
+
+    @Benchmark
+    public long quoteCentsWithOccupancy() {
+        return hotel.quoteCentsWithOccupancy(nextReservation());
+    }
+
+    @Benchmark
+    public double legacyTotalCost() {
+        return hotel.legacyTotalCost(nextReservation());
+    }
+
+    @Benchmark
+    public String getDetailsString() {
+        return hotel.detailsString(nextReservation());
+    }
+
+    @Benchmark
+    public int printDetails() {
+        buffer.getBuffer().setLength(0);
+        hotel.printDetails(nextReservation(), out);
+        return buffer.getBuffer().length();
+    }
+}
@@ -0,0 +1,101 @@
+package codealpha.bench;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Time to start a 2,000-room hotel, once from a journal holding its whole
+// history and once from the snapshot the first start leaves behind. Both
+// include writing the fresh snapshot a start always ends with. Every
+// start works on its own copy of the files.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+public class RecoveryBenchmark {
+    private static final int ROOMS = 2_000;
+
+    @Param({"100000", "1000000"})
+    public int reservations;
+
+    private HotelWorkload hotel;
+    private PrintStream console;
+    private Path journaled;
+    private Path snapshotted;
+    private Path journalCopy;
+    private Path snapshotCopy;
+
+    @Setup
+    public void setUp() throws IOException {
+        console = Fixtures.silenceConsole();
+        hotel = Fixtures.load("HotelFixture", HotelWorkload.class);
+        journaled = Fixtures.createTempDirectory("hotel-journal");
+        hotel.writeHotel(journaled, ROOMS, reservations, 42);
+
+        snapshotted = Fixtures.createTempDirectory("hotel-snapshot");
+        copy(journaled, snapshotted);
+        hotel.open(snapshotted);
+        hotel.close();
+    }
+
+    @Setup(Level.Iteration)
+    public void copyFiles() throws IOException {
+        journalCopy = Fixtures.createTempDirectory("hotel-recovery");
+        copy(journaled, journalCopy);
+        snapshotCopy = Fixtures.createTempDirectory("hotel-recovery");
+        copy(snapshotted, snapshotCopy);
+    }
+
+    @TearDown(Level.Iteration)
+    public void deleteFiles() {
+        hotel.close();
+        Fixtures.deleteRecursively(journalCopy);
+        Fixtures.deleteRecursively(snapshotCopy);
+    }
+
+    @TearDown
+    public void tearDown() {
+        Fixtures.deleteRecursively(journaled);
+        Fixtures.deleteRecursively(snapshotted);
+        System.setOut(console);
+    }
+
+    private static void copy(Path from, Path to) throws IOException {
+        try (Stream<Path> files = Files.list(from)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                Files.copy(file, to.resolve(file.getFileName()));
+            }
+        }
+    }
+
+    @Benchmark
+    public HotelWorkload startFromJournal() {
+        hotel.open(journalCopy);
+        return hotel;
+    }
+
+    @Benchmark
+    public HotelWorkload startFromSnapshot() {
+        hotel.open(snapshotCopy);
+        return hotel;
+    }
+}
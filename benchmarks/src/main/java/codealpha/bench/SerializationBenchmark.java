@@ -0,0 +1,172 @@
+package codealpha.bench;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Saving and loading a grade book and an itinerary in their binary formats
+// against Java serialization of the same data as plain objects. The binary
+// saves force the file to disk, so the serialized writes do too. A binary
+// load only reads what a report needs up front; the ...AndReport variants
+// add the first report, which reads the rest.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class SerializationBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class GradeBook {
+        @Param({"100000", "1000000"})
+        public int grades;
+
+        GradeBookWorkload tracker;
+        SyntheticGrades objects;
+        Path directory;
+        Path binary;
+        Path serialized;
+        PrintStream console;
+
+        @Setup
+        public void setUp() throws IOException {
+            console = Fixtures.silenceConsole();
+            directory = Fixtures.createTempDirectory("grade-serialization");
+            Path csv = directory.resolve("grades.csv");
+            SyntheticGrades.writeCsv(csv, grades, 42);
+            tracker = Fixtures.load("GradeBookFixture", GradeBookWorkload.class);
+            tracker.importGrades(csv);
+            objects = SyntheticGrades.generate(grades, 42);
+            binary = directory.resolve("grades.sgt");
+            serialized = directory.resolve("grades.ser");
+            tracker.saveGrades(binary);
+            writeObject(serialized, objects);
+        }
+
+        @TearDown
+        public void tearDown() {
+            Fixtures.deleteRecursively(directory);
+            System.setOut(console);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Itinerary {
+        @Param({"10000", "100000"})
+        public int activities;
+
+        ItineraryWorkload planner;
+        SyntheticTrip objects;
+        Path directory;
+        Path binary;
+        Path serialized;
+        PrintStream console;
+
+        @Setup
+        public void setUp() throws IOException {
+            console = Fixtures.silenceConsole();
+            directory = Fixtures.createTempDirectory("itinerary-serialization");
+            planner = Fixtures.load("ItineraryFixture", ItineraryWorkload.class);
+            objects = SyntheticTrip.generate(20, activities, planner.categories(), 42);
+            planner.plan(objects);
+            binary = directory.resolve("trip.tip");
+            serialized = directory.resolve("trip.ser");
+            planner.saveItinerary(binary);
+            writeObject(serialized, objects);
+        }
+
+        @TearDown
+        public void tearDown() {
+            Fixtures.deleteRecursively(directory);
+            System.setOut(console);
+        }
+    }
+
+    private static void writeObject(Path file, Object value) throws IOException {
+        try (FileOutputStream stream = new FileOutputStream(file.toFile());
+             ObjectOutputStream out = new ObjectOutputStream(new BufferedOutputStream(stream, 1 << 16))) {
+            out.writeObject(value);
+            out.flush();
+            stream.getFD().sync();
+        }
+    }
+
+    private static Object readObject(Path file) throws IOException, ClassNotFoundException {
+        try (ObjectInputStream in = new ObjectInputStream(
+                new BufferedInputStream(Files.newInputStream(file), 1 << 16))) {
+            return in.readObject();
+        }
+    }
+
+    @Benchmark
+    public void gradeBookSaveBinary(GradeBook state) {
+        state.tracker.saveGrades(state.binary);
+    }
+
+    @Benchmark
+    public void gradeBookSaveSerialized(GradeBook state) throws IOException {
+        writeObject(state.serialized, state.objects);
+    }
+
+    @Benchmark
+    public void gradeBookLoadBinary(GradeBook state) {
+        state.tracker.loadGrades(state.binary);
+    }
+
+    @Benchmark
+    public void gradeBookLoadBinaryAndReport(GradeBook state) {
+        state.tracker.loadGrades(state.binary);
+        state.tracker.displayGradeAnalytics();
+    }
+
+    @Benchmark
+    public Object gradeBookLoadSerialized(GradeBook state) throws IOException, ClassNotFoundException {
+        return readObject(state.serialized);
+    }
+
+    @Benchmark
+    public void itinerarySaveBinary(Itinerary state) {
+        state.planner.saveItinerary(state.binary);
+    }
+
+    @Benchmark
+    public void itinerarySaveSerialized(Itinerary state) throws IOException {
+        writeObject(state.serialized, state.objects);
+    }
+
+    @Benchmark
+    public void itineraryLoadBinary(Itinerary state) {
+        state.planner.loadItinerary(state.binary);
+    }
+
+    @Benchmark
+    public void itineraryLoadBinaryAndReport(Itinerary state) {
+        state.planner.loadItinerary(state.binary);
+        state.planner.displayItinerary();
+    }
+
+    @Benchmark
+    public Object itineraryLoadSerialized(Itinerary state) throws IOException, ClassNotFoundException {
+        return readObject(state.serialized);
+    }
+}
@@ -0,0 +1,62 @@
+package codealpha.bench;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.SplittableRandom;
+
+// Seeded grade rows: twenty grades per student on average, in hundredths
+// between 0 and 100. The parallel name and grade lists are how the tracker
+// first kept its data and serve as the Java serialization baseline.
+public final class SyntheticGrades implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    public final ArrayList<String> studentNames;
+    public final ArrayList<Double> studentGrades;
+
+    private SyntheticGrades(int rows) {
+        studentNames = new ArrayList<>(rows);
+        studentGrades = new ArrayList<>(rows);
+    }
+
+    public static SyntheticGrades generate(int rows, long seed) {
+        SyntheticGrades grades = new SyntheticGrades(rows);
+        String[] names = studentNames(rows);
+        SplittableRandom random = new SplittableRandom(seed);
+        for (int i = 0; i < rows; i++) {
+            grades.studentNames.add(names[random.nextInt(names.length)]);
+            grades.studentGrades.add(random.nextInt(10_001) / 100.0);
+        }
+        return grades;
+    }
+
+    // Same rows as generate, streamed to disk as the tracker's import format.
+    public static void writeCsv(Path csv, int rows, long seed) throws IOException {
+        String[] names = studentNames(rows);
+        SplittableRandom random = new SplittableRandom(seed);
+        try (BufferedWriter out = Files.newBufferedWriter(csv, StandardCharsets.UTF_8)) {
+            for (int i = 0; i < rows; i++) {
+                out.write(names[random.nextInt(names.length)]);
+                int hundredths = random.nextInt(10_001);
+                out.write(',');
+                out.write(Integer.toString(hundredths / 100));
+                out.write('.');
+                out.write(hundredths % 100 < 10 ? "0" : "");
+                out.write(Integer.toString(hundredths % 100));
+                out.write('\n');
+            }
+        }
+    }
+
+    private static String[] studentNames(int rows) {
+        String[] names = new String[Math.max(1, rows / 20)];
+        for (int i = 0; i < names.length; i++) {
+            names[i] = "Student " + i;
+        }
+        return names;
+    }
+}
@@ -0,0 +1,70 @@
+package codealpha.bench;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+// A seeded trip: consecutive stops of two to eight days, with activities
+// spread evenly across them. The object graph doubles as the baseline for
+// Java serialization, one object per destination and per activity.
+public final class SyntheticTrip implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    public static final class Stop implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        public final String name;
+        public final LocalDate arrival;
+        public final LocalDate departure;
+        public final double budget;
+        public final List<Visit> activities = new ArrayList<>();
+
+        Stop(String name, LocalDate arrival, LocalDate departure, double budget) {
+            this.name = name;
+            this.arrival = arrival;
+            this.departure = departure;
+            this.budget = budget;
+        }
+    }
+
+    public static final class Visit implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        public final String name;
+        public final LocalDate date;
+        public final double cost;
+        public final String category;
+
+        Visit(String name, LocalDate date, double cost, String category) {
+            this.name = name;
+            this.date = date;
+            this.cost = cost;
+            this.category = category;
+        }
+    }
+
+    public final List<Stop> stops = new ArrayList<>();
+
+    // Amounts are whole cents, so they survive being typed at the console.
+    public static SyntheticTrip generate(int destinations, int activities, String[] categories, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        SyntheticTrip trip = new SyntheticTrip();
+        LocalDate arrival = LocalDate.of(2030, 1, 1);
+        for (int d = 0; d < destinations; d++) {
+            LocalDate departure = arrival.plusDays(2 + random.nextInt(7));
+            Stop stop = new Stop("City " + d, arrival, departure, 
+                (50_000 + random.nextInt(500_000)) / 100.0);
+            int count = activities / destinations + (d < activities % destinations ? 1 : 0);
+            int days = (int) (departure.toEpochDay() - arrival.toEpochDay()) + 1;
+            for (int a = 0; a < count; a++) {
+                stop.activities.add(new Visit("Activity " + d + "." + a, arrival.plusDays(random.nextInt(days)), 
+                    random.nextInt(50_000) / 100.0, categories[random.nextInt(categories.length)]));
+            }
+            trip.stops.add(stop);
+            arrival = departure;
+        }
+        return trip;
+    }
+}
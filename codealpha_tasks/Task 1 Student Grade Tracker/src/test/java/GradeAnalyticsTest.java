@@ -0,0 +1,128 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+// The analytics report sorts in parallel, counts bands by binary search and
+// ranks students in a bounded heap; it must print exactly what a plain
+// sequential sort, a scan of every grade and a full ranking would.
+class GradeAnalyticsTest {
+    private static final int STUDENTS = 3_000;
+    private static final int GRADES = 60_000;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void matchesASequentialComputation() throws IOException {
+        Random random = new Random(17);
+        LinkedHashMap<String, List<Double>> gradesByStudent = new LinkedHashMap<>();
+        ArrayList<Double> all = new ArrayList<>();
+        StringBuilder csv = new StringBuilder();
+        for (int i = 0; i < GRADES; i++) {
+            String name = "Student " + random.nextInt(STUDENTS);
+            // Whole grades make ties on band floors and between students common.
+            String text = random.nextBoolean() ? Integer.toString(random.nextInt(101))
+                : String.format(Locale.ROOT, "%.2f", random.nextDouble() * 100);
+            double grade = Double.parseDouble(text);
+            csv.append(name).append(',').append(text).append('\n');
+            gradesByStudent.computeIfAbsent(name, key -> new ArrayList<>()).add(grade);
+            all.add(grade);
+        }
+        Path file = directory.resolve("grades.csv");
+        Files.write(file, csv.toString().getBytes(StandardCharsets.UTF_8));
+
+        StudentGradeTracker tracker = new StudentGradeTracker();
+        capture(() -> tracker.importGrades(file.toString()));
+        assertEquals(expectedReport(gradesByStudent, all), capture(tracker::displayGradeAnalytics));
+
+        // Rows served from a mapped grade book must give the same report.
+        Path saved = directory.resolve("grades.sgt");
+        capture(() -> tracker.saveGrades(saved.toString()));
+        StudentGradeTracker loaded = new StudentGradeTracker();
+        capture(() -> loaded.loadGrades(saved.toString()));
+        assertEquals(expectedReport(gradesByStudent, all), capture(loaded::displayGradeAnalytics));
+    }
+
+    private static String expectedReport(Map<String, List<Double>> gradesByStudent, List<Double> all) {
+        double[] sorted = new double[all.size()];
+        double sum = 0;
+        for (int i = 0; i < sorted.length; i++) {
+            sorted[i] = all.get(i);
+            sum += sorted[i];
+        }
+        Arrays.sort(sorted);
+        double mean = sum / sorted.length;
+        double squares = 0;
+        for (double grade : sorted) {
+            squares += (grade - mean) * (grade - mean);
+        }
+
+        StringBuilder report = new StringBuilder("\n--- Grade Analytics ---\n");
+        report.append(String.format("Median: %.2f\n", percentile(sorted, 50)));
+        report.append(String.format("25th Percentile: %.2f\n", percentile(sorted, 25)));
+        report.append(String.format("75th Percentile: %.2f\n", percentile(sorted, 75)));
+        report.append(String.format("90th Percentile: %.2f\n", percentile(sorted, 90)));
+        report.append(String.format("Standard Deviation: %.2f\n", Math.sqrt(squares / sorted.length)));
+
+        int[] bandCounts = new int[5];
+        for (double grade : all) {
+            bandCounts[grade >= 90 ? 0 : grade >= 80 ? 1 : grade >= 70 ? 2 : grade >= 60 ? 3 : 4]++;
+        }
+        report.append("\nGrade Distribution:\n");
+        String[] bands = {"A", "B", "C", "D", "F"};
+        for (int i = 0; i < bands.length; i++) {
+            report.append(bands[i]).append(": ").append(bandCounts[i]).append('\n');
+        }
+
+        // A stable sort keeps students with equal averages in the order they were added.
+        ArrayList<String> names = new ArrayList<>(gradesByStudent.keySet());
+        LinkedHashMap<String, Double> averages = new LinkedHashMap<>();
+        for (String name : names) {
+            double studentSum = 0;
+            for (double grade : gradesByStudent.get(name)) {
+                studentSum += grade;
+            }
+            averages.put(name, studentSum / gradesByStudent.get(name).size());
+        }
+        names.sort((a, b) -> Double.compare(averages.get(b), averages.get(a)));
+        report.append("\nTop Students:\n");
+        for (int i = 0; i < 5; i++) {
+            report.append(String.format("%d. %s: %.2f\n", i + 1, names.get(i), averages.get(names.get(i))));
+        }
+        return report.toString();
+    }
+
+    private static double percentile(double[] sorted, double percent) {
+        double position = percent / 100 * (sorted.length - 1);
+        int lower = (int) Math.floor(position);
+        if (lower == sorted.length - 1) return sorted[lower];
+        return sorted[lower] + (position - lower) * (sorted[lower + 1] - sorted[lower]);
+    }
+
+    private static String capture(Runnable action) {
+        PrintStream console = System.out;
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        System.setOut(new PrintStream(output, true, StandardCharsets.UTF_8));
+        try {
+            action.run();
+        } finally {
+            System.setOut(console);
+        }
+        return output.toString(StandardCharsets.UTF_8);
+    }
+}
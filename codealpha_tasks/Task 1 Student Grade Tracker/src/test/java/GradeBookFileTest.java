@@ -0,0 +1,199 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+// A saved grade book must load back into exactly the same reports, whether
+// it was written by this version or the first one.
+class GradeBookFileTest {
+    private static final int FILE_MAGIC = 0x53475442;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void savedGradeBookLoadsIntoTheSameReports() throws IOException {
+        Path csv = writeGrades("grades.csv", 5_000, 1);
+        StudentGradeTracker original = new StudentGradeTracker();
+        capture(() -> original.importGrades(csv.toString()));
+        Path file = directory.resolve("grades.sgt");
+        capture(() -> original.saveGrades(file.toString()));
+
+        StudentGradeTracker loaded = new StudentGradeTracker();
+        assertTrue(capture(() -> loaded.loadGrades(file.toString())).startsWith("Loaded 5000 grades"));
+        assertEquals(reports(original), reports(loaded));
+    }
+
+    @Test
+    void gradesAddedAfterLoadAreSavedWithTheLoadedOnes() throws IOException {
+        Path first = writeGrades("first.csv", 3_000, 2);
+        Path second = writeGrades("second.csv", 2_000, 3);
+        StudentGradeTracker expected = new StudentGradeTracker();
+        capture(() -> expected.importGrades(first.toString()));
+        capture(() -> expected.importGrades(second.toString()));
+
+        // The second save replaces the very file the loaded rows are mapped from.
+        Path file = directory.resolve("grades.sgt");
+        StudentGradeTracker writer = new StudentGradeTracker();
+        capture(() -> writer.importGrades(first.toString()));
+        capture(() -> writer.saveGrades(file.toString()));
+        StudentGradeTracker appender = new StudentGradeTracker();
+        capture(() -> appender.loadGrades(file.toString()));
+        capture(() -> appender.importGrades(second.toString()));
+        assertEquals(reports(expected), reports(appender));
+        capture(() -> appender.saveGrades(file.toString()));
+
+        StudentGradeTracker reloaded = new StudentGradeTracker();
+        capture(() -> reloaded.loadGrades(file.toString()));
+        assertEquals(reports(expected), reports(reloaded));
+    }
+
+    @Test
+    void versionOneFilesStillLoad() throws IOException {
+        Path csv = writeGrades("grades.csv", 2_000, 4);
+        StudentGradeTracker expected = new StudentGradeTracker();
+        capture(() -> expected.importGrades(csv.toString()));
+
+        Path file = directory.resolve("grades-v1.sgt");
+        writeVersionOne(csv, file);
+        StudentGradeTracker loaded = new StudentGradeTracker();
+        assertTrue(capture(() -> loaded.loadGrades(file.toString())).startsWith("Loaded 2000 grades"));
+        assertEquals(reports(expected), reports(loaded));
+    }
+
+    @Test
+    void damagedFileLeavesCurrentGradesUntouched() throws IOException {
+        Path csv = writeGrades("grades.csv", 1_000, 5);
+        StudentGradeTracker tracker = new StudentGradeTracker();
+        capture(() -> tracker.importGrades(csv.toString()));
+        Path file = directory.resolve("grades.sgt");
+        capture(() -> tracker.saveGrades(file.toString()));
+        String before = reports(tracker);
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 4);
+        }
+        assertTrue(capture(() -> tracker.loadGrades(file.toString())).startsWith("Could not load"));
+        assertEquals(before, reports(tracker));
+
+        Files.write(file, "name,grade\n".getBytes(StandardCharsets.UTF_8));
+        assertTrue(capture(() -> tracker.loadGrades(file.toString())).startsWith("Could not load"));
+        assertEquals(before, reports(tracker));
+    }
+
+    // Loading leaves the student id column unread; the first report or save
+    // that reads it rejects a bad id and drops the book instead of printing
+    // or writing it.
+    @Test
+    void corruptStudentIdsAreRejectedWhenFirstRead() throws IOException {
+        int rows = 1_000;
+        Path csv = writeGrades("grades.csv", rows, 6);
+        StudentGradeTracker tracker = new StudentGradeTracker();
+        capture(() -> tracker.importGrades(csv.toString()));
+        Path file = directory.resolve("grades.sgt");
+        capture(() -> tracker.saveGrades(file.toString()));
+        byte[] saved = Files.readAllBytes(file);
+
+        // The id column comes right before the last column, the grades.
+        int idsOffset = saved.length - 12 * rows;
+        int id = ByteBuffer.wrap(saved).getInt(idsOffset + 4 * 7);
+        for (int corrupt : new int[] {-1, 1_000_000, id == 0 ? 1 : 0}) {
+            ByteBuffer damaged = ByteBuffer.wrap(saved.clone());
+            damaged.putInt(idsOffset + 4 * 7, corrupt);
+            Path copy = directory.resolve("damaged.sgt");
+            Files.write(copy, damaged.array());
+
+            StudentGradeTracker reporter = new StudentGradeTracker();
+            assertTrue(capture(() -> reporter.loadGrades(copy.toString())).startsWith("Loaded 1000 grades"));
+            String report = capture(reporter::displayGradeStatistics);
+            assertTrue(report.startsWith("Could not read " + copy + ": corrupt grade book"),
+                "student id " + corrupt + ": " + report);
+            assertEquals("No grades entered.\n", capture(reporter::displayGradeStatistics));
+
+            StudentGradeTracker saver = new StudentGradeTracker();
+            capture(() -> saver.loadGrades(copy.toString()));
+            Path target = directory.resolve("resaved.sgt");
+            assertTrue(capture(() -> saver.saveGrades(target.toString())).startsWith("Could not read"),
+                "student id " + corrupt);
+            assertTrue(Files.notExists(target));
+        }
+    }
+
+    private Path writeGrades(String name, int rows, long seed) throws IOException {
+        Random random = new Random(seed);
+        StringBuilder csv = new StringBuilder();
+        for (int i = 0; i < rows; i++) {
+            csv.append("Student ").append(random.nextInt(rows / 20)).append(',')
+                .append(String.format(Locale.ROOT, "%.2f", random.nextInt(10_001) / 100.0)).append('\n');
+        }
+        Path path = directory.resolve(name);
+        Files.write(path, csv.toString().getBytes(StandardCharsets.UTF_8));
+        return path;
+    }
+
+    // Version 1 layout: magic, version, name and grade counts, the names as
+    // length-prefixed UTF-8, then the student id and grade columns.
+    private static void writeVersionOne(Path csv, Path file) throws IOException {
+        LinkedHashMap<String, Integer> ids = new LinkedHashMap<>();
+        ArrayList<Integer> studentIds = new ArrayList<>();
+        ArrayList<Float> grades = new ArrayList<>();
+        for (String line : Files.readAllLines(csv, StandardCharsets.UTF_8)) {
+            int comma = line.lastIndexOf(',');
+            studentIds.add(ids.computeIfAbsent(line.substring(0, comma), name -> ids.size()));
+            grades.add(Float.parseFloat(line.substring(comma + 1)));
+        }
+
+        try (DataOutputStream out = new DataOutputStream(Files.newOutputStream(file))) {
+            out.writeInt(FILE_MAGIC);
+            out.writeShort(1);
+            out.writeInt(ids.size());
+            out.writeInt(grades.size());
+            for (String name : ids.keySet()) {
+                byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+                out.writeInt(bytes.length);
+                out.write(bytes);
+            }
+            for (int id : studentIds) {
+                out.writeInt(id);
+            }
+            for (float grade : grades) {
+                out.writeFloat(grade);
+            }
+        }
+    }
+
+    private static String reports(StudentGradeTracker tracker) {
+        return capture(() -> {
+            tracker.displayGradeStatistics();
+            tracker.displayGradeAnalytics();
+        });
+    }
+
+    private static String capture(Runnable action) {
+        PrintStream console = System.out;
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        System.setOut(new PrintStream(output, true, StandardCharsets.UTF_8));
+        try {
+            action.run();
+        } finally {
+            System.setOut(console);
+        }
+        return output.toString(StandardCharsets.UTF_8);
+    }
+}
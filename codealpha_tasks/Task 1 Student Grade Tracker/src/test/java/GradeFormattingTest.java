@@ -0,0 +1,80 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+// Grades are printed exactly as "%.2f" printed the doubles the tracker
+// first stored, including values whose thousandths sit on a half.
+class GradeFormattingTest {
+    private static final double[] GRADES = {2.675, 1.005, 0.125, 87.3, 99.995, 64.5, 100, 0, 33.333};
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void gradesPrintAsPercentTwoF() throws IOException {
+        StringBuilder csv = new StringBuilder();
+        for (int i = 0; i < GRADES.length; i++) {
+            csv.append("Student ").append(i).append(',').append(GRADES[i]).append('\n');
+        }
+        Path file = directory.resolve("grades.csv");
+        Files.write(file, csv.toString().getBytes(StandardCharsets.UTF_8));
+
+        StudentGradeTracker tracker = new StudentGradeTracker();
+        capture(() -> tracker.importGrades(file.toString()));
+        String report = capture(tracker::displayGradeStatistics);
+
+        StringBuilder expected = new StringBuilder("\n--- Grade Statistics ---\n");
+        for (int i = 0; i < GRADES.length; i++) {
+            expected.append(String.format("Student %d: %.2f\n", i, GRADES[i]));
+        }
+        assertEquals(expected.toString(), report.substring(0, expected.length()));
+        assertEquals(String.format("Highest Score: %.2f", 100.0), line(report, "Highest Score"));
+    }
+
+    @Test
+    void importAcceptsOnlyPlainDecimals() throws IOException {
+        Path file = directory.resolve("grades.csv");
+        Files.write(file, ("Ann,87\nBen, 91.25 \nCal,.5\nDee,64.\nEve,12.345678901234567\n"
+            + "Fay,0x1p6\nGus,87d\nHal,1e1\nIda,+70\nJon,-0\nKim,.\nLea,1.2.3\nMax,Infinity\n")
+            .getBytes(StandardCharsets.UTF_8));
+
+        StudentGradeTracker tracker = new StudentGradeTracker();
+        String log = capture(() -> tracker.importGrades(file.toString()));
+        String report = capture(tracker::displayGradeStatistics);
+
+        assertEquals("Rejected 8 rows:", line(log, "Rejected"));
+        assertEquals("Ann: 87.00", line(report, "Ann"));
+        assertEquals("Ben: 91.25", line(report, "Ben"));
+        assertEquals("Cal: 0.50", line(report, "Cal"));
+        assertEquals("Dee: 64.00", line(report, "Dee"));
+        assertEquals("Eve: 12.35", line(report, "Eve"));
+        assertEquals(null, line(report, "Fay"));
+    }
+
+    private static String line(String report, String prefix) {
+        for (String line : report.split("\n")) {
+            if (line.startsWith(prefix)) return line;
+        }
+        return null;
+    }
+
+    private static String capture(Runnable action) {
+        PrintStream console = System.out;
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        System.setOut(new PrintStream(output, true, StandardCharsets.UTF_8));
+        try {
+            action.run();
+        } finally {
+            System.setOut(console);
+        }
+        return output.toString(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,44 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+// A duration is reported at most an eighth above what was measured, and
+// never above the slowest sample.
+class LatencyHistogramTest {
+    @Test
+    void bucketsOverstateByAtMostAnEighth() {
+        Random random = new Random(5);
+        for (int i = 0; i < 100_000; i++) {
+            long micros = random.nextLong() >>> (1 + random.nextInt(63));
+            long reported = LatencyHistogram.largestIn(LatencyHistogram.bucketOf(micros));
+            assertTrue(reported >= micros && reported - micros <= micros / 8,
+                () -> micros + " reported as " + reported);
+        }
+        int previous = LatencyHistogram.bucketOf(0);
+        for (long micros = 1; micros < 1 << 20; micros++) {
+            int bucket = LatencyHistogram.bucketOf(micros);
+            assertTrue(bucket == previous || bucket == previous + 1, "gap before " + micros);
+            previous = bucket;
+        }
+    }
+
+    @Test
+    void percentilesNeverPassTheSlowestSample() {
+        LatencyHistogram histogram = new LatencyHistogram("load");
+        long now = System.nanoTime();
+        histogram.record(now - 1_000_000);
+        histogram.record(now - 9_500_000);
+
+        assertEquals(2, histogram.getCount());
+        long slowest = histogram.percentileMicros(100);
+        assertTrue(slowest >= 9_500 && slowest < 9_500 * 9 / 8, "p100 " + slowest);
+        StringWriter text = new StringWriter();
+        histogram.print(new PrintWriter(text, true));
+        assertTrue(text.toString().contains(String.format("load.max_ms %.3f", slowest / 1e3)), text::toString);
+    }
+}
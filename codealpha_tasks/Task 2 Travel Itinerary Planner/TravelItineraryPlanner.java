@@ -1,24 +1,114 @@
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.time.LocalDate;
 import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.EnumMap;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Random;
 import java.util.Scanner;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.TimeUnit;
+
+enum ActivityCategory {
+    SIGHTSEEING("Sightseeing"),
+    FOOD("Food"),
+    ACCOMMODATION("Accommodation"),
+    TRANSPORT("Transport"),
+    OTHER("Other");
+
+    final String label;
+
+    ActivityCategory(String label) {
+        this.label = label;
+    }
+
+    // Null when the input names no category.
+    public static ActivityCategory fromInput(String input) {
+        for (ActivityCategory category : values()) {
+            if (category.label.equalsIgnoreCase(input.trim())) {
+                return category;
+            }
+        }
+        return null;
+    }
+
+    public static String choices() {
+        StringBuilder choices = new StringBuilder();
+        for (ActivityCategory category : values()) {
+            if (choices.length() > 0) choices.append('/');
+            choices.append(category.label);
+        }
+        return choices.toString();
+    }
+}
 
 class Destination {
     String name;
     LocalDate arrivalDate;
     LocalDate departureDate;
     double estimatedBudget;
-    ArrayList<Activity> activities;
+    private ArrayList<Activity> activities;
     WeatherForecast weatherForecast;
+    // Kept up to date by addActivity, indexed by ActivityCategory.ordinal().
+    double[] categoryCosts;
+    double activitiesCost;
+    // A loaded destination leaves its activity rows in the file until they
+    // are first asked for; the rollups above are read from the file.
+    private ItineraryArchive archive;
+    private int firstArchivedActivity;
+    int archivedActivityCount;
 
     public Destination(String name) {
         this.name = name;
         this.activities = new ArrayList<>();
+        this.categoryCosts = new double[ActivityCategory.values().length];
+    }
+
+    Destination(String name, ItineraryArchive archive, int firstArchivedActivity, int archivedActivityCount) {
+        this(name);
+        this.archive = archive;
+        this.firstArchivedActivity = firstArchivedActivity;
+        this.archivedActivityCount = archivedActivityCount;
+    }
+
+    public List<Activity> activities() {
+        if (archive != null) {
+            archive.readActivities(this, firstArchivedActivity, archivedActivityCount, activities);
+            archive = null;
+        }
+        return activities;
     }
 
     public void addActivity(Activity activity) {
-        activities.add(activity);
+        activity.destination = this;
+        activities().add(activity);
+        categoryCosts[activity.category.ordinal()] += activity.estimatedCost;
+        activitiesCost += activity.estimatedCost;
     }
 }
 
@@ -26,9 +116,10 @@ class Activity {
     String name;
     LocalDate date;
     double estimatedCost;
-    String category;
+    ActivityCategory category;
+    Destination destination;
 
-    public Activity(String name, LocalDate date, double estimatedCost, String category) {
+    public Activity(String name, LocalDate date, double estimatedCost, ActivityCategory category) {
         this.name = name;
         this.date = date;
         this.estimatedCost = estimatedCost;
@@ -48,15 +139,939 @@ class WeatherForecast {
     }
 }
 
+class ForecastKey {
+    final String location;
+    final LocalDate date;
+
+    public ForecastKey(String location, LocalDate date) {
+        this.location = location.trim().toLowerCase(Locale.ROOT);
+        this.date = date;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (!(other instanceof ForecastKey)) return false;
+        ForecastKey key = (ForecastKey) other;
+        return location.equals(key.location) && date.equals(key.date);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(location, date);
+    }
+
+    @Override
+    public String toString() {
+        return location + " on " + date;
+    }
+}
+
+interface WeatherProvider {
+    CompletableFuture<Map<ForecastKey, WeatherForecast>> getForecasts(List<ForecastKey> keys);
+
+    default CompletableFuture<WeatherForecast> getForecast(String location, LocalDate date) {
+        ForecastKey key = new ForecastKey(location, date);
+        return getForecasts(List.of(key)).thenApply(forecasts -> forecasts.get(key));
+    }
+}
+
+// Local stand-in for a remote forecast service: every call, however many
+// keys it carries, costs one simulated round trip. Forecasts are derived
+// from the key, so the same place and date always get the same forecast.
+class SimulatedWeatherService implements WeatherProvider {
+    private static final String[] CONDITIONS = {"Sunny", "Cloudy", "Rainy", "Partly Cloudy"};
+
+    private long latencyMillis;
+
+    public SimulatedWeatherService(long latencyMillis) {
+        this.latencyMillis = latencyMillis;
+    }
+
+    @Override
+    public CompletableFuture<Map<ForecastKey, WeatherForecast>> getForecasts(List<ForecastKey> keys) {
+        return CompletableFuture.supplyAsync(() -> {
+            HashMap<ForecastKey, WeatherForecast> forecasts = new HashMap<>();
+            for (ForecastKey key : keys) {
+                Random random = new Random(key.hashCode());
+                forecasts.put(key, new WeatherForecast(
+                    CONDITIONS[random.nextInt(CONDITIONS.length)], 
+                    15 + random.nextDouble() * 20, 
+                    random.nextDouble() * 100));
+            }
+            return forecasts;
+        }, CompletableFuture.delayedExecutor(latencyMillis, TimeUnit.MILLISECONDS));
+    }
+}
+
+// Size-bounded LRU cache with a time-to-live in front of another provider.
+// Keys already being fetched are shared rather than requested again, and all
+// remaining misses in one call go to the delegate as a single batch. Only
+// finished entries are evicted, so a caller sharing an in-flight fetch is
+// never left waiting on a future nobody will complete.
+class CachingWeatherProvider implements WeatherProvider {
+    private WeatherProvider delegate;
+    private int maxEntries;
+    private long ttlMillis;
+    private LinkedHashMap<ForecastKey, CompletableFuture<WeatherForecast>> entries;
+    private HashMap<ForecastKey, Long> fetchedAtMillis;
+
+    public CachingWeatherProvider(WeatherProvider delegate, int maxEntries, long ttlMillis) {
+        this.delegate = delegate;
+        this.maxEntries = maxEntries;
+        this.ttlMillis = ttlMillis;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true);
+        this.fetchedAtMillis = new HashMap<>();
+    }
+
+    @Override
+    public CompletableFuture<Map<ForecastKey, WeatherForecast>> getForecasts(List<ForecastKey> keys) {
+        LinkedHashMap<ForecastKey, CompletableFuture<WeatherForecast>> pending = new LinkedHashMap<>();
+        ArrayList<ForecastKey> misses = new ArrayList<>();
+
+        synchronized (this) {
+            long now = System.currentTimeMillis();
+            for (ForecastKey key : keys) {
+                CompletableFuture<WeatherForecast> entry = entries.get(key);
+                if (entry == null || now - fetchedAtMillis.get(key) > ttlMillis) {
+                    entry = new CompletableFuture<>();
+                    entries.put(key, entry);
+                    fetchedAtMillis.put(key, now);
+                    misses.add(key);
+                }
+                pending.put(key, entry);
+            }
+            evictLeastRecentlyUsed();
+        }
+
+        if (!misses.isEmpty()) {
+            CompletableFuture<Map<ForecastKey, WeatherForecast>> fetch;
+            try {
+                fetch = delegate.getForecasts(misses);
+            } catch (RuntimeException e) {
+                fetch = CompletableFuture.failedFuture(e);
+            }
+            fetch.whenComplete((forecasts, error) -> {
+                for (ForecastKey key : misses) {
+                    CompletableFuture<WeatherForecast> entry = pending.get(key);
+                    WeatherForecast forecast = error == null ? forecasts.get(key) : null;
+                    if (forecast == null) {
+                        forget(key, entry);
+                        entry.completeExceptionally(error != null ? error 
+                            : new NoSuchElementException("No forecast for " + key));
+                    } else {
+                        entry.complete(forecast);
+                    }
+                }
+            });
+        }
+
+        return CompletableFuture.allOf(pending.values().toArray(new CompletableFuture<?>[0]))
+            .thenApply(done -> {
+                HashMap<ForecastKey, WeatherForecast> forecasts = new HashMap<>();
+                pending.forEach((key, entry) -> forecasts.put(key, entry.join()));
+                return forecasts;
+            });
+    }
+
+    // Entries still being fetched are skipped, so the cache can run over
+    // maxEntries by at most the number of keys in flight.
+    private void evictLeastRecentlyUsed() {
+        Iterator<Map.Entry<ForecastKey, CompletableFuture<WeatherForecast>>> eldest = 
+            entries.entrySet().iterator();
+        while (entries.size() > maxEntries && eldest.hasNext()) {
+            Map.Entry<ForecastKey, CompletableFuture<WeatherForecast>> entry = eldest.next();
+            if (!entry.getValue().isDone()) continue;
+            fetchedAtMillis.remove(entry.getKey());
+            eldest.remove();
+        }
+    }
+
+    // A failed fetch is not cached, so the next request tries again.
+    private synchronized void forget(ForecastKey key, CompletableFuture<WeatherForecast> entry) {
+        if (entries.get(key) == entry) {
+            entries.remove(key);
+            fetchedAtMillis.remove(key);
+        }
+    }
+}
+
+// Cost of getting from one stop to another, in dollars. Routes are priced
+// as if each leg costs the same in both directions.
+interface TravelCostProvider {
+    double travelCost(String from, String to);
+}
+
+// Local stand-in for a fares service: every place gets a fixed spot on a
+// map derived from its name, and a leg costs a base fare plus distance.
+class SimulatedTravelCosts implements TravelCostProvider {
+    private static final double BASE_FARE = 40;
+    private static final double COST_PER_KM = 0.12;
+
+    @Override
+    public double travelCost(String from, String to) {
+        double[] a = position(from);
+        double[] b = position(to);
+        if (a[0] == b[0] && a[1] == b[1]) return 0;
+        return BASE_FARE + COST_PER_KM * Math.hypot(a[0] - b[0], a[1] - b[1]);
+    }
+
+    private static double[] position(String place) {
+        Random random = new Random(place.trim().toLowerCase(Locale.ROOT).hashCode());
+        return new double[] {random.nextDouble() * 5_000, random.nextDouble() * 5_000};
+    }
+}
+
+// Told each time a route search finds a cheaper order. Calls come from the
+// search threads, one at a time.
+interface RouteProgressListener {
+    void improved(int[] order, double cost, long elapsedMillis);
+}
+
+// Orders stops to minimize the summed cost of the legs between consecutive
+// stops; any stop may come first. Small trips are solved exactly. Larger ones
+// run one local search per fork-join worker (2-opt and or-opt moves to a local
+// optimum, then a double-bridge kick and again, restarting from a shuffle when
+// kicks stop paying off) until the time budget is spent, keeping the cheapest
+// order any of them found.
+class RouteOptimizer {
+    static final int EXACT_STOPS = 12;
+    private static final double EPSILON = 1e-9;
+
+    private final double[][] costs;
+    private final int stops;
+    private int[] bestOrder;
+    private double bestCost;
+    private long startNanos;
+    private RouteProgressListener listener;
+
+    RouteOptimizer(double[][] costs) {
+        this.costs = costs;
+        this.stops = costs.length;
+    }
+
+    static double[][] costMatrix(List<String> places, TravelCostProvider provider) {
+        double[][] costs = new double[places.size()][places.size()];
+        for (int i = 0; i < costs.length; i++) {
+            for (int j = i + 1; j < costs.length; j++) {
+                double cost = provider.travelCost(places.get(i), places.get(j));
+                if (!(cost >= 0)) {
+                    throw new IllegalArgumentException("Travel cost from " + places.get(i) + " to "
+                        + places.get(j) + " must not be negative: " + cost);
+                }
+                costs[i][j] = cost;
+                costs[j][i] = cost;
+            }
+        }
+        return costs;
+    }
+
+    double routeCost(int[] order) {
+        double total = 0;
+        for (int i = 1; i < order.length; i++) {
+            total += costs[order[i - 1]][order[i]];
+        }
+        return total;
+    }
+
+    // The exact route is reported to the listener once, as soon as it is known.
+    public int[] optimize(long budgetMillis, RouteProgressListener listener) {
+        if (stops > EXACT_STOPS) {
+            return searchOrder(budgetMillis, listener);
+        }
+        long started = System.nanoTime();
+        int[] order = exactOrder();
+        if (listener != null) {
+            listener.improved(order.clone(), routeCost(order), (System.nanoTime() - started) / 1_000_000);
+        }
+        return order;
+    }
+
+    // Held-Karp over subsets: cheapest path through each set of stops ending
+    // at each stop, then walked back from the cheapest full path.
+    int[] exactOrder() {
+        if (stops == 0) return new int[0];
+        int full = (1 << stops) - 1;
+        double[][] cheapest = new double[full + 1][stops];
+        int[][] previous = new int[full + 1][stops];
+        for (double[] row : cheapest) {
+            Arrays.fill(row, Double.POSITIVE_INFINITY);
+        }
+        for (int stop = 0; stop < stops; stop++) {
+            cheapest[1 << stop][stop] = 0;
+            previous[1 << stop][stop] = -1;
+        }
+        for (int visited = 1; visited <= full; visited++) {
+            for (int last = 0; last < stops; last++) {
+                double cost = cheapest[visited][last];
+                if (cost == Double.POSITIVE_INFINITY) continue;
+                for (int next = 0; next < stops; next++) {
+                    if ((visited & (1 << next)) != 0) continue;
+                    int extended = visited | (1 << next);
+                    if (cost + costs[last][next] < cheapest[extended][next]) {
+                        cheapest[extended][next] = cost + costs[last][next];
+                        previous[extended][next] = last;
+                    }
+                }
+            }
+        }
+
+        int last = 0;
+        for (int stop = 1; stop < stops; stop++) {
+            if (cheapest[full][stop] < cheapest[full][last]) last = stop;
+        }
+        int[] order = new int[stops];
+        for (int visited = full, i = stops - 1; i >= 0; i--) {
+            order[i] = last;
+            int before = previous[visited][last];
+            visited &= ~(1 << last);
+            last = before;
+        }
+        return order;
+    }
+
+    int[] searchOrder(long budgetMillis, RouteProgressListener listener) {
+        this.listener = listener;
+        startNanos = System.nanoTime();
+        long deadline = startNanos + TimeUnit.MILLISECONDS.toNanos(budgetMillis);
+        bestOrder = nearestNeighbourOrder();
+        bestCost = routeCost(bestOrder);
+        if (stops < 4) return bestOrder.clone();
+
+        int workers = Math.max(1, ForkJoinPool.getCommonPoolParallelism());
+        ArrayList<ForkJoinTask<?>> tasks = new ArrayList<>();
+        for (int worker = 0; worker < workers; worker++) {
+            long seed = worker;
+            tasks.add(ForkJoinTask.adapt(() -> search(new Random(seed), seed == 0, deadline)));
+        }
+        ForkJoinTask.invokeAll(tasks);
+        synchronized (this) {
+            return bestOrder.clone();
+        }
+    }
+
+    private void search(Random random, boolean fromNearestNeighbour, long deadline) {
+        int[] order = fromNearestNeighbour ? nearestNeighbourOrder() : shuffledOrder(random);
+        improve(order, deadline);
+        double cost = routeCost(order);
+        offer(order, cost);
+        int failedKicks = 0;
+        while (System.nanoTime() < deadline) {
+            // Kicks that keep falling back into the same basin: start afresh.
+            if (failedKicks++ > 4 * stops) {
+                order = shuffledOrder(random);
+                improve(order, deadline);
+                cost = routeCost(order);
+                offer(order, cost);
+                failedKicks = 0;
+            }
+            int[] kicked = doubleBridge(order, random);
+            improve(kicked, deadline);
+            double kickedCost = routeCost(kicked);
+            if (kickedCost < cost - EPSILON) {
+                order = kicked;
+                cost = kickedCost;
+                offer(order, cost);
+                failedKicks = 0;
+            }
+        }
+    }
+
+    private synchronized void offer(int[] order, double cost) {
+        if (cost < bestCost - EPSILON) {
+            bestOrder = order.clone();
+            bestCost = cost;
+            if (listener != null) {
+                listener.improved(bestOrder.clone(), cost,
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+            }
+        }
+    }
+
+    private void improve(int[] order, long deadline) {
+        boolean improved = true;
+        while (improved && System.nanoTime() < deadline) {
+            improved = twoOpt(order) || orOpt(order);
+        }
+    }
+
+    // Reverses order[i..j] when that shortens the two legs around it.
+    private boolean twoOpt(int[] order) {
+        int n = order.length;
+        for (int i = 0; i < n - 1; i++) {
+            int before = i > 0 ? order[i - 1] : -1;
+            for (int j = i + 1; j < n; j++) {
+                if (i == 0 && j == n - 1) continue;
+                int after = j + 1 < n ? order[j + 1] : -1;
+                double delta = leg(before, order[j]) + leg(order[i], after)
+                    - leg(before, order[i]) - leg(order[j], after);
+                if (delta < -EPSILON) {
+                    reverse(order, i, j);
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    // Moves a run of up to three stops, either way round, to another gap
+    // where it costs less.
+    private boolean orOpt(int[] order) {
+        int n = order.length;
+        for (int length = 1; length <= 3 && length < n; length++) {
+            for (int i = 0; i + length <= n; i++) {
+                int first = order[i];
+                int last = order[i + length - 1];
+                int before = i > 0 ? order[i - 1] : -1;
+                int after = i + length < n ? order[i + length] : -1;
+                double removed = leg(before, first) + leg(last, after) - leg(before, after);
+                // Gap g lies between order[g - 1] and order[g].
+                for (int gap = 0; gap <= n; gap++) {
+                    if (gap >= i && gap <= i + length) continue;
+                    int left = gap > 0 ? order[gap - 1] : -1;
+                    int right = gap < n ? order[gap] : -1;
+                    double added = leg(left, first) + leg(last, right) - leg(left, right);
+                    if (added - removed < -EPSILON) {
+                        moveRun(order, i, length, gap);
+                        return true;
+                    }
+                    double reversed = leg(left, last) + leg(first, right) - leg(left, right);
+                    if (reversed - removed < -EPSILON) {
+                        reverse(order, i, i + length - 1);
+                        moveRun(order, i, length, gap);
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    private static void reverse(int[] order, int from, int to) {
+        for (; from < to; from++, to--) {
+            int swap = order[from];
+            order[from] = order[to];
+            order[to] = swap;
+        }
+    }
+
+    private static void moveRun(int[] order, int start, int length, int gap) {
+        int[] run = Arrays.copyOfRange(order, start, start + length);
+        if (gap < start) {
+            System.arraycopy(order, gap, order, gap + length, start - gap);
+            System.arraycopy(run, 0, order, gap, length);
+        } else {
+            System.arraycopy(order, start + length, order, start, gap - start - length);
+            System.arraycopy(run, 0, order, gap - length, length);
+        }
+    }
+
+    // Cuts the route into four pieces A B C D and rejoins them as A C B D,
+    // a change 2-opt and or-opt cannot undo in one step.
+    private static int[] doubleBridge(int[] order, Random random) {
+        int n = order.length;
+        int[] cuts = {1 + random.nextInt(n - 1), 1 + random.nextInt(n - 1), 1 + random.nextInt(n - 1)};
+        Arrays.sort(cuts);
+        int[] kicked = new int[n];
+        int k = 0;
+        for (int i = 0; i < cuts[0]; i++) kicked[k++] = order[i];
+        for (int i = cuts[1]; i < cuts[2]; i++) kicked[k++] = order[i];
+        for (int i = cuts[0]; i < cuts[1]; i++) kicked[k++] = order[i];
+        for (int i = cuts[2]; i < n; i++) kicked[k++] = order[i];
+        return kicked;
+    }
+
+    // From each possible first stop, always travel to the cheapest stop not
+    // yet visited; keep the cheapest of those routes.
+    private int[] nearestNeighbourOrder() {
+        int[] best = null;
+        double bestTotal = Double.POSITIVE_INFINITY;
+        for (int first = 0; first < stops; first++) {
+            int[] order = new int[stops];
+            boolean[] visited = new boolean[stops];
+            order[0] = first;
+            visited[first] = true;
+            for (int i = 1; i < stops; i++) {
+                int from = order[i - 1];
+                int next = -1;
+                for (int stop = 0; stop < stops; stop++) {
+                    if (!visited[stop] && (next < 0 || costs[from][stop] < costs[from][next])) next = stop;
+                }
+                order[i] = next;
+                visited[next] = true;
+            }
+            double total = routeCost(order);
+            if (total < bestTotal) {
+                best = order;
+                bestTotal = total;
+            }
+        }
+        return best == null ? new int[0] : best;
+    }
+
+    private int[] shuffledOrder(Random random) {
+        int[] order = new int[stops];
+        for (int i = 0; i < stops; i++) {
+            order[i] = i;
+        }
+        for (int i = stops - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int swap = order[i];
+            order[i] = order[j];
+            order[j] = swap;
+        }
+        return order;
+    }
+
+    // The route is open, so the ends cost nothing to reach.
+    private double leg(int from, int to) {
+        return from < 0 || to < 0 ? 0 : costs[from][to];
+    }
+}
+
+// Version 2 itinerary file opened for lazy reading. The header, the trip
+// rollups and the destination rows are decoded when it is opened; activity
+// rows and their names are read per destination on demand. Every string
+// offset, name id and category byte those reads will follow is checked at
+// open, so a damaged file fails the load rather than a later report.
+class ItineraryArchive {
+    static final int ACTIVITY_ROW_BYTES = 4 + 4 + 8 + 1;
+
+    private ItineraryMapping file;
+    private int stringCount;
+    private int destinationCount;
+    private int activityCount;
+    private long stringOffsetsPosition;
+    private int categoryCount;
+    private long activityRowsPosition;
+
+    static int headerBytes(int categoryCount) {
+        return 4 + 2 + 4 + 4 + 4 + 8 + 4 + 8 + 8 + 8 * categoryCount;
+    }
+
+    static int destinationRowBytes(int categoryCount) {
+        return 4 + 4 + 4 + 8 + 8 + 4 + 4 + 8 * categoryCount;
+    }
+
+    public ItineraryArchive(ItineraryMapping file) throws IOException {
+        this.file = file;
+        if (file.size() < headerBytes(0)) {
+            throw new IOException("itinerary file is truncated");
+        }
+        stringCount = file.getInt(6);
+        destinationCount = file.getInt(10);
+        activityCount = file.getInt(14);
+        stringOffsetsPosition = file.getLong(18);
+        categoryCount = file.getInt(26);
+        if (stringCount < 0 || destinationCount < 0 || activityCount < 0 || 
+            categoryCount < 0 || categoryCount > ActivityCategory.values().length) {
+            throw new IOException("corrupt itinerary header");
+        }
+        activityRowsPosition = headerBytes(categoryCount) 
+            + (long) destinationCount * destinationRowBytes(categoryCount);
+        if (stringOffsetsPosition < activityRowsPosition + (long) activityCount * ACTIVITY_ROW_BYTES || 
+            file.size() < stringOffsetsPosition + 8L * stringCount) {
+            throw new IOException("itinerary file is truncated");
+        }
+        checkStrings();
+        checkActivityRows();
+    }
+
+    // Strings sit between the activity rows and their offset column.
+    private void checkStrings() throws IOException {
+        long stringsPosition = activityRowsPosition + (long) activityCount * ACTIVITY_ROW_BYTES;
+        for (int id = 0; id < stringCount; id++) {
+            long offset = file.getLong(stringOffsetsPosition + 8L * id);
+            if (offset < stringsPosition || offset > stringOffsetsPosition - 4) {
+                throw new IOException("string " + id + " has a corrupt offset " + offset);
+            }
+            int length = file.getInt(offset);
+            if (length < 0 || length > stringOffsetsPosition - offset - 4) {
+                throw new IOException("string " + id + " has a corrupt length " + length);
+            }
+        }
+    }
+
+    private void checkActivityRows() throws IOException {
+        long position = activityRowsPosition;
+        for (int a = 0; a < activityCount; a++) {
+            int name = file.getInt(position);
+            if (name < 0 || name >= stringCount) {
+                throw new IOException("activity " + a + " refers to unknown string " + name);
+            }
+            byte category = file.getByte(position + 16);
+            if (category < 0 || category >= categoryCount) {
+                throw new IOException("activity " + a + " has unknown category " + category);
+            }
+            position += ACTIVITY_ROW_BYTES;
+        }
+    }
+
+    public double getTotalBudget() {
+        return file.getDouble(30);
+    }
+
+    public double getTotalActivitiesCost() {
+        return file.getDouble(38);
+    }
+
+    public double[] getTripCategoryCosts() {
+        double[] costs = new double[ActivityCategory.values().length];
+        for (int c = 0; c < categoryCount; c++) {
+            costs[c] = file.getDouble(46 + 8L * c);
+        }
+        return costs;
+    }
+
+    public ArrayList<Destination> readDestinations() throws IOException {
+        ArrayList<Destination> destinations = new ArrayList<>(destinationCount);
+        long position = headerBytes(categoryCount);
+        long nextActivity = 0;
+        for (int d = 0; d < destinationCount; d++) {
+            int firstActivity = file.getInt(position + 28);
+            int count = file.getInt(position + 32);
+            if (firstActivity != nextActivity || count < 0 || (long) firstActivity + count > activityCount) {
+                throw new IOException("destination " + d + " has a corrupt activity range");
+            }
+            nextActivity += count;
+            int name = file.getInt(position);
+            if (name < 0 || name >= stringCount) {
+                throw new IOException("destination " + d + " refers to unknown string " + name);
+            }
+
+            Destination destination = new Destination(string(name), this, firstActivity, count);
+            destination.arrivalDate = LocalDate.ofEpochDay(file.getInt(position + 4));
+            destination.departureDate = LocalDate.ofEpochDay(file.getInt(position + 8));
+            destination.estimatedBudget = file.getDouble(position + 12);
+            destination.activitiesCost = file.getDouble(position + 20);
+            for (int c = 0; c < categoryCount; c++) {
+                destination.categoryCosts[c] = file.getDouble(position + 36 + 8L * c);
+            }
+            destinations.add(destination);
+            position += destinationRowBytes(categoryCount);
+        }
+        if (nextActivity != activityCount) {
+            throw new IOException("activity rows do not add up to " + activityCount);
+        }
+        return destinations;
+    }
+
+    // Appends the rows without touching the destination's rollups, which
+    // already cover them.
+    public void readActivities(Destination destination, int first, int count, List<Activity> into) {
+        ActivityCategory[] categories = ActivityCategory.values();
+        long position = activityRowsPosition + (long) first * ACTIVITY_ROW_BYTES;
+        for (int a = 0; a < count; a++) {
+            Activity activity = new Activity(string(file.getInt(position)), 
+                LocalDate.ofEpochDay(file.getInt(position + 4)), file.getDouble(position + 8), 
+                categories[file.getByte(position + 16)]);
+            activity.destination = destination;
+            into.add(activity);
+            position += ACTIVITY_ROW_BYTES;
+        }
+    }
+
+    private String string(int id) {
+        if (id < 0 || id >= stringCount) {
+            throw new IndexOutOfBoundsException("unknown string " + id);
+        }
+        return file.getString(file.getLong(stringOffsetsPosition + 8L * id));
+    }
+}
+
+// An itinerary file mapped read-only. The activity rows of a long archive
+// can pass the 2 GiB a single mapping allows, so the file is mapped in 1 GiB
+// regions that overlap by eight bytes: no fixed-width row field is split
+// between two regions. Dictionary strings can be longer and are copied
+// piecewise. The regions outlive the channel, which is what lets stays read
+// their activities after loadItinerary has returned.
+class ItineraryMapping {
+    private static final int REGION_SHIFT = 30;
+    private static final long REGION_SIZE = 1L << REGION_SHIFT;
+    private static final int REGION_OVERLAP = 8;
+
+    private MappedByteBuffer[] regions;
+    private long size;
+
+    public ItineraryMapping(FileChannel channel) throws IOException {
+        size = channel.size();
+        regions = new MappedByteBuffer[(int) ((size + REGION_SIZE - 1) >>> REGION_SHIFT)];
+        for (int i = 0; i < regions.length; i++) {
+            long start = (long) i << REGION_SHIFT;
+            regions[i] = channel.map(FileChannel.MapMode.READ_ONLY, start, 
+                Math.min(REGION_SIZE + REGION_OVERLAP, size - start));
+        }
+    }
+
+    public long size() {
+        return size;
+    }
+
+    public byte getByte(long position) {
+        return region(position).get(offset(position));
+    }
+
+    public short getShort(long position) {
+        return region(position).getShort(offset(position));
+    }
+
+    public int getInt(long position) {
+        return region(position).getInt(offset(position));
+    }
+
+    public long getLong(long position) {
+        return region(position).getLong(offset(position));
+    }
+
+    public double getDouble(long position) {
+        return region(position).getDouble(offset(position));
+    }
+
+    // A dictionary entry: length-prefixed UTF-8, possibly across two regions.
+    public String getString(long position) {
+        int length = getInt(position);
+        if (length < 0 || length > size - position - 4) {
+            throw new IndexOutOfBoundsException("corrupt string at " + position);
+        }
+        byte[] bytes = new byte[length];
+        int copied = 0;
+        while (copied < length) {
+            long at = position + 4 + copied;
+            int chunk = (int) Math.min(length - copied, REGION_SIZE - offset(at));
+            region(at).get(offset(at), bytes, copied, chunk);
+            copied += chunk;
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private MappedByteBuffer region(long position) {
+        return regions[(int) (position >>> REGION_SHIFT)];
+    }
+
+    private static int offset(long position) {
+        return (int) (position & (REGION_SIZE - 1));
+    }
+}
+
+// Interval tree over stays: an AVL tree ordered by arrival (then insertion
+// order), where every node also keeps the latest departure in its subtree.
+// A query skips any subtree whose stays all end by the start of the range,
+// so it costs O(log n + matches) however long the longest stay is.
+class DestinationIntervalTree {
+    private static class Node {
+        final Destination destination;
+        final long arrival;
+        final long departure;
+        final long sequence;
+        long maxDeparture;
+        int height = 1;
+        Node left;
+        Node right;
+
+        Node(Destination destination, long sequence) {
+            this.destination = destination;
+            this.arrival = destination.arrivalDate.toEpochDay();
+            this.departure = destination.departureDate.toEpochDay();
+            this.sequence = sequence;
+            this.maxDeparture = departure;
+        }
+    }
+
+    private Node root;
+    private long nextSequence;
+
+    public void add(Destination destination) {
+        root = insert(root, new Node(destination, nextSequence++));
+    }
+
+    // Stays are half-open, so a stay overlaps [from, to) when it arrives
+    // before to and departs after from. Results come in arrival order.
+    public void collectOverlapping(long from, long to, List<Destination> result) {
+        collect(root, from, to, result);
+    }
+
+    private static void collect(Node node, long from, long to, List<Destination> result) {
+        if (node == null || node.maxDeparture <= from) return;
+        collect(node.left, from, to, result);
+        if (node.arrival >= to) return;
+        if (node.departure > from) result.add(node.destination);
+        collect(node.right, from, to, result);
+    }
+
+    private static Node insert(Node node, Node added) {
+        if (node == null) return added;
+        if (added.arrival < node.arrival || (added.arrival == node.arrival && added.sequence < node.sequence)) {
+            node.left = insert(node.left, added);
+        } else {
+            node.right = insert(node.right, added);
+        }
+        return rebalance(node);
+    }
+
+    private static Node rebalance(Node node) {
+        update(node);
+        int balance = height(node.left) - height(node.right);
+        if (balance > 1) {
+            if (height(node.left.left) < height(node.left.right)) node.left = rotateLeft(node.left);
+            return rotateRight(node);
+        }
+        if (balance < -1) {
+            if (height(node.right.right) < height(node.right.left)) node.right = rotateRight(node.right);
+            return rotateLeft(node);
+        }
+        return node;
+    }
+
+    private static Node rotateRight(Node node) {
+        Node top = node.left;
+        node.left = top.right;
+        top.right = node;
+        update(node);
+        update(top);
+        return top;
+    }
+
+    private static Node rotateLeft(Node node) {
+        Node top = node.right;
+        node.right = top.left;
+        top.left = node;
+        update(node);
+        update(top);
+        return top;
+    }
+
+    private static void update(Node node) {
+        node.height = 1 + Math.max(height(node.left), height(node.right));
+        node.maxDeparture = node.departure;
+        if (node.left != null) node.maxDeparture = Math.max(node.maxDeparture, node.left.maxDeparture);
+        if (node.right != null) node.maxDeparture = Math.max(node.maxDeparture, node.right.maxDeparture);
+    }
+
+    private static int height(Node node) {
+        return node == null ? 0 : node.height;
+    }
+}
+
+class ItineraryIndex {
+    // Activities by date, and per category by cost, so range queries only touch matching entries.
+    private final TreeMap<LocalDate, ArrayList<Activity>> activitiesByDate = new TreeMap<>();
+    private final EnumMap<ActivityCategory, TreeMap<Double, ArrayList<Activity>>> activitiesByCategoryCost =
+        new EnumMap<>(ActivityCategory.class);
+    // Stays are half-open [arrival, departure): leaving and arriving on the same day is no conflict.
+    private final TreeMap<LocalDate, ArrayList<Destination>> destinationsByArrival = new TreeMap<>();
+    private final DestinationIntervalTree stays = new DestinationIntervalTree();
+
+    public void addDestination(Destination destination) {
+        destinationsByArrival.computeIfAbsent(destination.arrivalDate, date -> new ArrayList<>()).add(destination);
+        stays.add(destination);
+    }
+
+    public void addActivity(Activity activity) {
+        activitiesByDate.computeIfAbsent(activity.date, date -> new ArrayList<>()).add(activity);
+        activitiesByCategoryCost.computeIfAbsent(activity.category, category -> new TreeMap<>())
+            .computeIfAbsent(activity.estimatedCost, cost -> new ArrayList<>()).add(activity);
+    }
+
+    public void removeActivity(Activity activity) {
+        removeFrom(activitiesByDate, activity.date, activity);
+        TreeMap<Double, ArrayList<Activity>> byCost = activitiesByCategoryCost.get(activity.category);
+        if (byCost != null) {
+            removeFrom(byCost, activity.estimatedCost, activity);
+        }
+    }
+
+    private static <K> void removeFrom(TreeMap<K, ArrayList<Activity>> map, K key, Activity activity) {
+        ArrayList<Activity> bucket = map.get(key);
+        if (bucket != null && bucket.remove(activity) && bucket.isEmpty()) {
+            map.remove(key);
+        }
+    }
+
+    public List<Activity> activitiesBetween(LocalDate from, LocalDate to) {
+        ArrayList<Activity> result = new ArrayList<>();
+        if (from.isAfter(to)) return result;
+        for (ArrayList<Activity> day : activitiesByDate.subMap(from, true, to, true).values()) {
+            result.addAll(day);
+        }
+        return result;
+    }
+
+    public List<Activity> activitiesInCategory(ActivityCategory category, double minCost, double maxCost) {
+        ArrayList<Activity> result = new ArrayList<>();
+        TreeMap<Double, ArrayList<Activity>> byCost = activitiesByCategoryCost.get(category);
+        if (byCost == null || minCost > maxCost) return result;
+        for (ArrayList<Activity> sameCost : byCost.subMap(minCost, true, maxCost, true).values()) {
+            result.addAll(sameCost);
+        }
+        return result;
+    }
+
+    // One long stay no longer widens every query: the interval tree skips
+    // whole subtrees that end before from.
+    public List<Destination> destinationsOverlapping(LocalDate from, LocalDate to) {
+        ArrayList<Destination> result = new ArrayList<>();
+        if (!from.isBefore(to)) return result;
+        stays.collectOverlapping(from.toEpochDay(), to.toEpochDay(), result);
+        return result;
+    }
+
+    // Sweep in arrival order; each stay is compared only with stays that start before it ends.
+    public List<Destination[]> overlappingStays() {
+        ArrayList<Destination> ordered = new ArrayList<>();
+        for (ArrayList<Destination> sameDay : destinationsByArrival.values()) {
+            ordered.addAll(sameDay);
+        }
+
+        ArrayList<Destination[]> conflicts = new ArrayList<>();
+        for (int i = 0; i < ordered.size(); i++) {
+            Destination first = ordered.get(i);
+            for (int j = i + 1; j < ordered.size(); j++) {
+                Destination second = ordered.get(j);
+                if (!second.arrivalDate.isBefore(first.departureDate)) break;
+                conflicts.add(new Destination[] { first, second });
+            }
+        }
+        return conflicts;
+    }
+}
+
 class TravelItineraryPlanner {
+    // Itinerary file: magic, version, counts, the trip rollups, fixed-width
+    // destination rows (with their rollups and activity row range) and
+    // activity rows, then the string dictionary and its offset column.
+    // Dates are stored as epoch days. Version 1 files are still readable.
+    private static final int FILE_MAGIC = 0x54495042; // "TIPB"
+    private static final short FILE_VERSION = 2;
+    private static final int HEADER_V1_BYTES = 4 + 2 + 4 + 4 + 4;
+    private static final int DESTINATION_ROW_V1_BYTES = 4 + 4 + 4 + 8;
+    private static final int ACTIVITY_ROW_V1_BYTES = 4 + 4 + 4 + 8 + 1;
+    private static final long ROUTE_SEARCH_MILLIS = 500;
+
     private ArrayList<Destination> destinations;
     private Scanner scanner;
+    private WeatherProvider weatherProvider;
+    private TravelCostProvider travelCosts;
     private double totalBudget;
+    // Trip-wide rollups, updated as each activity is added.
+    private double totalActivitiesCost;
+    private double[] tripCategoryCosts;
+    private TreeMap<LocalDate, double[]> dailyCosts;
+    private ItineraryIndex index;
+    // Loaded destinations whose archived activities are not yet in the
+    // index or the daily costs; see ensureActivitiesIndexed.
+    private ArrayList<Destination> unindexedDestinations;
 
     public TravelItineraryPlanner() {
         destinations = new ArrayList<>();
         scanner = new Scanner(System.in);
+        weatherProvider = new CachingWeatherProvider(new SimulatedWeatherService(150), 
+            1024, TimeUnit.MINUTES.toMillis(30));
+        travelCosts = new SimulatedTravelCosts();
         totalBudget = 0;
+        totalActivitiesCost = 0;
+        tripCategoryCosts = new double[ActivityCategory.values().length];
+        dailyCosts = new TreeMap<>();
+        index = new ItineraryIndex();
+        unindexedDestinations = new ArrayList<>();
     }
 
     public void addDestination() {
@@ -79,11 +1094,21 @@ class TravelItineraryPlanner {
         destination.estimatedBudget = estimatedBudget;
         totalBudget += estimatedBudget;
 
-        destination.weatherForecast = generateMockWeatherForecast();
+        for (Destination other : index.destinationsOverlapping(arrivalDate, departureDate)) {
+            System.out.printf("Warning: %s overlaps your stay in %s (%s to %s)\n", 
+                name, other.name, other.arrivalDate, other.departureDate);
+        }
 
-        addActivities(destination);
+        try {
+            destination.weatherForecast = weatherProvider.getForecast(name, arrivalDate).join();
+        } catch (CompletionException e) {
+            System.out.println("Weather forecast unavailable: " + e.getCause().getMessage());
+        }
 
         destinations.add(destination);
+        index.addDestination(destination);
+
+        addActivities(destination);
     }
 
     private void addActivities(Destination destination) {
@@ -103,21 +1128,70 @@ class TravelItineraryPlanner {
             double activityCost = scanner.nextDouble();
             scanner.nextLine();
 
-            System.out.print("Activity category (Sightseeing/Food/Accommodation/Transport): ");
-            String category = scanner.nextLine();
+            ActivityCategory category = readCategory();
 
             Activity activity = new Activity(activityName, activityDate, activityCost, category);
-            destination.addActivity(activity);
+            recordActivity(destination, activity);
+
+            if (destination.activitiesCost > destination.estimatedBudget) {
+                System.out.printf("Warning: activities in %s now exceed its budget by $%.2f\n", 
+                    destination.name, destination.activitiesCost - destination.estimatedBudget);
+            }
+        }
+    }
+
+    private ActivityCategory readCategory() {
+        while (true) {
+            System.out.print("Activity category (" + ActivityCategory.choices() + "): ");
+            ActivityCategory category = ActivityCategory.fromInput(scanner.nextLine());
+            if (category != null) {
+                return category;
+            }
+            System.out.println("Unknown category. Please choose one of the listed categories.");
         }
     }
 
-    private WeatherForecast generateMockWeatherForecast() {
-        String[] conditions = {"Sunny", "Cloudy", "Rainy", "Partly Cloudy"};
-        String condition = conditions[(int)(Math.random() * conditions.length)];
-        double temperature = 15 + Math.random() * 20;
-        double precipitation = Math.random() * 100;
+    private void recordActivity(Destination destination, Activity activity) {
+        destination.addActivity(activity);
+        index.addActivity(activity);
+        totalActivitiesCost += activity.estimatedCost;
+        tripCategoryCosts[activity.category.ordinal()] += activity.estimatedCost;
+        dailyCosts.computeIfAbsent(activity.date, date -> new double[1])[0] += activity.estimatedCost;
+    }
 
-        return new WeatherForecast(condition, temperature, precipitation);
+    // Activities added since the load are indexed as they come in; the ones
+    // still in the file are read and indexed the first time a view needs
+    // the whole trip.
+    private void ensureActivitiesIndexed() {
+        for (Destination destination : unindexedDestinations) {
+            List<Activity> activities = destination.activities();
+            for (int i = 0; i < destination.archivedActivityCount; i++) {
+                Activity activity = activities.get(i);
+                index.addActivity(activity);
+                dailyCosts.computeIfAbsent(activity.date, date -> new double[1])[0] += activity.estimatedCost;
+            }
+        }
+        unindexedDestinations.clear();
+    }
+
+    // One batched request for every stop; cached forecasts cost nothing.
+    private void refreshWeatherForecasts() {
+        ArrayList<ForecastKey> keys = new ArrayList<>();
+        for (Destination destination : destinations) {
+            keys.add(new ForecastKey(destination.name, destination.arrivalDate));
+        }
+
+        // A failed refresh keeps the forecasts fetched earlier.
+        Map<ForecastKey, WeatherForecast> forecasts;
+        try {
+            forecasts = weatherProvider.getForecasts(keys).join();
+        } catch (CompletionException e) {
+            System.out.println("Weather forecasts unavailable: " + e.getCause().getMessage());
+            return;
+        }
+        for (int i = 0; i < destinations.size(); i++) {
+            destinations.get(i).weatherForecast = forecasts.get(keys.get(i));
+        }
     }
 
     public void displayItinerary() {
@@ -126,42 +1200,534 @@ class TravelItineraryPlanner {
             return;
         }
 
-        System.out.println("\n=== COMPREHENSIVE TRAVEL ITINERARY ===");
+        refreshWeatherForecasts();
+        ensureActivitiesIndexed();
+
+        PrintWriter out = openReportWriter();
+        out.println("\n=== COMPREHENSIVE TRAVEL ITINERARY ===");
         
         for (Destination dest : destinations) {
-            System.out.println("\nDestination: " + dest.name);
-            System.out.println("Arrival: " + dest.arrivalDate);
-            System.out.println("Departure: " + dest.departureDate);
-            System.out.println("Trip Duration: " + 
+            out.println("\nDestination: " + dest.name);
+            out.println("Arrival: " + dest.arrivalDate);
+            out.println("Departure: " + dest.departureDate);
+            out.println("Trip Duration: " + 
                 ChronoUnit.DAYS.between(dest.arrivalDate, dest.departureDate) + " days");
             
-            System.out.println("\nWeather Forecast:");
-            System.out.printf("Condition: %s\n", dest.weatherForecast.condition);
-            System.out.printf("Temperature: %.1f°C\n", dest.weatherForecast.temperature);
-            System.out.printf("Precipitation: %.1f%%\n", dest.weatherForecast.precipitation);
-
-            System.out.println("\nActivities:");
-            double destTotalCost = 0;
-            HashMap<String, Double> categoryCosts = new HashMap<>();
-
-            for (Activity activity : dest.activities) {
-                System.out.printf("- %s on %s: $%.2f (Category: %s)\n", 
-                    activity.name, activity.date, activity.estimatedCost, activity.category);
-                
-                destTotalCost += activity.estimatedCost;
-                categoryCosts.put(activity.category, 
-                    categoryCosts.getOrDefault(activity.category, 0.0) + activity.estimatedCost);
-            }
-
-            System.out.printf("\nDestination Budget: $%.2f\n", dest.estimatedBudget);
-            System.out.printf("Total Activities Cost: $%.2f\n", destTotalCost);
+            out.println("\nWeather Forecast:");
+            if (dest.weatherForecast == null) {
+                out.println("Unavailable");
+            } else {
+                out.printf("Condition: %s\n", dest.weatherForecast.condition);
+                out.printf("Temperature: %.1f°C\n", dest.weatherForecast.temperature);
+                out.printf("Precipitation: %.1f%%\n", dest.weatherForecast.precipitation);
+            }
+
+            out.println("\nActivities:");
+            for (Activity activity : dest.activities()) {
+                out.printf("- %s on %s: $%.2f (Category: %s)\n", 
+                    activity.name, activity.date, activity.estimatedCost, activity.category.label);
+            }
+
+            out.printf("\nDestination Budget: $%.2f\n", dest.estimatedBudget);
+            out.printf("Total Activities Cost: $%.2f\n", dest.activitiesCost);
             
-            System.out.println("\nCategory Cost Breakdown:");
-            categoryCosts.forEach((category, cost) -> 
-                System.out.printf("%s: $%.2f\n", category, cost));
+            out.println("\nCategory Cost Breakdown:");
+            printCategoryCosts(out, dest.categoryCosts);
+        }
+
+        out.printf("\nTotal Trip Budget: $%.2f\n", totalBudget);
+        out.printf("Total Activities Cost: $%.2f\n", totalActivitiesCost);
+        if (totalActivitiesCost > totalBudget) {
+            out.printf("Over budget by $%.2f\n", totalActivitiesCost - totalBudget);
+        } else {
+            out.printf("Remaining Budget: $%.2f\n", totalBudget - totalActivitiesCost);
+        }
+
+        out.println("\nTrip Category Breakdown:");
+        printCategoryCosts(out, tripCategoryCosts);
+
+        out.println("\nDaily Cost Timeline:");
+        for (Map.Entry<LocalDate, double[]> day : dailyCosts.entrySet()) {
+            out.printf("%s: $%.2f\n", day.getKey(), day.getValue()[0]);
+        }
+        out.flush();
+    }
+
+    public void searchActivities() {
+        System.out.println("1. By date range");
+        System.out.println("2. By category and cost");
+        System.out.print("Choose a search: ");
+        String choice = scanner.nextLine();
+
+        ensureActivitiesIndexed();
+        List<Activity> matches;
+        if (choice.equals("1")) {
+            System.out.print("From date (YYYY-MM-DD): ");
+            LocalDate from = LocalDate.parse(scanner.nextLine());
+            System.out.print("To date (YYYY-MM-DD): ");
+            LocalDate to = LocalDate.parse(scanner.nextLine());
+            matches = index.activitiesBetween(from, to);
+        } else if (choice.equals("2")) {
+            ActivityCategory category = readCategory();
+            System.out.print("Minimum cost: $");
+            double minCost = scanner.nextDouble();
+            scanner.nextLine();
+            matches = index.activitiesInCategory(category, minCost, Double.MAX_VALUE);
+        } else {
+            System.out.println("Invalid search.");
+            return;
         }
 
-        System.out.printf("\nTotal Trip Budget: $%.2f\n", totalBudget);
+        PrintWriter out = openReportWriter();
+        out.printf("\n%d matching activities:\n", matches.size());
+        for (Activity activity : matches) {
+            out.printf("- %s in %s on %s: $%.2f (Category: %s)\n", activity.name, 
+                activity.destination.name, activity.date, activity.estimatedCost, activity.category.label);
+        }
+        out.flush();
+    }
+
+    public void checkOverlappingStays() {
+        List<Destination[]> conflicts = index.overlappingStays();
+        if (conflicts.isEmpty()) {
+            System.out.println("No overlapping destinations.");
+            return;
+        }
+
+        System.out.println("\nOverlapping destinations:");
+        for (Destination[] pair : conflicts) {
+            System.out.printf("- %s (%s to %s) and %s (%s to %s)\n", 
+                pair[0].name, pair[0].arrivalDate, pair[0].departureDate, 
+                pair[1].name, pair[1].arrivalDate, pair[1].departureDate);
+        }
+    }
+
+    // Proposes the visiting order with the cheapest travel, with the stays
+    // chained back to back from the first arrival so no days are left idle;
+    // each stay keeps its length and its activities move with it. Once the
+    // route is settled, stray activities are pulled back inside their stay.
+    public void optimizeItinerary() {
+        if (destinations.isEmpty()) {
+            System.out.println("No destinations added yet.");
+            return;
+        }
+
+        destinations.sort(Comparator.comparing((Destination d) -> d.arrivalDate)
+            .thenComparing(d -> d.departureDate));
+        ensureActivitiesIndexed();
+        proposeRoute();
+
+        PrintWriter out = openReportWriter();
+        out.println("\n=== ITINERARY CHECK ===");
+
+        int rescheduled = 0;
+        for (Destination destination : destinations) {
+            // Stays are half-open: the departure day belongs to the next stop,
+            // so the last day for activities is the day before it, or the
+            // arrival day itself for a stay with no nights.
+            LocalDate lastDay = destination.departureDate.isAfter(destination.arrivalDate) 
+                ? destination.departureDate.minusDays(1) : destination.arrivalDate;
+            for (Activity activity : destination.activities()) {
+                LocalDate date = activity.date;
+                if (date.isBefore(destination.arrivalDate)) {
+                    date = destination.arrivalDate;
+                } else if (date.isAfter(lastDay)) {
+                    date = lastDay;
+                }
+                if (!date.equals(activity.date)) {
+                    out.printf("Moved %s in %s from %s to %s\n", 
+                        activity.name, destination.name, activity.date, date);
+                    rescheduleActivity(activity, date);
+                    rescheduled++;
+                }
+            }
+        }
+
+        long idleDays = 0;
+        for (int i = 1; i < destinations.size(); i++) {
+            Destination previous = destinations.get(i - 1);
+            Destination next = destinations.get(i);
+            long gap = ChronoUnit.DAYS.between(previous.departureDate, next.arrivalDate);
+            if (gap > 0) {
+                out.printf("Idle: %d days between %s and %s\n", gap, previous.name, next.name);
+                idleDays += gap;
+            }
+        }
+
+        for (Destination[] pair : index.overlappingStays()) {
+            out.printf("Conflict: %s and %s overlap\n", pair[0].name, pair[1].name);
+        }
+        for (Destination destination : destinations) {
+            if (destination.activitiesCost > destination.estimatedBudget) {
+                out.printf("Over budget: %s by $%.2f\n", 
+                    destination.name, destination.activitiesCost - destination.estimatedBudget);
+            }
+        }
+
+        out.println("\nRoute:");
+        for (Destination destination : destinations) {
+            out.printf("%s: %s to %s\n", destination.name, destination.arrivalDate, destination.departureDate);
+        }
+        out.printf("\nActivities rescheduled: %d\n", rescheduled);
+        out.printf("Total idle days: %d\n", idleDays);
+        out.printf("Travel cost: $%.2f\n", travelCost(destinations));
+        out.flush();
+    }
+
+    private void proposeRoute() {
+        if (destinations.size() < 2) return;
+        ArrayList<String> places = new ArrayList<>();
+        for (Destination destination : destinations) {
+            places.add(destination.name);
+        }
+        RouteOptimizer optimizer = new RouteOptimizer(RouteOptimizer.costMatrix(places, travelCosts));
+        if (destinations.size() > RouteOptimizer.EXACT_STOPS) {
+            System.out.printf("Searching routes for up to %d ms...\n", ROUTE_SEARCH_MILLIS);
+        }
+        int[] order = optimizer.optimize(ROUTE_SEARCH_MILLIS, (route, cost, elapsedMillis) ->
+            System.out.printf("  %4d ms: travel cost $%.2f\n", elapsedMillis, cost));
+        // A route that only ties the current one is not worth a reshuffle.
+        int[] current = new int[order.length];
+        for (int i = 0; i < current.length; i++) {
+            current[i] = i;
+        }
+        if (optimizer.routeCost(order) > optimizer.routeCost(current) - 0.005) {
+            order = current;
+        }
+
+        ArrayList<Destination> route = new ArrayList<>();
+        for (int stop : order) {
+            route.add(destinations.get(stop));
+        }
+        LocalDate[] arrivals = chainedArrivals(route);
+        boolean changed = false;
+        for (int i = 0; i < route.size(); i++) {
+            changed |= !arrivals[i].equals(route.get(i).arrivalDate);
+        }
+        if (!changed) {
+            System.out.println("Your route already has the cheapest travel and no idle days.");
+            return;
+        }
+
+        System.out.println("\nSuggested route:");
+        for (int i = 0; i < route.size(); i++) {
+            Destination destination = route.get(i);
+            long nights = ChronoUnit.DAYS.between(destination.arrivalDate, destination.departureDate);
+            System.out.printf("%s: %s to %s\n", destination.name, arrivals[i], arrivals[i].plusDays(nights));
+        }
+        System.out.printf("Travel cost: $%.2f (now $%.2f)\n", travelCost(route), travelCost(destinations));
+        System.out.print("Apply this route? (y/n): ");
+        if (scanner.nextLine().trim().equalsIgnoreCase("y")) {
+            applyRoute(route, arrivals);
+        }
+    }
+
+    // Stays follow each other from the earliest arrival, each keeping its nights.
+    private static LocalDate[] chainedArrivals(List<Destination> route) {
+        LocalDate day = route.get(0).arrivalDate;
+        for (Destination destination : route) {
+            if (destination.arrivalDate.isBefore(day)) day = destination.arrivalDate;
+        }
+        LocalDate[] arrivals = new LocalDate[route.size()];
+        for (int i = 0; i < arrivals.length; i++) {
+            Destination destination = route.get(i);
+            arrivals[i] = day;
+            day = day.plusDays(ChronoUnit.DAYS.between(destination.arrivalDate, destination.departureDate));
+        }
+        return arrivals;
+    }
+
+    // Stays change dates, which neither the interval tree nor the date index
+    // can follow in place, so both are rebuilt along with the daily costs.
+    private void applyRoute(List<Destination> route, LocalDate[] arrivals) {
+        ItineraryIndex rebuilt = new ItineraryIndex();
+        TreeMap<LocalDate, double[]> rebuiltDailyCosts = new TreeMap<>();
+        for (int i = 0; i < route.size(); i++) {
+            Destination destination = route.get(i);
+            long shift = ChronoUnit.DAYS.between(destination.arrivalDate, arrivals[i]);
+            destination.arrivalDate = arrivals[i];
+            destination.departureDate = destination.departureDate.plusDays(shift);
+            rebuilt.addDestination(destination);
+            for (Activity activity : destination.activities()) {
+                activity.date = activity.date.plusDays(shift);
+                rebuilt.addActivity(activity);
+                rebuiltDailyCosts.computeIfAbsent(activity.date, date -> new double[1])[0] += activity.estimatedCost;
+            }
+        }
+        destinations = new ArrayList<>(route);
+        index = rebuilt;
+        dailyCosts = rebuiltDailyCosts;
+    }
+
+    private double travelCost(List<Destination> route) {
+        double total = 0;
+        for (int i = 1; i < route.size(); i++) {
+            total += travelCosts.travelCost(route.get(i - 1).name, route.get(i).name);
+        }
+        return total;
+    }
+
+    private void rescheduleActivity(Activity activity, LocalDate date) {
+        index.removeActivity(activity);
+        if (index.activitiesBetween(activity.date, activity.date).isEmpty()) {
+            dailyCosts.remove(activity.date);
+        } else {
+            dailyCosts.get(activity.date)[0] -= activity.estimatedCost;
+        }
+
+        activity.date = date;
+        index.addActivity(activity);
+        dailyCosts.computeIfAbsent(date, d -> new double[1])[0] += activity.estimatedCost;
+    }
+
+    // Streamed through one small buffer into a temporary file that then
+    // replaces the target, so an itinerary still mapped from that file keeps
+    // reading the old contents.
+    public void saveItinerary(String fileName) {
+        ArrayList<String> dictionary = new ArrayList<>();
+        HashMap<String, Integer> stringIds = new HashMap<>();
+        int activityCount = 0;
+        for (Destination destination : destinations) {
+            stringIds.computeIfAbsent(destination.name, name -> { dictionary.add(name); return dictionary.size() - 1; });
+            for (Activity activity : destination.activities()) {
+                stringIds.computeIfAbsent(activity.name, name -> { dictionary.add(name); return dictionary.size() - 1; });
+                activityCount++;
+            }
+        }
+
+        Path path = Paths.get(fileName).toAbsolutePath();
+        Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        int categoryCount = ActivityCategory.values().length;
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 16);
+            long written = ItineraryArchive.headerBytes(categoryCount);
+            channel.position(written);
+
+            int firstActivity = 0;
+            for (Destination destination : destinations) {
+                reserve(channel, buffer, ItineraryArchive.destinationRowBytes(categoryCount));
+                buffer.putInt(stringIds.get(destination.name))
+                    .putInt((int) destination.arrivalDate.toEpochDay())
+                    .putInt((int) destination.departureDate.toEpochDay())
+                    .putDouble(destination.estimatedBudget)
+                    .putDouble(destination.activitiesCost)
+                    .putInt(firstActivity)
+                    .putInt(destination.activities().size());
+                for (double cost : destination.categoryCosts) {
+                    buffer.putDouble(cost);
+                }
+                firstActivity += destination.activities().size();
+            }
+            for (Destination destination : destinations) {
+                for (Activity activity : destination.activities()) {
+                    reserve(channel, buffer, ItineraryArchive.ACTIVITY_ROW_BYTES);
+                    buffer.putInt(stringIds.get(activity.name))
+                        .putInt((int) activity.date.toEpochDay())
+                        .putDouble(activity.estimatedCost)
+                        .put((byte) activity.category.ordinal());
+                }
+            }
+            written += (long) destinations.size() * ItineraryArchive.destinationRowBytes(categoryCount) 
+                + (long) activityCount * ItineraryArchive.ACTIVITY_ROW_BYTES;
+
+            long[] stringOffsets = new long[dictionary.size()];
+            for (int i = 0; i < stringOffsets.length; i++) {
+                byte[] string = dictionary.get(i).getBytes(StandardCharsets.UTF_8);
+                stringOffsets[i] = written;
+                written += 4 + string.length;
+                reserve(channel, buffer, 4);
+                buffer.putInt(string.length);
+                for (int offset = 0; offset < string.length; ) {
+                    reserve(channel, buffer, 1);
+                    int length = Math.min(buffer.remaining(), string.length - offset);
+                    buffer.put(string, offset, length);
+                    offset += length;
+                }
+            }
+            long stringOffsetsPosition = written;
+            for (long offset : stringOffsets) {
+                reserve(channel, buffer, 8);
+                buffer.putLong(offset);
+            }
+            writeFully(channel, buffer);
+
+            buffer.putInt(FILE_MAGIC).putShort(FILE_VERSION)
+                .putInt(dictionary.size()).putInt(destinations.size()).putInt(activityCount)
+                .putLong(stringOffsetsPosition).putInt(categoryCount)
+                .putDouble(totalBudget).putDouble(totalActivitiesCost);
+            for (double cost : tripCategoryCosts) {
+                buffer.putDouble(cost);
+            }
+            channel.position(0);
+            writeFully(channel, buffer);
+            channel.force(true);
+        } catch (IOException e) {
+            System.out.println("Could not save " + fileName + ": " + e.getMessage());
+            return;
+        }
+
+        try {
+            Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            System.out.printf("Saved %d destinations and %d activities to %s\n", 
+                destinations.size(), activityCount, fileName);
+        } catch (IOException e) {
+            System.out.println("Could not save " + fileName + ": " + e.getMessage());
+        }
+    }
+
+    private static void reserve(FileChannel channel, ByteBuffer buffer, int bytes) throws IOException {
+        if (buffer.remaining() < bytes) {
+            writeFully(channel, buffer);
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    // Replaces the current itinerary once the whole file has been checked.
+    // Destinations and the trip rollups are read up front; activities stay
+    // in the mapping until a destination's list, a search or a report needs
+    // them.
+    public void loadItinerary(String fileName) {
+        try (FileChannel channel = FileChannel.open(Paths.get(fileName), StandardOpenOption.READ)) {
+            ItineraryMapping file = new ItineraryMapping(channel);
+            if (file.size() < HEADER_V1_BYTES || file.getInt(0) != FILE_MAGIC) {
+                throw new IOException("not an itinerary file");
+            }
+            short version = file.getShort(4);
+            if (version == 1) {
+                loadItineraryV1(file);
+            } else if (version == FILE_VERSION) {
+                ItineraryArchive archive = new ItineraryArchive(file);
+                ArrayList<Destination> loaded = archive.readDestinations();
+                ItineraryIndex loadedIndex = new ItineraryIndex();
+                ArrayList<Destination> unindexed = new ArrayList<>();
+                for (Destination destination : loaded) {
+                    loadedIndex.addDestination(destination);
+                    if (destination.archivedActivityCount > 0) {
+                        unindexed.add(destination);
+                    }
+                }
+
+                destinations = loaded;
+                index = loadedIndex;
+                unindexedDestinations = unindexed;
+                totalBudget = archive.getTotalBudget();
+                totalActivitiesCost = archive.getTotalActivitiesCost();
+                tripCategoryCosts = archive.getTripCategoryCosts();
+                dailyCosts = new TreeMap<>();
+            } else {
+                throw new IOException("unsupported itinerary version " + version);
+            }
+
+            int activityCount = 0;
+            for (Destination destination : destinations) {
+                activityCount += destination.archivedActivityCount;
+            }
+            System.out.printf("Loaded %d destinations and %d activities from %s\n", 
+                destinations.size(), activityCount, fileName);
+        } catch (IOException | RuntimeException e) {
+            System.out.println("Could not load " + fileName + ": " + e.getMessage());
+        }
+    }
+
+    // Version 1 stored no rollups, so the whole file is decoded and the
+    // rollups and indexes are rebuilt before anything is replaced.
+    private void loadItineraryV1(ItineraryMapping file) throws IOException {
+        int stringCount = file.getInt(6);
+        int destinationCount = file.getInt(10);
+        int activityCount = file.getInt(14);
+        if (stringCount < 0 || destinationCount < 0 || activityCount < 0) {
+            throw new IOException("corrupt itinerary header");
+        }
+        long position = HEADER_V1_BYTES;
+        String[] dictionary = new String[stringCount];
+        for (int i = 0; i < stringCount; i++) {
+            if (position > file.size() - 4) {
+                throw new IOException("itinerary file is truncated");
+            }
+            dictionary[i] = file.getString(position);
+            position += 4 + file.getInt(position);
+        }
+        if (file.size() < position + (long) destinationCount * DESTINATION_ROW_V1_BYTES 
+                + (long) activityCount * ACTIVITY_ROW_V1_BYTES) {
+            throw new IOException("itinerary file is truncated");
+        }
+
+        ActivityCategory[] categories = ActivityCategory.values();
+        ArrayList<Destination> loaded = new ArrayList<>(destinationCount);
+        ItineraryIndex loadedIndex = new ItineraryIndex();
+        double loadedBudget = 0;
+        for (int d = 0; d < destinationCount; d++) {
+            int name = file.getInt(position);
+            if (name < 0 || name >= stringCount) {
+                throw new IOException("destination " + d + " refers to unknown string " + name);
+            }
+            Destination destination = new Destination(dictionary[name]);
+            destination.arrivalDate = LocalDate.ofEpochDay(file.getInt(position + 4));
+            destination.departureDate = LocalDate.ofEpochDay(file.getInt(position + 8));
+            destination.estimatedBudget = file.getDouble(position + 12);
+            position += DESTINATION_ROW_V1_BYTES;
+            loaded.add(destination);
+            loadedIndex.addDestination(destination);
+            loadedBudget += destination.estimatedBudget;
+        }
+
+        double loadedActivitiesCost = 0;
+        double[] loadedCategoryCosts = new double[categories.length];
+        TreeMap<LocalDate, double[]> loadedDailyCosts = new TreeMap<>();
+        for (int a = 0; a < activityCount; a++) {
+            int stop = file.getInt(position);
+            int name = file.getInt(position + 4);
+            byte category = file.getByte(position + 20);
+            if (stop < 0 || stop >= destinationCount) {
+                throw new IOException("activity " + a + " refers to unknown destination " + stop);
+            }
+            if (name < 0 || name >= stringCount) {
+                throw new IOException("activity " + a + " refers to unknown string " + name);
+            }
+            if (category < 0 || category >= categories.length) {
+                throw new IOException("activity " + a + " has unknown category " + category);
+            }
+            Destination destination = loaded.get(stop);
+            Activity activity = new Activity(dictionary[name], 
+                LocalDate.ofEpochDay(file.getInt(position + 8)), file.getDouble(position + 12), 
+                categories[category]);
+            position += ACTIVITY_ROW_V1_BYTES;
+            destination.addActivity(activity);
+            destination.archivedActivityCount++;
+            loadedIndex.addActivity(activity);
+            loadedActivitiesCost += activity.estimatedCost;
+            loadedCategoryCosts[activity.category.ordinal()] += activity.estimatedCost;
+            loadedDailyCosts.computeIfAbsent(activity.date, date -> new double[1])[0] += activity.estimatedCost;
+        }
+
+        destinations = loaded;
+        index = loadedIndex;
+        unindexedDestinations = new ArrayList<>();
+        totalBudget = loadedBudget;
+        totalActivitiesCost = loadedActivitiesCost;
+        tripCategoryCosts = loadedCategoryCosts;
+        dailyCosts = loadedDailyCosts;
+    }
+
+    private static void printCategoryCosts(PrintWriter out, double[] categoryCosts) {
+        for (ActivityCategory category : ActivityCategory.values()) {
+            if (categoryCosts[category.ordinal()] != 0) {
+                out.printf("%s: $%.2f\n", category.label, categoryCosts[category.ordinal()]);
+            }
+        }
+    }
+
+    // The whole itinerary is buffered and flushed once at the end.
+    private static PrintWriter openReportWriter() {
+        return new PrintWriter(new BufferedWriter(new OutputStreamWriter(System.out), 1 << 16));
     }
 
     public void run() {
@@ -169,7 +1735,12 @@ class TravelItineraryPlanner {
             System.out.println("\n--- Travel Itinerary Planner ---");
             System.out.println("1. Add Destination");
             System.out.println("2. View Itinerary");
-            System.out.println("3. Exit");
+            System.out.println("3. Search Activities");
+            System.out.println("4. Check Overlapping Destinations");
+            System.out.println("5. Optimize Itinerary");
+            System.out.println("6. Save Itinerary");
+            System.out.println("7. Load Itinerary");
+            System.out.println("8. Exit");
             System.out.print("Choose an option: ");
 
             String choice = scanner.nextLine();
@@ -182,6 +1753,23 @@ class TravelItineraryPlanner {
                     displayItinerary();
                     break;
                 case "3":
+                    searchActivities();
+                    break;
+                case "4":
+                    checkOverlappingStays();
+                    break;
+                case "5":
+                    optimizeItinerary();
+                    break;
+                case "6":
+                    System.out.print("File name: ");
+                    saveItinerary(scanner.nextLine());
+                    break;
+                case "7":
+                    System.out.print("File name: ");
+                    loadItinerary(scanner.nextLine());
+                    break;
+                case "8":
                     System.out.println("Exiting Travel Planner...");
                     scanner.close();
                     return;
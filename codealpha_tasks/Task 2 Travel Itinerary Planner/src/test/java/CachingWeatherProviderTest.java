@@ -0,0 +1,109 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+// Callers sharing a fetch must always hear how it ended: a delegate that
+// throws instead of returning a future fails them and is asked again next
+// time, and a fetch still in flight is never evicted from under them.
+class CachingWeatherProviderTest {
+    private static final LocalDate DAY = LocalDate.of(2030, 6, 1);
+
+    @Test
+    void synchronousFailureFailsTheCallAndIsNotCached() throws Exception {
+        ScriptedProvider delegate = new ScriptedProvider();
+        delegate.failNext = true;
+        CachingWeatherProvider cache = new CachingWeatherProvider(delegate, 16, 60_000);
+
+        CompletableFuture<WeatherForecast> failed = cache.getForecast("Paris", DAY);
+        ExecutionException e = assertThrows(ExecutionException.class, () -> failed.get(5, TimeUnit.SECONDS));
+        assertEquals("weather service unreachable", e.getCause().getMessage());
+
+        CompletableFuture<WeatherForecast> retried = cache.getForecast("Paris", DAY);
+        delegate.completeAll();
+        assertEquals("Sunny", retried.get(5, TimeUnit.SECONDS).condition);
+        assertEquals(2, delegate.calls);
+    }
+
+    @Test
+    void inFlightEntriesAreNotEvicted() throws Exception {
+        ScriptedProvider delegate = new ScriptedProvider();
+        CachingWeatherProvider cache = new CachingWeatherProvider(delegate, 1, 60_000);
+
+        CompletableFuture<WeatherForecast> first = cache.getForecast("Paris", DAY);
+        CompletableFuture<WeatherForecast> other = cache.getForecast("Rome", DAY);
+        // Over the limit, but both fetches are still running, so the second
+        // Paris request joins the first one instead of starting another.
+        CompletableFuture<WeatherForecast> second = cache.getForecast("Paris", DAY);
+        assertEquals(2, delegate.calls);
+        assertFalse(first.isDone());
+
+        delegate.completeAll();
+        assertSame(first.get(5, TimeUnit.SECONDS), second.get(5, TimeUnit.SECONDS));
+        assertTrue(other.isDone());
+
+        // Once finished, entries are evicted again to respect the limit.
+        cache.getForecast("Oslo", DAY);
+        delegate.completeAll();
+        cache.getForecast("Paris", DAY);
+        assertEquals(4, delegate.calls);
+    }
+
+    @Test
+    void keysIgnoreTheDefaultLocale() {
+        Locale previous = Locale.getDefault();
+        Locale.setDefault(Locale.forLanguageTag("tr-TR"));
+        try {
+            assertEquals(new ForecastKey("istanbul", DAY), new ForecastKey("ISTANBUL", DAY));
+        } finally {
+            Locale.setDefault(previous);
+        }
+    }
+
+    // Hands out futures the test completes, or throws on the next call.
+    private static class ScriptedProvider implements WeatherProvider {
+        final List<CompletableFuture<Map<ForecastKey, WeatherForecast>>> running = new ArrayList<>();
+        final List<List<ForecastKey>> requested = new ArrayList<>();
+        int calls;
+        boolean failNext;
+
+        @Override
+        public synchronized CompletableFuture<Map<ForecastKey, WeatherForecast>> getForecasts(
+                List<ForecastKey> keys) {
+            calls++;
+            if (failNext) {
+                failNext = false;
+                throw new IllegalStateException("weather service unreachable");
+            }
+            CompletableFuture<Map<ForecastKey, WeatherForecast>> fetch = new CompletableFuture<>();
+            running.add(fetch);
+            requested.add(keys);
+            return fetch;
+        }
+
+        synchronized void completeAll() {
+            for (int i = 0; i < running.size(); i++) {
+                HashMap<ForecastKey, WeatherForecast> forecasts = new HashMap<>();
+                for (ForecastKey key : requested.get(i)) {
+                    forecasts.put(key, new WeatherForecast("Sunny", 20, 0));
+                }
+                running.get(i).complete(forecasts);
+            }
+            running.clear();
+            requested.clear();
+        }
+    }
+}
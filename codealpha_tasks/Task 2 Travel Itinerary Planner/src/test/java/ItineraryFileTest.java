@@ -0,0 +1,278 @@
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+// A saved itinerary must load back into exactly the same report, whether it
+// was written by this version or the first one. Each destination costs one
+// simulated weather call, so the trips stay small.
+class ItineraryFileTest {
+    private static final int FILE_MAGIC = 0x54495042;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void savedItineraryLoadsIntoTheSameReport() throws IOException {
+        List<Stop> trip = trip(3, 1);
+        TravelItineraryPlanner original = plan(trip);
+        Path file = directory.resolve("trip.tip");
+        capture(() -> original.saveItinerary(file.toString()));
+
+        TravelItineraryPlanner loaded = plan(List.of());
+        assertTrue(capture(() -> loaded.loadItinerary(file.toString())).startsWith("Loaded 3 destinations"));
+        assertEquals(report(original), report(loaded));
+
+        // Saving what was loaded, before or after its activities are read,
+        // writes the same bytes.
+        byte[] saved = Files.readAllBytes(file);
+        Path copy = directory.resolve("copy.tip");
+        TravelItineraryPlanner untouched = plan(List.of());
+        capture(() -> untouched.loadItinerary(file.toString()));
+        capture(() -> untouched.saveItinerary(copy.toString()));
+        assertArrayEquals(saved, Files.readAllBytes(copy));
+        capture(() -> loaded.saveItinerary(copy.toString()));
+        assertArrayEquals(saved, Files.readAllBytes(copy));
+    }
+
+    @Test
+    void destinationsAddedAfterLoadAreReportedWithTheLoadedOnes() throws IOException {
+        List<Stop> trip = trip(3, 2);
+        TravelItineraryPlanner expected = plan(trip);
+
+        Path file = directory.resolve("trip.tip");
+        TravelItineraryPlanner writer = plan(trip.subList(0, 2));
+        capture(() -> writer.saveItinerary(file.toString()));
+        TravelItineraryPlanner appender = plan(List.of(), trip.subList(2, 3));
+        capture(() -> appender.loadItinerary(file.toString()));
+        capture(appender::addDestination);
+        assertEquals(report(expected), report(appender));
+
+        capture(() -> appender.saveItinerary(file.toString()));
+        TravelItineraryPlanner reloaded = plan(List.of());
+        capture(() -> reloaded.loadItinerary(file.toString()));
+        assertEquals(report(expected), report(reloaded));
+    }
+
+    @Test
+    void versionOneFilesStillLoad() throws IOException {
+        List<Stop> trip = trip(2, 3);
+        TravelItineraryPlanner expected = plan(trip);
+
+        Path file = directory.resolve("trip-v1.tip");
+        writeVersionOne(trip, file);
+        TravelItineraryPlanner loaded = plan(List.of());
+        assertTrue(capture(() -> loaded.loadItinerary(file.toString())).startsWith("Loaded 2 destinations"));
+        assertEquals(report(expected), report(loaded));
+    }
+
+    @Test
+    void damagedFileLeavesCurrentItineraryUntouched() throws IOException {
+        TravelItineraryPlanner planner = plan(trip(2, 4));
+        Path file = directory.resolve("trip.tip");
+        capture(() -> planner.saveItinerary(file.toString()));
+        String before = report(planner);
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 8);
+        }
+        assertTrue(capture(() -> planner.loadItinerary(file.toString())).startsWith("Could not load"));
+        assertEquals(before, report(planner));
+
+        Files.write(file, "Paris,2030-01-01\n".getBytes(StandardCharsets.UTF_8));
+        assertTrue(capture(() -> planner.loadItinerary(file.toString())).startsWith("Could not load"));
+        assertEquals(before, report(planner));
+    }
+
+    // Activity rows are only read when a report asks for them, so every
+    // reference they hold is checked while the file is opened.
+    @Test
+    void corruptReferencesAreRejected() throws IOException {
+        List<Stop> trip = trip(2, 5);
+        TravelItineraryPlanner planner = plan(trip);
+        Path file = directory.resolve("trip.tip");
+        capture(() -> planner.saveItinerary(file.toString()));
+        byte[] saved = Files.readAllBytes(file);
+        String before = report(planner);
+
+        int categories = ActivityCategory.values().length;
+        int activityRows = ItineraryArchive.headerBytes(categories)
+            + trip.size() * ItineraryArchive.destinationRowBytes(categories);
+        int stringOffsets = (int) ByteBuffer.wrap(saved).getLong(18);
+        List<ByteBuffer> damaged = new ArrayList<>();
+        damaged.add(ByteBuffer.wrap(saved.clone()).put(activityRows + 16, (byte) categories));
+        damaged.add(ByteBuffer.wrap(saved.clone()).put(activityRows + 16, (byte) -1));
+        damaged.add(ByteBuffer.wrap(saved.clone()).putInt(activityRows, 1_000_000));
+        damaged.add(ByteBuffer.wrap(saved.clone()).putInt(ItineraryArchive.headerBytes(categories), -1));
+        damaged.add(ByteBuffer.wrap(saved.clone()).putLong(stringOffsets + 8, -5));
+        damaged.add(ByteBuffer.wrap(saved.clone()).putLong(stringOffsets + 8, stringOffsets - 2));
+        for (int i = 0; i < damaged.size(); i++) {
+            Files.write(file, damaged.get(i).array());
+            assertTrue(capture(() -> planner.loadItinerary(file.toString())).startsWith("Could not load"),
+                "damage " + i);
+            assertEquals(before, report(planner));
+        }
+
+        Path v1 = directory.resolve("trip-v1.tip");
+        writeVersionOne(trip, v1);
+        byte[] original = Files.readAllBytes(v1);
+        byte[] badCategory = original.clone();
+        badCategory[badCategory.length - 1] = (byte) categories;
+        Files.write(v1, badCategory);
+        assertTrue(capture(() -> planner.loadItinerary(v1.toString())).startsWith("Could not load"));
+        assertEquals(before, report(planner));
+    }
+
+    private static final class Stop {
+        String name;
+        LocalDate arrival;
+        LocalDate departure;
+        String budget;
+        ArrayList<String[]> activities = new ArrayList<>();
+    }
+
+    // Every value is written with two decimals, so the console input and the
+    // version 1 file carry exactly the same doubles.
+    private static List<Stop> trip(int destinations, long seed) {
+        Random random = new Random(seed);
+        ActivityCategory[] categories = ActivityCategory.values();
+        ArrayList<Stop> trip = new ArrayList<>();
+        LocalDate arrival = LocalDate.of(2030, 5, 1);
+        for (int d = 0; d < destinations; d++) {
+            Stop stop = new Stop();
+            stop.name = "City " + seed + "-" + d;
+            stop.arrival = arrival;
+            stop.departure = arrival.plusDays(2 + random.nextInt(5));
+            stop.budget = String.format(Locale.ROOT, "%.2f", 200 + random.nextInt(100_000) / 100.0);
+            int activities = 5 + random.nextInt(15);
+            for (int a = 0; a < activities; a++) {
+                stop.activities.add(new String[] {
+                    "Activity " + d + "." + a,
+                    stop.arrival.plusDays(random.nextInt(8)).toString(),
+                    String.format(Locale.ROOT, "%.2f", random.nextInt(30_000) / 100.0),
+                    categories[random.nextInt(categories.length)].label
+                });
+            }
+            trip.add(stop);
+            arrival = stop.departure.minusDays(random.nextInt(2));
+        }
+        return trip;
+    }
+
+    private static TravelItineraryPlanner plan(List<Stop> trip) {
+        return plan(trip, List.of());
+    }
+
+    // Enters the first stops through the console menu's prompts and leaves
+    // the rest queued on the planner's input for a later addDestination.
+    private static TravelItineraryPlanner plan(List<Stop> trip, List<Stop> later) {
+        StringBuilder input = new StringBuilder();
+        ArrayList<Stop> stops = new ArrayList<>(trip);
+        stops.addAll(later);
+        for (Stop stop : stops) {
+            input.append(stop.name).append('\n').append(stop.arrival).append('\n')
+                .append(stop.departure).append('\n').append(stop.budget).append('\n');
+            for (String[] activity : stop.activities) {
+                input.append("Y\n");
+                for (String field : activity) {
+                    input.append(field).append('\n');
+                }
+            }
+            input.append("N\n");
+        }
+
+        InputStream console = System.in;
+        System.setIn(new ByteArrayInputStream(input.toString().getBytes(StandardCharsets.UTF_8)));
+        try {
+            TravelItineraryPlanner planner = new TravelItineraryPlanner();
+            for (int i = 0; i < trip.size(); i++) {
+                capture(planner::addDestination);
+            }
+            return planner;
+        } finally {
+            System.setIn(console);
+        }
+    }
+
+    // Version 1 layout: magic, version, string, destination and activity
+    // counts, the string dictionary, destination rows, then activity rows.
+    private static void writeVersionOne(List<Stop> trip, Path file) throws IOException {
+        LinkedHashMap<String, Integer> strings = new LinkedHashMap<>();
+        int activityCount = 0;
+        for (Stop stop : trip) {
+            strings.computeIfAbsent(stop.name, name -> strings.size());
+            for (String[] activity : stop.activities) {
+                strings.computeIfAbsent(activity[0], name -> strings.size());
+                activityCount++;
+            }
+        }
+
+        try (DataOutputStream out = new DataOutputStream(Files.newOutputStream(file))) {
+            out.writeInt(FILE_MAGIC);
+            out.writeShort(1);
+            out.writeInt(strings.size());
+            out.writeInt(trip.size());
+            out.writeInt(activityCount);
+            for (String value : strings.keySet()) {
+                byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+                out.writeInt(bytes.length);
+                out.write(bytes);
+            }
+            for (Stop stop : trip) {
+                out.writeInt(strings.get(stop.name));
+                out.writeInt((int) stop.arrival.toEpochDay());
+                out.writeInt((int) stop.departure.toEpochDay());
+                out.writeDouble(Double.parseDouble(stop.budget));
+            }
+            for (int d = 0; d < trip.size(); d++) {
+                for (String[] activity : trip.get(d).activities) {
+                    out.writeInt(d);
+                    out.writeInt(strings.get(activity[0]));
+                    out.writeInt((int) LocalDate.parse(activity[1]).toEpochDay());
+                    out.writeDouble(Double.parseDouble(activity[2]));
+                    out.writeByte(ActivityCategory.fromInput(activity[3]).ordinal());
+                }
+            }
+        }
+    }
+
+    private static String report(TravelItineraryPlanner planner) {
+        return capture(() -> {
+            planner.displayItinerary();
+            planner.checkOverlappingStays();
+        });
+    }
+
+    private static String capture(Runnable action) {
+        PrintStream console = System.out;
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        System.setOut(new PrintStream(output, true, StandardCharsets.UTF_8));
+        try {
+            action.run();
+        } finally {
+            System.setOut(console);
+        }
+        return output.toString(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,70 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+// The interval tree must find exactly the stays a scan of every destination
+// finds, in arrival order, however long the longest stay is.
+class ItineraryIndexTest {
+    private static final LocalDate START = LocalDate.of(2030, 1, 1);
+
+    @Test
+    void matchesALinearScan() {
+        Random random = new Random(7);
+        ItineraryIndex index = new ItineraryIndex();
+        List<Destination> all = new ArrayList<>();
+
+        for (int i = 0; i < 2_000; i++) {
+            // Mostly short trips, with the odd stay lasting most of a year.
+            int length = random.nextInt(20) == 0 ? 1 + random.nextInt(300) : 1 + random.nextInt(7);
+            Destination destination = stay("Stop " + i, random.nextInt(1_000), length);
+            index.addDestination(destination);
+            all.add(destination);
+
+            if (i % 10 == 0) {
+                LocalDate from = START.plusDays(random.nextInt(1_100) - 50);
+                LocalDate to = from.plusDays(random.nextInt(30));
+                assertEquals(scan(all, from, to), index.destinationsOverlapping(from, to),
+                    () -> "stays overlapping " + from + " to " + to);
+            }
+        }
+    }
+
+    @Test
+    void touchingStaysDoNotOverlap() {
+        ItineraryIndex index = new ItineraryIndex();
+        Destination first = stay("First", 0, 5);
+        Destination second = stay("Second", 5, 3);
+        index.addDestination(first);
+        index.addDestination(second);
+
+        assertEquals(List.of(first), index.destinationsOverlapping(START.plusDays(4), START.plusDays(5)));
+        assertEquals(List.of(second), index.destinationsOverlapping(START.plusDays(5), START.plusDays(6)));
+        assertEquals(List.of(), index.destinationsOverlapping(START.plusDays(8), START.plusDays(20)));
+        assertEquals(List.of(), index.destinationsOverlapping(START.plusDays(3), START.plusDays(3)));
+    }
+
+    private static Destination stay(String name, int arrivalDay, int nights) {
+        Destination destination = new Destination(name);
+        destination.arrivalDate = START.plusDays(arrivalDay);
+        destination.departureDate = destination.arrivalDate.plusDays(nights);
+        return destination;
+    }
+
+    // Same-day arrivals keep the order they were added in.
+    private static List<Destination> scan(List<Destination> all, LocalDate from, LocalDate to) {
+        List<Destination> result = new ArrayList<>();
+        if (!from.isBefore(to)) return result;
+        for (Destination destination : all) {
+            if (destination.arrivalDate.isBefore(to) && destination.departureDate.isAfter(from)) {
+                result.add(destination);
+            }
+        }
+        result.sort((a, b) -> a.arrivalDate.compareTo(b.arrivalDate));
+        return result;
+    }
+}
@@ -0,0 +1,184 @@
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+// Small trips get the cheapest route there is; large ones get close to it
+// within the time budget, and the planner chains the stays it reorders.
+class RouteOptimizerTest {
+    @Test
+    void exactOrderMatchesBruteForce() {
+        Random random = new Random(3);
+        for (int trial = 0; trial < 50; trial++) {
+            RouteOptimizer optimizer = new RouteOptimizer(randomCosts(random, 2 + random.nextInt(6)));
+            int[] order = optimizer.exactOrder();
+            assertTrue(isPermutation(order));
+            assertEquals(cheapest(optimizer, order.length), optimizer.routeCost(order), 1e-9);
+        }
+    }
+
+    @Test
+    void smallTripsReportTheExactRouteOnce() {
+        RouteOptimizer optimizer = new RouteOptimizer(randomCosts(new Random(9), 8));
+        ArrayList<int[]> reported = new ArrayList<>();
+        int[] order = optimizer.optimize(300, (route, cost, elapsedMillis) -> {
+            assertEquals(optimizer.routeCost(route), cost, 1e-9);
+            reported.add(route);
+        });
+
+        assertEquals(1, reported.size());
+        assertArrayEquals(order, reported.get(0));
+        assertArrayEquals(optimizer.exactOrder(), order);
+    }
+
+    @Test
+    void searchFindsTheOptimumOfSmallTrips() {
+        Random random = new Random(11);
+        for (int trial = 0; trial < 5; trial++) {
+            RouteOptimizer optimizer = new RouteOptimizer(randomCosts(random, RouteOptimizer.EXACT_STOPS));
+            int[] searched = optimizer.searchOrder(200, null);
+            assertTrue(isPermutation(searched));
+            assertEquals(optimizer.routeCost(optimizer.exactOrder()), optimizer.routeCost(searched), 1e-6);
+        }
+    }
+
+    @Test
+    void largeTripsFinishWithinTheBudgetAndOnlyImprove() {
+        RouteOptimizer optimizer = new RouteOptimizer(randomCosts(new Random(5), 60));
+        ArrayList<Double> reported = new ArrayList<>();
+        long start = System.nanoTime();
+        int[] order = optimizer.optimize(300, (route, cost, elapsedMillis) -> {
+            assertEquals(optimizer.routeCost(route), cost, 1e-9);
+            reported.add(cost);
+        });
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        assertTrue(isPermutation(order));
+        assertTrue(elapsedMillis < 1_000, "took " + elapsedMillis + " ms");
+        assertTrue(!reported.isEmpty());
+        for (int i = 1; i < reported.size(); i++) {
+            assertTrue(reported.get(i) < reported.get(i - 1), reported::toString);
+        }
+        assertEquals(reported.get(reported.size() - 1), optimizer.routeCost(order), 1e-9);
+    }
+
+    @Test
+    void plannerChainsTheSuggestedRoute() {
+        String[] names = {"Lisbon", "Oslo", "Rome", "Vienna"};
+        LocalDate[] arrivals = {LocalDate.of(2030, 5, 1), LocalDate.of(2030, 5, 10),
+            LocalDate.of(2030, 5, 20), LocalDate.of(2030, 6, 2)};
+        int[] nights = {3, 2, 5, 4};
+        StringBuilder input = new StringBuilder();
+        for (int i = 0; i < names.length; i++) {
+            input.append(names[i]).append('\n').append(arrivals[i]).append('\n')
+                .append(arrivals[i].plusDays(nights[i])).append("\n500\nN\n");
+        }
+        input.append("y\n");
+
+        String output = runPlanner(input.toString(), names.length);
+        String route = output.substring(output.lastIndexOf("Route:"));
+
+        // Stays follow each other from the first arrival and keep their nights.
+        SimulatedTravelCosts costs = new SimulatedTravelCosts();
+        RouteOptimizer optimizer = new RouteOptimizer(RouteOptimizer.costMatrix(Arrays.asList(names), costs));
+        List<String> visited = new ArrayList<>();
+        LocalDate day = arrivals[0];
+        for (String line : route.split("\n")) {
+            int colon = line.indexOf(": ");
+            if (colon < 0) continue;
+            int stop = Arrays.asList(names).indexOf(line.substring(0, colon));
+            if (stop < 0) continue;
+            visited.add(names[stop]);
+            assertEquals(names[stop] + ": " + day + " to " + day.plusDays(nights[stop]), line.trim());
+            day = day.plusDays(nights[stop]);
+        }
+        assertEquals(names.length, visited.size(), route);
+        int[] order = visited.stream().mapToInt(name -> Arrays.asList(names).indexOf(name)).toArray();
+        assertEquals(optimizer.routeCost(optimizer.exactOrder()), optimizer.routeCost(order), 1e-9);
+        assertTrue(output.contains("Total idle days: 0"), output);
+    }
+
+    private static String runPlanner(String input, int destinations) {
+        InputStream in = System.in;
+        PrintStream out = System.out;
+        ByteArrayOutputStream captured = new ByteArrayOutputStream();
+        try {
+            System.setIn(new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8)));
+            System.setOut(new PrintStream(captured, true, StandardCharsets.UTF_8));
+            TravelItineraryPlanner planner = new TravelItineraryPlanner();
+            for (int i = 0; i < destinations; i++) {
+                planner.addDestination();
+            }
+            planner.optimizeItinerary();
+        } finally {
+            System.setIn(in);
+            System.setOut(out);
+        }
+        return captured.toString(StandardCharsets.UTF_8);
+    }
+
+    private static double[][] randomCosts(Random random, int stops) {
+        double[][] points = new double[stops][];
+        for (int i = 0; i < stops; i++) {
+            points[i] = new double[] {random.nextDouble() * 1_000, random.nextDouble() * 1_000};
+        }
+        double[][] costs = new double[stops][stops];
+        for (int i = 0; i < stops; i++) {
+            for (int j = 0; j < stops; j++) {
+                costs[i][j] = Math.hypot(points[i][0] - points[j][0], points[i][1] - points[j][1]);
+            }
+        }
+        return costs;
+    }
+
+    private static double cheapest(RouteOptimizer optimizer, int stops) {
+        int[] order = new int[stops];
+        for (int i = 0; i < stops; i++) {
+            order[i] = i;
+        }
+        double best = Double.POSITIVE_INFINITY;
+        do {
+            best = Math.min(best, optimizer.routeCost(order));
+        } while (nextPermutation(order));
+        return best;
+    }
+
+    private static boolean nextPermutation(int[] order) {
+        int i = order.length - 2;
+        while (i >= 0 && order[i] >= order[i + 1]) i--;
+        if (i < 0) return false;
+        int j = order.length - 1;
+        while (order[j] <= order[i]) j--;
+        int swap = order[i];
+        order[i] = order[j];
+        order[j] = swap;
+        for (int a = i + 1, b = order.length - 1; a < b; a++, b--) {
+            swap = order[a];
+            order[a] = order[b];
+            order[b] = swap;
+        }
+        return true;
+    }
+
+    private static boolean isPermutation(int[] order) {
+        int[] sorted = order.clone();
+        Arrays.sort(sorted);
+        int[] expected = new int[order.length];
+        for (int i = 0; i < expected.length; i++) {
+            expected[i] = i;
+        }
+        return Arrays.equals(expected, sorted);
+    }
+}
@@ -1,26 +1,88 @@
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.Reader;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.time.LocalDate;
+import java.time.Month;
+import java.time.Year;
+import java.time.format.DateTimeParseException;
 import java.time.temporal.ChronoUnit;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Scanner;
-import java.util.UUID;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import javax.management.JMException;
+import javax.management.ObjectName;
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
 
 enum RoomType {
-    STANDARD(100.0, 2),
-    DELUXE(200.0, 3),
-    SUITE(350.0, 4),
-    EXECUTIVE(500.0, 2);
+    STANDARD(10_000, 2),
+    DELUXE(20_000, 3),
+    SUITE(35_000, 4),
+    EXECUTIVE(50_000, 2);
 
-    private final double basePrice;
+    private final long basePriceCents;
     private final int maxOccupancy;
 
-    RoomType(double basePrice, int maxOccupancy) {
-        this.basePrice = basePrice;
+    RoomType(long basePriceCents, int maxOccupancy) {
+        this.basePriceCents = basePriceCents;
         this.maxOccupancy = maxOccupancy;
     }
 
     public double getBasePrice() {
-        return basePrice;
+        return basePriceCents / 100.0;
+    }
+
+    public long getBasePriceCents() {
+        return basePriceCents;
     }
 
     public int getMaxOccupancy() {
@@ -28,15 +90,108 @@ enum RoomType {
     }
 }
 
+class PricingEngine {
+    private static final long EXTRA_GUEST_FEE_CENTS = 5_000;
+    private static final long LONG_STAY_NIGHTS = 7;
+    private static final long LONG_STAY_DISCOUNT_PERCENT = 10;
+
+    // Indexed by Month.getValue() - 1 and DayOfWeek.getValue() - 1.
+    private static final long[] SEASONAL_RATE_PERCENT = 
+        {90, 90, 100, 100, 110, 125, 125, 125, 110, 100, 90, 115};
+    private static final long[] DAY_OF_WEEK_RATE_PERCENT = 
+        {100, 100, 100, 100, 120, 120, 100};
+    // A night's rate rises once that many percent of the room type are
+    // already booked for it, highest threshold first.
+    private static final long[] SURGE_OCCUPANCY_PERCENT = {90, 75};
+    private static final long[] SURGE_RATE_PERCENT = {125, 110};
+
+    // Nightly rate in cents per room type, indexed by (month - 1) * 7 + (dayOfWeek - 1).
+    private static final long[][] NIGHTLY_RATE_CENTS = new long[RoomType.values().length][12 * 7];
+
+    static {
+        for (RoomType type : RoomType.values()) {
+            for (int month = 0; month < 12; month++) {
+                for (int day = 0; day < 7; day++) {
+                    NIGHTLY_RATE_CENTS[type.ordinal()][month * 7 + day] = type.getBasePriceCents() 
+                        * SEASONAL_RATE_PERCENT[month] * DAY_OF_WEEK_RATE_PERCENT[day] / 10_000;
+                }
+            }
+        }
+    }
+
+    public static long quoteCents(RoomType roomType, LocalDate checkIn, LocalDate checkOut, int guests) {
+        return quoteCents(roomType, checkIn, checkOut, guests, null);
+    }
+
+    // Walks the stay night by night on primitive calendar fields, so quoting
+    // a price allocates nothing regardless of the length of the stay. With an
+    // occupancy calendar, nights the room type is nearly sold out are
+    // surcharged; nights outside its window are not.
+    public static long quoteCents(RoomType roomType, LocalDate checkIn, LocalDate checkOut, int guests, 
+                                  OccupancyCalendar occupancy) {
+        long nights = ChronoUnit.DAYS.between(checkIn, checkOut);
+        long[] rates = NIGHTLY_RATE_CENTS[roomType.ordinal()];
+        int roomsOfType = occupancy != null ? occupancy.countRooms(roomType) : 0;
+        long firstNight = checkIn.toEpochDay();
+
+        int dayOfWeek = checkIn.getDayOfWeek().getValue() - 1;
+        int dayOfMonth = checkIn.getDayOfMonth();
+        int month = checkIn.getMonthValue();
+        int year = checkIn.getYear();
+        int monthLength = checkIn.lengthOfMonth();
+
+        long roomCents = 0;
+        for (long night = 0; night < nights; night++) {
+            long rate = rates[(month - 1) * 7 + dayOfWeek];
+            if (roomsOfType > 0) {
+                int occupied = occupancy.countOccupied(roomType, firstNight + night);
+                rate = rate * surgePercent(occupied, roomsOfType) / 100;
+            }
+            roomCents += rate;
+
+            dayOfWeek = dayOfWeek == 6 ? 0 : dayOfWeek + 1;
+            if (++dayOfMonth > monthLength) {
+                dayOfMonth = 1;
+                if (++month > 12) {
+                    month = 1;
+                    year++;
+                }
+                monthLength = Month.of(month).length(Year.isLeap(year));
+            }
+        }
+
+        if (nights >= LONG_STAY_NIGHTS) {
+            roomCents -= roomCents * LONG_STAY_DISCOUNT_PERCENT / 100;
+        }
+
+        long extraGuests = Math.max(0, guests - roomType.getMaxOccupancy());
+        return roomCents + nights * extraGuests * EXTRA_GUEST_FEE_CENTS;
+    }
+
+    private static long surgePercent(int occupied, int roomsOfType) {
+        for (int i = 0; i < SURGE_OCCUPANCY_PERCENT.length; i++) {
+            if (occupied * 100L >= SURGE_OCCUPANCY_PERCENT[i] * roomsOfType) {
+                return SURGE_RATE_PERCENT[i];
+            }
+        }
+        return 100;
+    }
+}
+
 class Room {
     private String roomNumber;
     private RoomType roomType;
     private boolean isAvailable;
+    private TreeMap<LocalDate, LocalDate> bookings;
+    // Mirrors bookings into the hotel-wide calendar, under this room's lock.
+    private OccupancyCalendar calendar;
+    private int calendarIndex;
 
     public Room(String roomNumber, RoomType roomType) {
         this.roomNumber = roomNumber;
         this.roomType = roomType;
         this.isAvailable = true;
+        this.bookings = new TreeMap<>();
     }
 
     public String getRoomNumber() {
@@ -54,16 +209,395 @@ class Room {
     public void setAvailable(boolean available) {
         isAvailable = available;
     }
+
+    public void attachTo(OccupancyCalendar calendar) {
+        this.calendarIndex = calendar.addRoom(this);
+        this.calendar = calendar;
+    }
+
+    // Bookings never overlap, so the latest one starting on or before checkOut
+    // is the only one that can reach into the requested stay.
+    public synchronized boolean isAvailable(LocalDate checkIn, LocalDate checkOut) {
+        Map.Entry<LocalDate, LocalDate> latest = bookings.floorEntry(checkOut);
+        return latest == null || latest.getValue().isBefore(checkIn);
+    }
+
+    public synchronized void addBooking(LocalDate checkIn, LocalDate checkOut) {
+        bookings.put(checkIn, checkOut);
+        if (calendar != null) calendar.mark(calendarIndex, checkIn, checkOut);
+    }
+
+    // Check and insert under the room's own lock, so two sessions can never
+    // book the same dates while bookings for other rooms proceed in parallel.
+    // A free room is still refused while every room of its type is promised
+    // to bookings of the type that have no room yet.
+    public synchronized boolean tryBook(LocalDate checkIn, LocalDate checkOut) {
+        if (!isAvailable(checkIn, checkOut)) {
+            return false;
+        }
+        if (calendar != null && !calendar.tryMark(calendarIndex, checkIn, checkOut)) {
+            return false;
+        }
+        bookings.put(checkIn, checkOut);
+        return true;
+    }
+
+    // For the optimizer, which gives rooms to stays their type already
+    // counts, so only the room's own bookings matter.
+    public synchronized boolean tryAssign(LocalDate checkIn, LocalDate checkOut) {
+        if (!isAvailable(checkIn, checkOut)) {
+            return false;
+        }
+        addBooking(checkIn, checkOut);
+        return true;
+    }
+
+    public synchronized void removeBooking(LocalDate checkIn) {
+        LocalDate checkOut = bookings.remove(checkIn);
+        if (checkOut != null && calendar != null) calendar.clear(calendarIndex, checkIn, checkOut);
+    }
+
+    // Moves an existing booking to new dates, restoring it if the new dates
+    // collide with another booking.
+    public synchronized boolean tryRebook(LocalDate oldCheckIn, LocalDate newCheckIn, 
+                                          LocalDate newCheckOut) {
+        LocalDate oldCheckOut = bookings.remove(oldCheckIn);
+        if (isAvailable(newCheckIn, newCheckOut) && (calendar == null || 
+                calendar.tryMove(calendarIndex, oldCheckIn, oldCheckOut, newCheckIn, newCheckOut))) {
+            bookings.put(newCheckIn, newCheckOut);
+            return true;
+        }
+        bookings.put(oldCheckIn, oldCheckOut);
+        return false;
+    }
+
+    // Copies every booking that touches the given days into the calendar.
+    public synchronized void markBookings(LocalDate from, LocalDate to) {
+        LocalDate start = bookings.floorKey(from);
+        for (Map.Entry<LocalDate, LocalDate> booking : 
+                bookings.subMap(start != null ? start : from, true, to, true).entrySet()) {
+            calendar.mark(calendarIndex, booking.getKey(), booking.getValue());
+        }
+    }
+}
+
+// Occupancy for a rolling window of days starting today: one bitset per day
+// with one bit per room, plus a mask of rooms per RoomType, so a search is a
+// few word-wide ORs rather than a lookup per room. A booking occupies its
+// check-in and check-out days inclusive, the same rule Room.isAvailable uses.
+// Queries that reach outside the window return null, and callers fall back
+// to the per-room indexes.
+//
+// Per RoomType it also counts booked rooms per day, in a max segment tree
+// over the day slots, so "is any room of this type free on every day" is one
+// O(log days) range query regardless of hotel size. Bookings of a type that
+// have no room yet are only in these counts, and rooms of a type are no
+// longer sold once the counts show every one of them promised.
+class OccupancyCalendar {
+    private int horizonDays;
+    // Ring buffer of days; a day lives in slot epochDay % horizonDays.
+    private BitSet[] days;
+    private BitSet[] roomsOfType;
+    private int[] roomCountByType;
+    // Bookings of each type taken beyond its rooms, for guests expected not
+    // to show up.
+    private int[] overbookingByType;
+    private ArrayList<RoomType> roomTypes;
+    // Per type, leaves horizonDays..2*horizonDays-1 hold the booked count of
+    // each slot and every inner node the maximum of its two children.
+    private int[][] bookedByType;
+    private int roomCount;
+    private long firstDay;
+    // Days after this are still being filled in by advanceTo.
+    private long lastMarkedDay;
+
+    public OccupancyCalendar(LocalDate today, int horizonDays) {
+        this.horizonDays = horizonDays;
+        this.days = new BitSet[horizonDays];
+        for (int i = 0; i < horizonDays; i++) {
+            days[i] = new BitSet();
+        }
+        this.roomsOfType = new BitSet[RoomType.values().length];
+        for (int i = 0; i < roomsOfType.length; i++) {
+            roomsOfType[i] = new BitSet();
+        }
+        this.roomCountByType = new int[RoomType.values().length];
+        this.overbookingByType = new int[RoomType.values().length];
+        this.roomTypes = new ArrayList<>();
+        this.bookedByType = new int[RoomType.values().length][2 * horizonDays];
+        this.firstDay = today.toEpochDay();
+        this.lastMarkedDay = firstDay + horizonDays - 1;
+    }
+
+    // Rooms are numbered in the order they are added.
+    public synchronized int addRoom(Room room) {
+        roomsOfType[room.getRoomType().ordinal()].set(roomCount);
+        roomCountByType[room.getRoomType().ordinal()]++;
+        roomTypes.add(room.getRoomType());
+        return roomCount++;
+    }
+
+    // Marks the room only if its type has a room left on every day of the
+    // stay inside the window that is not promised to a booking.
+    public synchronized boolean tryMark(int roomIndex, LocalDate checkIn, LocalDate checkOut) {
+        if (!hasUnpromisedRoom(roomTypes.get(roomIndex), checkIn, checkOut)) {
+            return false;
+        }
+        mark(roomIndex, checkIn, checkOut);
+        return true;
+    }
+
+    // Moves a room's booking to new dates, as one step, so no booking of
+    // the type can take the old dates in between and keep them from being
+    // restored.
+    public synchronized boolean tryMove(int roomIndex, LocalDate oldCheckIn, LocalDate oldCheckOut, 
+                                        LocalDate checkIn, LocalDate checkOut) {
+        clear(roomIndex, oldCheckIn, oldCheckOut);
+        if (tryMark(roomIndex, checkIn, checkOut)) {
+            return true;
+        }
+        mark(roomIndex, oldCheckIn, oldCheckOut);
+        return false;
+    }
+
+    public synchronized void setOverbooking(RoomType roomType, int rooms) {
+        if (rooms < 0) {
+            throw new IllegalArgumentException("Overbooking allowance must not be negative");
+        }
+        overbookingByType[roomType.ordinal()] = rooms;
+    }
+
+    public synchronized int getOverbooking(RoomType roomType) {
+        return overbookingByType[roomType.ordinal()];
+    }
+
+    // Counts a booking of the type without a room, if fewer than its rooms
+    // plus the overbooking allowance are taken on every day. The stay must
+    // lie inside the window.
+    public synchronized boolean tryReserve(RoomType roomType, LocalDate checkIn, LocalDate checkOut) {
+        int free = countFreeRooms(roomType, checkIn, checkOut);
+        if (free < 0 || roomCountByType[roomType.ordinal()] == 0 || 
+                free + overbookingByType[roomType.ordinal()] <= 0) {
+            return false;
+        }
+        reserve(roomType, checkIn, checkOut);
+        return true;
+    }
+
+    // Counts a booking of the type without a room whatever is taken, for
+    // bookings that were already accepted.
+    public synchronized void reserve(RoomType roomType, LocalDate checkIn, LocalDate checkOut) {
+        addBooked(roomType, checkIn, checkOut, 1);
+    }
+
+    public synchronized void unreserve(RoomType roomType, LocalDate checkIn, LocalDate checkOut) {
+        addBooked(roomType, checkIn, checkOut, -1);
+    }
+
+    private void addBooked(RoomType roomType, LocalDate checkIn, LocalDate checkOut, int delta) {
+        int[] booked = bookedByType[roomType.ordinal()];
+        long last = Math.min(checkOut.toEpochDay(), firstDay + horizonDays - 1);
+        for (long day = Math.max(checkIn.toEpochDay(), firstDay); day <= last; day++) {
+            setBooked(booked, slot(day), booked[horizonDays + slot(day)] + delta);
+        }
+    }
+
+    // Days of the stay outside the window are not counted, so they never
+    // hold a booking back.
+    private boolean hasUnpromisedRoom(RoomType roomType, LocalDate checkIn, LocalDate checkOut) {
+        long first = Math.max(checkIn.toEpochDay(), firstDay);
+        long last = Math.min(checkOut.toEpochDay(), lastMarkedDay);
+        return first > last || maxBooked(roomType, first, last) < roomCountByType[roomType.ordinal()];
+    }
+
+    public synchronized void mark(int roomIndex, LocalDate checkIn, LocalDate checkOut) {
+        int[] booked = bookedByType[roomTypes.get(roomIndex).ordinal()];
+        long last = Math.min(checkOut.toEpochDay(), firstDay + horizonDays - 1);
+        for (long day = Math.max(checkIn.toEpochDay(), firstDay); day <= last; day++) {
+            BitSet occupied = days[slot(day)];
+            if (!occupied.get(roomIndex)) {
+                occupied.set(roomIndex);
+                setBooked(booked, slot(day), booked[horizonDays + slot(day)] + 1);
+            }
+        }
+    }
+
+    public synchronized void clear(int roomIndex, LocalDate checkIn, LocalDate checkOut) {
+        int[] booked = bookedByType[roomTypes.get(roomIndex).ordinal()];
+        long last = Math.min(checkOut.toEpochDay(), firstDay + horizonDays - 1);
+        for (long day = Math.max(checkIn.toEpochDay(), firstDay); day <= last; day++) {
+            BitSet occupied = days[slot(day)];
+            if (occupied.get(roomIndex)) {
+                occupied.clear(roomIndex);
+                setBooked(booked, slot(day), booked[horizonDays + slot(day)] - 1);
+            }
+        }
+    }
+
+    // Rooms of the type free on every day of the stay, counted per day: zero
+    // means some day is sold out. Returns -1 outside the window. Being
+    // positive does not promise one room covers the whole stay.
+    public synchronized int countFreeRooms(RoomType roomType, LocalDate checkIn, LocalDate checkOut) {
+        long first = checkIn.toEpochDay();
+        long last = checkOut.toEpochDay();
+        if (last < first) {
+            throw new IllegalArgumentException("Check-out must not be before check-in");
+        }
+        if (first < firstDay || last > lastMarkedDay) {
+            return -1;
+        }
+        return roomCountByType[roomType.ordinal()] - maxBooked(roomType, first, last);
+    }
+
+    private int maxBooked(RoomType roomType, long first, long last) {
+        int[] booked = bookedByType[roomType.ordinal()];
+        int firstSlot = slot(first);
+        int lastSlot = slot(last);
+        return firstSlot <= lastSlot 
+            ? maxBooked(booked, firstSlot, lastSlot) 
+            : Math.max(maxBooked(booked, firstSlot, horizonDays - 1), maxBooked(booked, 0, lastSlot));
+    }
+
+    private void setBooked(int[] booked, int slot, int count) {
+        int node = horizonDays + slot;
+        booked[node] = count;
+        for (node >>= 1; node > 0; node >>= 1) {
+            booked[node] = Math.max(booked[2 * node], booked[2 * node + 1]);
+        }
+    }
+
+    private int maxBooked(int[] booked, int fromSlot, int toSlot) {
+        int max = 0;
+        for (int lo = fromSlot + horizonDays, hi = toSlot + horizonDays + 1; lo < hi; lo >>= 1, hi >>= 1) {
+            if ((lo & 1) == 1) max = Math.max(max, booked[lo++]);
+            if ((hi & 1) == 1) max = Math.max(max, booked[--hi]);
+        }
+        return max;
+    }
+
+    // Indexes of rooms that fit the party and are free on every day of the stay.
+    public BitSet findFreeRooms(LocalDate checkIn, LocalDate checkOut, int guests) {
+        BitSet candidates = new BitSet(roomCount);
+        for (RoomType type : RoomType.values()) {
+            if (type.getMaxOccupancy() >= guests) {
+                candidates.or(roomsOfType[type.ordinal()]);
+            }
+        }
+        return removeOccupied(candidates, checkIn, checkOut);
+    }
+
+    public BitSet findFreeRooms(LocalDate checkIn, LocalDate checkOut, RoomType roomType) {
+        return removeOccupied((BitSet) roomsOfType[roomType.ordinal()].clone(), checkIn, checkOut);
+    }
+
+    private synchronized BitSet removeOccupied(BitSet candidates, LocalDate checkIn, LocalDate checkOut) {
+        long first = checkIn.toEpochDay();
+        long last = checkOut.toEpochDay();
+        if (last < first) {
+            throw new IllegalArgumentException("Check-out must not be before check-in");
+        }
+        if (first < firstDay || last > lastMarkedDay) {
+            return null;
+        }
+        for (long day = first; day <= last && !candidates.isEmpty(); day++) {
+            candidates.andNot(days[slot(day)]);
+        }
+        for (RoomType type : RoomType.values()) {
+            if (candidates.intersects(roomsOfType[type.ordinal()]) && 
+                    maxBooked(type, first, last) >= roomCountByType[type.ordinal()]) {
+                candidates.andNot(roomsOfType[type.ordinal()]);
+            }
+        }
+        return candidates;
+    }
+
+    // Number of occupied rooms on the given day, or -1 outside the window.
+    // Read from the per-type counts, so it costs the same for any hotel size.
+    public synchronized int countOccupied(LocalDate date) {
+        long day = date.toEpochDay();
+        if (day < firstDay || day > lastMarkedDay) {
+            return -1;
+        }
+        int occupied = 0;
+        for (int[] booked : bookedByType) {
+            occupied += booked[horizonDays + slot(day)];
+        }
+        return occupied;
+    }
+
+    public synchronized int countOccupied(RoomType roomType, long epochDay) {
+        if (epochDay < firstDay || epochDay > lastMarkedDay) {
+            return -1;
+        }
+        return bookedByType[roomType.ordinal()][horizonDays + slot(epochDay)];
+    }
+
+    public synchronized int countRooms(RoomType roomType) {
+        return roomCountByType[roomType.ordinal()];
+    }
+
+    // Slides the window forward so it starts on today. Days that drop off
+    // the front are reused for the new days at the end, which are then filled
+    // in from each room's bookings. Callers hold the inventory write lock, so
+    // no booking changes while that happens.
+    public void advanceTo(LocalDate today, List<Room> rooms) {
+        LocalDate newFrom;
+        LocalDate newTo;
+        synchronized (this) {
+            long start = today.toEpochDay();
+            if (start <= firstDay) return;
+
+            long oldEnd = firstDay + horizonDays;
+            for (long day = firstDay; day < Math.min(start, oldEnd); day++) {
+                days[slot(day)].clear();
+                for (int[] booked : bookedByType) {
+                    setBooked(booked, slot(day), 0);
+                }
+            }
+            firstDay = start;
+            lastMarkedDay = Math.max(oldEnd, start) - 1;
+            newFrom = LocalDate.ofEpochDay(lastMarkedDay + 1);
+            newTo = LocalDate.ofEpochDay(start + horizonDays - 1);
+        }
+
+        for (Room room : rooms) {
+            room.markBookings(newFrom, newTo);
+        }
+
+        synchronized (this) {
+            lastMarkedDay = firstDay + horizonDays - 1;
+        }
+    }
+
+    private int slot(long day) {
+        return (int) Math.floorMod(day, (long) horizonDays);
+    }
+}
+
+// Time-ordered ids: milliseconds since the epoch in the high bits and a
+// per-millisecond sequence in the low 12 bits. Unlike UUID.randomUUID() this
+// never touches SecureRandom, and ids sort in booking order.
+class ReservationIdGenerator {
+    private static final AtomicLong lastId = new AtomicLong();
+
+    public static String nextId() {
+        long candidate = System.currentTimeMillis() << 12;
+        long id = lastId.accumulateAndGet(candidate, (previous, now) -> Math.max(previous + 1, now));
+        String hex = Long.toHexString(id);
+        return "0".repeat(16 - hex.length()) + hex;
+    }
 }
 
 class Reservation {
     private String reservationId;
     private String guestName;
+    // Null for a booking of a room type until the optimizer gives it a room.
     private Room room;
+    private RoomType roomType;
     private LocalDate checkInDate;
     private LocalDate checkOutDate;
     private int numberOfGuests;
-    private double totalCost;
+    private long totalCostCents;
     private PaymentStatus paymentStatus;
 
     enum PaymentStatus {
@@ -72,39 +606,129 @@ class Reservation {
 
     public Reservation(String guestName, Room room, LocalDate checkInDate, 
                        LocalDate checkOutDate, int numberOfGuests) {
-        this.reservationId = UUID.randomUUID().toString();
+        this(ReservationIdGenerator.nextId(), guestName, room, checkInDate, checkOutDate, numberOfGuests);
+    }
+
+    // Priced from the rate tables alone, without any occupancy surcharge.
+    Reservation(String reservationId, String guestName, Room room, LocalDate checkInDate, 
+                LocalDate checkOutDate, int numberOfGuests) {
+        this(reservationId, guestName, room, checkInDate, checkOutDate, numberOfGuests, 
+            PricingEngine.quoteCents(room.getRoomType(), checkInDate, checkOutDate, numberOfGuests));
+    }
+
+    // Keeps the price quoted when the guest booked, whatever occupancy does later.
+    Reservation(String reservationId, String guestName, Room room, LocalDate checkInDate, 
+                LocalDate checkOutDate, int numberOfGuests, long totalCostCents) {
+        this(reservationId, guestName, room, room.getRoomType(), checkInDate, checkOutDate, 
+            numberOfGuests, totalCostCents);
+    }
+
+    // A booking of any room of the type, assigned one later.
+    Reservation(String reservationId, String guestName, RoomType roomType, LocalDate checkInDate, 
+                LocalDate checkOutDate, int numberOfGuests, long totalCostCents) {
+        this(reservationId, guestName, null, roomType, checkInDate, checkOutDate, 
+            numberOfGuests, totalCostCents);
+    }
+
+    private Reservation(String reservationId, String guestName, Room room, RoomType roomType, 
+                        LocalDate checkInDate, LocalDate checkOutDate, int numberOfGuests, 
+                        long totalCostCents) {
+        this.reservationId = reservationId;
         this.guestName = guestName;
         this.room = room;
+        this.roomType = roomType;
         this.checkInDate = checkInDate;
         this.checkOutDate = checkOutDate;
         this.numberOfGuests = numberOfGuests;
+        this.totalCostCents = totalCostCents;
         this.paymentStatus = PaymentStatus.PENDING;
-        calculateTotalCost();
-    }
-
-    private void calculateTotalCost() {
-        long nights = ChronoUnit.DAYS.between(checkInDate, checkOutDate);
-        double nightlyRate = room.getRoomType().getBasePrice();
-        
-        double additionalGuestFee = numberOfGuests > room.getRoomType().getMaxOccupancy() 
-            ? (numberOfGuests - room.getRoomType().getMaxOccupancy()) * 50.0 
-            : 0.0;
-        
-        this.totalCost = (nights * nightlyRate) + (nights * additionalGuestFee);
     }
 
     public String getReservationId() {
         return reservationId;
     }
 
+    public String getGuestName() {
+        return guestName;
+    }
+
+    public Room getRoom() {
+        return room;
+    }
+
+    public RoomType getRoomType() {
+        return roomType;
+    }
+
+    public boolean isAssigned() {
+        return room != null;
+    }
+
+    // What the console and reports show for the room.
+    public String getRoomLabel() {
+        return room != null ? room.getRoomNumber() : "unassigned";
+    }
+
+    public LocalDate getCheckInDate() {
+        return checkInDate;
+    }
+
+    public LocalDate getCheckOutDate() {
+        return checkOutDate;
+    }
+
+    public int getNumberOfGuests() {
+        return numberOfGuests;
+    }
+
     public double getTotalCost() {
-        return totalCost;
+        return totalCostCents / 100.0;
+    }
+
+    public long getTotalCostCents() {
+        return totalCostCents;
     }
 
     public void processPayment() {
         this.paymentStatus = PaymentStatus.PAID;
     }
 
+    public void cancel() {
+        this.paymentStatus = PaymentStatus.CANCELLED;
+    }
+
+    public boolean isCancelled() {
+        return paymentStatus == PaymentStatus.CANCELLED;
+    }
+
+    public boolean isPaid() {
+        return paymentStatus == PaymentStatus.PAID;
+    }
+
+    public boolean isPending() {
+        return paymentStatus == PaymentStatus.PENDING;
+    }
+
+    public PaymentStatus getPaymentStatus() {
+        return paymentStatus;
+    }
+
+    // Puts back the status a change replaced, when that change could not
+    // be journaled.
+    void restorePaymentStatus(PaymentStatus previous) {
+        this.paymentStatus = previous;
+    }
+
+    // A null room makes the reservation a booking of roomType again.
+    public void reschedule(Room room, RoomType roomType, LocalDate checkInDate, LocalDate checkOutDate, 
+                           long totalCostCents) {
+        this.room = room;
+        this.roomType = roomType;
+        this.checkInDate = checkInDate;
+        this.checkOutDate = checkOutDate;
+        this.totalCostCents = totalCostCents;
+    }
+
     public String getDetailsString() {
         return String.format(
             "Reservation ID: %s\n" +
@@ -115,132 +739,2390 @@ class Reservation {
             "Guests: %d\n" +
             "Total Cost: $%.2f\n" +
             "Payment Status: %s",
-            reservationId, guestName, room.getRoomNumber(), 
-            room.getRoomType(), checkInDate, checkOutDate, 
-            numberOfGuests, totalCost, paymentStatus
+            reservationId, guestName, getRoomLabel(), 
+            roomType, checkInDate, checkOutDate, 
+            numberOfGuests, getTotalCost(), paymentStatus
         );
     }
-}
 
-class HotelReservationSystem {
-    private ArrayList<Room> rooms;
-    private ArrayList<Reservation> reservations;
-    private Scanner scanner;
+    // Writes the same block as getDetailsString() straight into the report
+    // buffer, without building a formatted String per reservation.
+    public void printDetails(PrintWriter out) {
+        out.print("Reservation ID: ");
+        out.print(reservationId);
+        out.print("\nGuest: ");
+        out.print(guestName);
+        out.print("\nRoom: ");
+        out.print(getRoomLabel());
+        out.print(" (");
+        out.print(roomType);
+        out.print(")\nCheck-in: ");
+        out.print(checkInDate);
+        out.print("\nCheck-out: ");
+        out.print(checkOutDate);
+        out.print("\nGuests: ");
+        out.print(numberOfGuests);
+        out.print("\nTotal Cost: $");
+        printCents(out, totalCostCents);
+        out.print("\nPayment Status: ");
+        out.print(paymentStatus);
+        out.print('\n');
+    }
 
-    public HotelReservationSystem() {
-        rooms = new ArrayList<>();
-        reservations = new ArrayList<>();
-        scanner = new Scanner(System.in);
-        initializeRooms();
+    public void printCsvRow(PrintWriter out) {
+        out.print(reservationId);
+        out.print(',');
+        printCsvField(out, guestName);
+        out.print(',');
+        if (room != null) printCsvField(out, room.getRoomNumber());
+        out.print(',');
+        out.print(roomType);
+        out.print(',');
+        out.print(checkInDate);
+        out.print(',');
+        out.print(checkOutDate);
+        out.print(',');
+        out.print(numberOfGuests);
+        out.print(',');
+        printCents(out, totalCostCents);
+        out.print(',');
+        out.print(paymentStatus);
+        out.print('\n');
     }
 
-    private void initializeRooms() {
-        String[] roomNumbers = {"101", "102", "103", "104", "201", "202", "203", "204", 
-                                "301", "302", "303", "304", "401", "402", "403", "404"};
-        RoomType[] types = {RoomType.STANDARD, RoomType.DELUXE, 
-                            RoomType.SUITE, RoomType.EXECUTIVE};
+    public void printJson(PrintWriter out) {
+        out.print("{\"reservationId\":");
+        printJsonString(out, reservationId);
+        out.print(",\"guest\":");
+        printJsonString(out, guestName);
+        out.print(",\"room\":");
+        if (room != null) {
+            printJsonString(out, room.getRoomNumber());
+        } else {
+            out.print("null");
+        }
+        out.print(",\"roomType\":\"");
+        out.print(roomType);
+        out.print("\",\"checkIn\":\"");
+        out.print(checkInDate);
+        out.print("\",\"checkOut\":\"");
+        out.print(checkOutDate);
+        out.print("\",\"guests\":");
+        out.print(numberOfGuests);
+        out.print(",\"totalCost\":");
+        printCents(out, totalCostCents);
+        out.print(",\"paymentStatus\":\"");
+        out.print(paymentStatus);
+        out.print("\"}");
+    }
 
-        for (String roomNumber : roomNumbers) {
-            RoomType type = types[(int)(Math.random() * types.length)];
-            rooms.add(new Room(roomNumber, type));
+    static void printJsonString(PrintWriter out, String value) {
+        out.print('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                out.print('\\');
+                out.print(c);
+            } else if (c < 0x20) {
+                out.printf("\\u%04x", (int) c);
+            } else {
+                out.print(c);
+            }
         }
+        out.print('"');
     }
 
-    public void searchAvailableRooms() {
-        System.out.print("Enter check-in date (YYYY-MM-DD): ");
-        LocalDate checkIn = LocalDate.parse(scanner.nextLine());
-        
-        System.out.print("Enter check-out date (YYYY-MM-DD): ");
-        LocalDate checkOut = LocalDate.parse(scanner.nextLine());
-        
-        System.out.print("Number of guests: ");
-        int guests = scanner.nextInt();
-        scanner.nextLine();
+    static void printCents(PrintWriter out, long cents) {
+        out.print(cents / 100);
+        out.print(cents % 100 < 10 ? ".0" : ".");
+        out.print(cents % 100);
+    }
 
-        System.out.println("\nAvailable Rooms:");
-        boolean foundRooms = false;
+    private static void printCsvField(PrintWriter out, String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0) {
+            out.print(value);
+            return;
+        }
+        out.print('"');
+        out.print(value.replace("\"", "\"\""));
+        out.print('"');
+    }
+}
 
-        for (Room room : rooms) {
-            if (isRoomAvailable(room, checkIn, checkOut) && 
-                room.getRoomType().getMaxOccupancy() >= guests) {
-                System.out.printf("Room %s - Type: %s, Price: $%.2f/night, Max Occupancy: %d\n", 
-                    room.getRoomNumber(), 
-                    room.getRoomType(), 
-                    room.getRoomType().getBasePrice(),
-                    room.getRoomType().getMaxOccupancy()
-                );
-                foundRooms = true;
-            }
+// Room and reservation events, one text entry per line, next to a compact
+// snapshot of the whole state. The journal starts with a "JOURNAL|<generation>"
+// header and the snapshot with "SNAPSHOT|<generation>|<offset>": it covers
+// that journal generation up to the byte offset. Recovery loads the snapshot
+// and replays only the journal tail after it.
+class ReservationJournal {
+    private Path path;
+    private Path snapshotPath;
+    private FileChannel channel;
+    private long generation;
+    // Group commit: entries queue up in pending while one thread writes and
+    // forces the previous batch, and the next writer takes everything
+    // queued, so concurrent bookings share one fsync.
+    private ByteArrayOutputStream pending;
+    private long appendedSequence;
+    private long durableSequence;
+    private boolean flushing;
+    private IOException failure;
+    private String preamble;
+
+    public ReservationJournal(Path path, Path snapshotPath) {
+        this.path = path;
+        this.snapshotPath = snapshotPath;
+        this.pending = new ByteArrayOutputStream();
+        this.preamble = "";
+    }
+
+    public boolean exists() {
+        return Files.exists(path) || Files.exists(snapshotPath);
+    }
+
+    // Hands every snapshot entry and then every later journal entry to the
+    // handler. A last entry cut short by a crash is skipped; returns how many
+    // were, so the caller can report them.
+    public int replay(Consumer<String> handler) {
+        long snapshotGeneration = -1;
+        long snapshotOffset = 0;
+        int tornEntries = 0;
+        if (Files.exists(snapshotPath)) {
+            String[] header = readHeader(snapshotPath).split("\\|");
+            snapshotGeneration = Long.parseLong(header[1]);
+            snapshotOffset = Long.parseLong(header[2]);
+            if (readEntries(snapshotPath, 0, true, handler)) tornEntries++;
         }
 
-        if (!foundRooms) {
-            System.out.println("No rooms available matching your criteria.");
+        generation = snapshotGeneration + 1;
+        if (!Files.exists(path)) return tornEntries;
+
+        String header = readHeader(path);
+        // Journals written before snapshots existed have no header.
+        long journalGeneration = header.startsWith("JOURNAL|") ? Long.parseLong(header.substring(8)) : 0;
+        generation = journalGeneration;
+        if (journalGeneration == snapshotGeneration) {
+            if (readEntries(path, snapshotOffset, false, handler)) tornEntries++;
+        } else if (journalGeneration > snapshotGeneration) {
+            if (readEntries(path, 0, header.startsWith("JOURNAL|"), handler)) tornEntries++;
         }
+        return tornEntries;
     }
 
-    private boolean isRoomAvailable(Room room, LocalDate checkIn, LocalDate checkOut) {
-        for (Reservation reservation : reservations) {
-            if (reservation.getDetailsString().contains(room.getRoomNumber())) {
-                LocalDate existingCheckIn = LocalDate.parse(
-                    reservation.getDetailsString().split("\n")[3].split(": ")[1]);
-                LocalDate existingCheckOut = LocalDate.parse(
-                    reservation.getDetailsString().split("\n")[4].split(": ")[1]);
+    private static String readHeader(Path file) {
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String header = reader.readLine();
+            return header != null ? header : "";
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read " + file, e);
+        }
+    }
 
-                if (!(checkOut.isBefore(existingCheckIn) || checkIn.isAfter(existingCheckOut))) {
-                    return false;
+    // Returns whether the file ended in an incomplete entry.
+    private static boolean readEntries(Path file, long offset, boolean skipHeader, Consumer<String> handler) {
+        try (FileChannel input = FileChannel.open(file, StandardOpenOption.READ)) {
+            input.position(offset);
+            Reader reader = new InputStreamReader(Channels.newInputStream(input), StandardCharsets.UTF_8);
+            char[] buffer = new char[1 << 16];
+            StringBuilder entry = new StringBuilder();
+            boolean skip = skipHeader;
+            int read;
+            while ((read = reader.read(buffer)) > 0) {
+                int start = 0;
+                for (int i = 0; i < read; i++) {
+                    if (buffer[i] != '\n') continue;
+                    entry.append(buffer, start, i - start);
+                    if (!skip && entry.length() > 0) handler.accept(entry.toString());
+                    skip = false;
+                    entry.setLength(0);
+                    start = i + 1;
                 }
+                entry.append(buffer, start, read - start);
             }
+            return entry.length() > 0;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read " + file, e);
         }
-        return true;
     }
 
-    public void makeReservation() {
-        System.out.print("Enter your name: ");
-        String guestName = scanner.nextLine();
-        
-        System.out.print("Enter room number: ");
-        String roomNumber = scanner.nextLine();
-        
-        System.out.print("Enter check-in date (YYYY-MM-DD): ");
-        LocalDate checkIn = LocalDate.parse(scanner.nextLine());
-        
-        System.out.print("Enter check-out date (YYYY-MM-DD): ");
-        LocalDate checkOut = LocalDate.parse(scanner.nextLine());
-        
+    public void recordBooking(Reservation reservation) {
+        append(bookingEntry(reservation));
+    }
+
+    public void recordPayment(Reservation reservation) {
+        append(paymentEntry(reservation));
+    }
+
+    public void recordCancellation(Reservation reservation) {
+        append("CANCEL|" + reservation.getReservationId());
+    }
+
+    // Written before the reservation itself is changed, from the room (or,
+    // for a booking of a type, no room) and dates it is moving to.
+    public void recordChange(Reservation reservation, Room room, RoomType roomType, LocalDate checkIn, 
+                             LocalDate checkOut, long totalCostCents) {
+        append(changeEntry(reservation.getReservationId(), room, roomType, checkIn, checkOut, 
+            totalCostCents));
+    }
+
+    // Queued as one append, so a large batch costs a single fsync.
+    public void recordChanges(List<Reservation> changed) {
+        if (changed.isEmpty()) return;
+        StringBuilder entries = new StringBuilder();
+        for (Reservation reservation : changed) {
+            if (entries.length() > 0) entries.append('\n');
+            entries.append(changeEntry(reservation));
+        }
+        append(entries.toString());
+    }
+
+    static String roomEntry(Room room) {
+        return "ROOM|" + room.getRoomNumber() + "|" + room.getRoomType();
+    }
+
+    // A booking without a room is written as BOOKTYPE with its room type in
+    // place of the room number.
+    static String bookingEntry(Reservation reservation) {
+        return (reservation.isAssigned() ? "BOOK|" : "BOOKTYPE|") + reservation.getReservationId() + "|" + 
+            (reservation.isAssigned() ? reservation.getRoom().getRoomNumber() : reservation.getRoomType()) + "|" + 
+            reservation.getCheckInDate() + "|" + reservation.getCheckOutDate() + "|" + 
+            reservation.getNumberOfGuests() + "|" + reservation.getGuestName() + "|" + 
+            reservation.getTotalCostCents();
+    }
+
+    static String paymentEntry(Reservation reservation) {
+        return "PAY|" + reservation.getReservationId();
+    }
+
+    private static String changeEntry(Reservation reservation) {
+        return changeEntry(reservation.getReservationId(), reservation.getRoom(), reservation.getRoomType(), 
+            reservation.getCheckInDate(), reservation.getCheckOutDate(), reservation.getTotalCostCents());
+    }
+
+    private static String changeEntry(String reservationId, Room room, RoomType roomType, LocalDate checkIn, 
+                                      LocalDate checkOut, long totalCostCents) {
+        return (room != null ? "CHANGE|" : "CHANGETYPE|") + reservationId + "|" + 
+            (room != null ? room.getRoomNumber() : roomType) + "|" + 
+            checkIn + "|" + checkOut + "|" + totalCostCents;
+    }
+
+    // Returns once the entry has been forced to disk, so a confirmed booking
+    // survives a crash. A failed write or force leaves the file in an
+    // unknown state, so every later append fails too.
+    private void append(String entry) {
+        byte[] bytes = (entry + "\n").getBytes(StandardCharsets.UTF_8);
+        long sequence;
+        synchronized (this) {
+            pending.write(bytes, 0, bytes.length);
+            sequence = ++appendedSequence;
+        }
+
+        while (true) {
+            byte[] batch;
+            long batchEnd;
+            synchronized (this) {
+                while (flushing && durableSequence < sequence && failure == null) {
+                    awaitFlush();
+                }
+                if (durableSequence >= sequence) return;
+                if (failure != null) {
+                    throw new UncheckedIOException("Could not write journal " + path, failure);
+                }
+                flushing = true;
+                batch = pending.toByteArray();
+                pending.reset();
+                batchEnd = appendedSequence;
+            }
+
+            IOException error = null;
+            try {
+                writeFully(openChannel(), ByteBuffer.wrap(batch));
+                channel.force(false);
+            } catch (IOException e) {
+                error = e;
+            }
+
+            synchronized (this) {
+                flushing = false;
+                if (error == null) {
+                    durableSequence = batchEnd;
+                } else {
+                    failure = error;
+                }
+                notifyAll();
+            }
+        }
+    }
+
+    private void awaitFlush() {
+        try {
+            wait();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the journal", e);
+        }
+    }
+
+    private FileChannel openChannel() throws IOException {
+        if (channel == null) {
+            if (path.getParent() != null) {
+                Files.createDirectories(path.getParent());
+            }
+            channel = FileChannel.open(path, StandardOpenOption.CREATE, 
+                StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+            if (channel.size() == 0) {
+                writeFully(channel, ByteBuffer.wrap(("JOURNAL|" + generation + "\n" + preamble)
+                    .getBytes(StandardCharsets.UTF_8)));
+            }
+            preamble = "";
+        }
+        return channel;
+    }
+
+    // Entries written after the header when the journal file is created by
+    // the first append, such as a new property's room layout; a property
+    // that is never booked leaves no files behind.
+    public synchronized void startWith(List<String> entries) {
+        StringBuilder text = new StringBuilder();
+        for (String entry : entries) {
+            text.append(entry).append('\n');
+        }
+        preamble = text.toString();
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    public synchronized long getGeneration() {
+        return generation;
+    }
+
+    // Bytes written so far. Only meaningful while no append is in flight.
+    public synchronized long size() {
+        try {
+            return channel != null ? channel.size() : Files.exists(path) ? Files.size(path) : 0;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read journal " + path, e);
+        }
+    }
+
+    // Written next to the snapshot and renamed over it, so a crash leaves
+    // either the old snapshot or the new one.
+    public void writeSnapshot(long snapshotGeneration, long offset, List<String> entries) {
+        Path temporary = snapshotPath.resolveSibling(snapshotPath.getFileName() + ".tmp");
+        try (BufferedWriter out = Files.newBufferedWriter(temporary, StandardCharsets.UTF_8)) {
+            out.write("SNAPSHOT|" + snapshotGeneration + "|" + offset + "\n");
+            for (String entry : entries) {
+                out.write(entry);
+                out.write('\n');
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write snapshot " + snapshotPath, e);
+        }
+        forceAndReplace(temporary, snapshotPath);
+    }
+
+    // Starts the next journal generation with whatever was appended after
+    // offset, dropping everything the snapshot already covers. Callers make
+    // sure no append is in flight.
+    public synchronized void startNewGeneration(long offset) {
+        Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        try {
+            ByteBuffer tail = ByteBuffer.allocate(0);
+            if (Files.exists(path)) {
+                try (FileChannel input = FileChannel.open(path, StandardOpenOption.READ)) {
+                    tail = ByteBuffer.allocate((int) Math.max(0, input.size() - offset));
+                    while (tail.hasRemaining()) {
+                        if (input.read(tail, offset + tail.position()) < 0) break;
+                    }
+                }
+                // Only whole entries carry over.
+                int end = tail.position();
+                while (end > 0 && tail.get(end - 1) != '\n') end--;
+                tail.flip().limit(end);
+            }
+            close();
+            channel = null;
+            generation++;
+            try (FileChannel output = FileChannel.open(temporary, StandardOpenOption.CREATE, 
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                writeFully(output, ByteBuffer.wrap(("JOURNAL|" + generation + "\n")
+                    .getBytes(StandardCharsets.UTF_8)));
+                writeFully(output, tail);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not rewrite journal " + path, e);
+        }
+        forceAndReplace(temporary, path);
+    }
+
+    private static void forceAndReplace(Path temporary, Path target) {
+        try {
+            try (FileChannel written = FileChannel.open(temporary, StandardOpenOption.WRITE)) {
+                written.force(true);
+            }
+            Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING, 
+                StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not replace " + target, e);
+        }
+    }
+
+    public synchronized void close() {
+        if (channel == null) return;
+        try {
+            channel.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not close journal " + path, e);
+        }
+    }
+}
+
+// Proposed room for every future reservation of one room type, along with the
+// number of unsellable single-day gaps before and after applying it.
+class RoomAssignmentPlan {
+    private RoomType roomType;
+    private HashMap<Reservation, Room> assignments;
+    private int reassignedCount;
+    // Bookings of the type that get their first room, and those left
+    // without one because the type is overbooked on their dates.
+    private int assignedCount;
+    private int unplacedCount;
+    private int gapDaysBefore;
+    private int gapDaysAfter;
+
+    public RoomAssignmentPlan(RoomType roomType, HashMap<Reservation, Room> assignments, 
+                              int reassignedCount, int assignedCount, int unplacedCount, 
+                              int gapDaysBefore, int gapDaysAfter) {
+        this.roomType = roomType;
+        this.assignments = assignments;
+        this.reassignedCount = reassignedCount;
+        this.assignedCount = assignedCount;
+        this.unplacedCount = unplacedCount;
+        this.gapDaysBefore = gapDaysBefore;
+        this.gapDaysAfter = gapDaysAfter;
+    }
+
+    public RoomType getRoomType() {
+        return roomType;
+    }
+
+    public HashMap<Reservation, Room> getAssignments() {
+        return assignments;
+    }
+
+    public int getReassignedCount() {
+        return reassignedCount;
+    }
+
+    public int getAssignedCount() {
+        return assignedCount;
+    }
+
+    public int getUnplacedCount() {
+        return unplacedCount;
+    }
+
+    public int getGapDaysBefore() {
+        return gapDaysBefore;
+    }
+
+    public int getGapDaysAfter() {
+        return gapDaysAfter;
+    }
+}
+
+// A stay covered by two rooms of the same type, switching rooms on switchDate.
+class SplitStay {
+    private Room firstRoom;
+    private Room secondRoom;
+    private LocalDate switchDate;
+
+    public SplitStay(Room firstRoom, Room secondRoom, LocalDate switchDate) {
+        this.firstRoom = firstRoom;
+        this.secondRoom = secondRoom;
+        this.switchDate = switchDate;
+    }
+
+    public Room getFirstRoom() {
+        return firstRoom;
+    }
+
+    public Room getSecondRoom() {
+        return secondRoom;
+    }
+
+    public LocalDate getSwitchDate() {
+        return switchDate;
+    }
+}
+
+// What a room search found: the free rooms cheapest first with their stay
+// totals, and when nothing is free, the nearest dates that have a room and
+// a split stay across two rooms.
+class RoomSearchResult {
+    private List<Room> rooms;
+    private EnumMap<RoomType, Long> totalCostCents;
+    private List<LocalDate> alternativeCheckIns;
+    private SplitStay splitStay;
+
+    public RoomSearchResult(List<Room> rooms, EnumMap<RoomType, Long> totalCostCents, 
+                            List<LocalDate> alternativeCheckIns, SplitStay splitStay) {
+        this.rooms = Collections.unmodifiableList(rooms);
+        this.totalCostCents = totalCostCents;
+        this.alternativeCheckIns = Collections.unmodifiableList(alternativeCheckIns);
+        this.splitStay = splitStay;
+    }
+
+    public List<Room> getRooms() {
+        return rooms;
+    }
+
+    // Prices depend only on the room type, so one quote per type is kept.
+    public long getTotalCostCents(Room room) {
+        return totalCostCents.get(room.getRoomType());
+    }
+
+    public List<LocalDate> getAlternativeCheckIns() {
+        return alternativeCheckIns;
+    }
+
+    public SplitStay getSplitStay() {
+        return splitStay;
+    }
+}
+
+// Short-lived memo of room searches. Each entry remembers the days its
+// search looked at and is dropped as soon as a booking, cancellation or
+// move touches one of them, or after ttlMillis at the latest.
+//
+// A search that raced a booking must not store what it saw before the
+// booking: the booking bumps the stamp before dropping entries, and a
+// search re-checks the stamp it started with after storing its result.
+class SearchCache {
+    private long ttlNanos;
+    private int maxEntries;
+    private ConcurrentHashMap<String, Entry> entries;
+    private AtomicLong stamp;
+
+    private static class Entry {
+        final RoomSearchResult result;
+        final long firstDay;
+        final long lastDay;
+        final long expiresAtNanos;
+
+        Entry(RoomSearchResult result, long firstDay, long lastDay, long expiresAtNanos) {
+            this.result = result;
+            this.firstDay = firstDay;
+            this.lastDay = lastDay;
+            this.expiresAtNanos = expiresAtNanos;
+        }
+    }
+
+    public SearchCache(long ttlMillis, int maxEntries) {
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMillis);
+        this.maxEntries = maxEntries;
+        this.entries = new ConcurrentHashMap<>();
+        this.stamp = new AtomicLong();
+    }
+
+    public long stamp() {
+        return stamp.get();
+    }
+
+    public RoomSearchResult get(String key) {
+        Entry entry = entries.get(key);
+        if (entry == null) return null;
+        if (System.nanoTime() - entry.expiresAtNanos >= 0) {
+            entries.remove(key, entry);
+            return null;
+        }
+        return entry.result;
+    }
+
+    // Stores a result computed from the state seen at startStamp, covering
+    // the days from firstDay to lastDay.
+    public void put(String key, RoomSearchResult result, LocalDate firstDay, LocalDate lastDay, 
+                    long startStamp) {
+        Entry entry = new Entry(result, firstDay.toEpochDay(), lastDay.toEpochDay(), 
+            System.nanoTime() + ttlNanos);
+        entries.put(key, entry);
+        if (stamp.get() != startStamp) {
+            entries.remove(key, entry);
+            return;
+        }
+        if (entries.size() > maxEntries) {
+            evict();
+        }
+    }
+
+    public void invalidate(LocalDate checkIn, LocalDate checkOut) {
+        stamp.incrementAndGet();
+        long first = checkIn.toEpochDay();
+        long last = checkOut.toEpochDay();
+        entries.values().removeIf(entry -> entry.firstDay <= last && entry.lastDay >= first);
+    }
+
+    public void clear() {
+        stamp.incrementAndGet();
+        entries.clear();
+    }
+
+    // Expired entries go first; if that is not enough, arbitrary ones do
+    // until a quarter of the room is free again.
+    private void evict() {
+        long now = System.nanoTime();
+        entries.values().removeIf(entry -> now - entry.expiresAtNanos >= 0);
+        for (String key : entries.keySet()) {
+            if (entries.size() <= maxEntries * 3 / 4) break;
+            entries.remove(key);
+        }
+    }
+}
+
+interface PaymentGateway {
+    // Completes with one approval flag per reservation, in the same order.
+    CompletableFuture<List<Boolean>> authorize(List<Reservation> batch);
+}
+
+class SimulatedPaymentGateway implements PaymentGateway {
+    private long latencyMillis;
+    private double failureRate;
+    private Random random;
+
+    public SimulatedPaymentGateway(long latencyMillis, double failureRate) {
+        this.latencyMillis = latencyMillis;
+        this.failureRate = failureRate;
+        this.random = new Random();
+    }
+
+    @Override
+    public CompletableFuture<List<Boolean>> authorize(List<Reservation> batch) {
+        return CompletableFuture.supplyAsync(() -> {
+            ArrayList<Boolean> approvals = new ArrayList<>(batch.size());
+            for (int i = 0; i < batch.size(); i++) {
+                approvals.add(random.nextDouble() >= failureRate);
+            }
+            return approvals;
+        }, CompletableFuture.delayedExecutor(latencyMillis, TimeUnit.MILLISECONDS));
+    }
+}
+
+// Collects authorization requests and sends them to the gateway in batches,
+// either when a batch fills up or on the next flush tick. Callers get a
+// future and never wait on the gateway themselves.
+class PaymentProcessor {
+    // Flushing only hands a batch to the gateway, so one thread serves every
+    // processor in the process.
+    private static final ScheduledExecutorService FLUSHER = 
+        Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "payment-batcher");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+    private PaymentGateway gateway;
+    private int maxBatchSize;
+    private ArrayList<Reservation> pendingReservations;
+    private ArrayList<CompletableFuture<Boolean>> pendingResults;
+    private ScheduledFuture<?> flushTask;
+
+    public PaymentProcessor(PaymentGateway gateway, int maxBatchSize, long flushIntervalMillis) {
+        this.gateway = gateway;
+        this.maxBatchSize = maxBatchSize;
+        this.pendingReservations = new ArrayList<>();
+        this.pendingResults = new ArrayList<>();
+        this.flushTask = FLUSHER.scheduleAtFixedRate(this::flush, flushIntervalMillis, 
+            flushIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public synchronized CompletableFuture<Boolean> submit(Reservation reservation) {
+        CompletableFuture<Boolean> result = new CompletableFuture<>();
+        pendingReservations.add(reservation);
+        pendingResults.add(result);
+        if (pendingReservations.size() >= maxBatchSize) {
+            flush();
+        }
+        return result;
+    }
+
+    private synchronized void flush() {
+        if (pendingReservations.isEmpty()) return;
+
+        List<Reservation> batch = pendingReservations;
+        List<CompletableFuture<Boolean>> results = pendingResults;
+        pendingReservations = new ArrayList<>();
+        pendingResults = new ArrayList<>();
+
+        CompletableFuture<List<Boolean>> authorized;
+        try {
+            authorized = gateway.authorize(batch);
+        } catch (RuntimeException e) {
+            authorized = CompletableFuture.failedFuture(e);
+        }
+        authorized.whenComplete((approvals, error) -> complete(results, approvals, error));
+    }
+
+    // Every caller gets an answer: a gateway that failed, or that answered
+    // for fewer reservations than it was sent, fails the ones left over.
+    private static void complete(List<CompletableFuture<Boolean>> results, List<Boolean> approvals, 
+                                 Throwable error) {
+        int answered = error == null && approvals != null ? approvals.size() : 0;
+        for (int i = 0; i < results.size(); i++) {
+            Boolean approved = i < answered ? approvals.get(i) : null;
+            if (approved != null) {
+                results.get(i).complete(approved);
+            } else {
+                results.get(i).completeExceptionally(error != null ? error 
+                    : new IllegalStateException("Payment gateway returned no answer for request " + i));
+            }
+        }
+    }
+
+    public void shutdown() {
+        flushTask.cancel(false);
+        flush();
+    }
+}
+
+// Log-linear latency histogram in the style of HdrHistogram: values below
+// 32 ns get a bucket each, and every power of two above that is split into
+// 32 equal sub-buckets, so a reported percentile is within 1/32 (about 3%)
+// of the true value at any scale. Recording is a LongAdder increment plus
+// one atomic add, with no locking.
+class OperationTimer {
+    private static final int SUB_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+    private static final int BUCKETS = (64 - SUB_BITS) * SUB_BUCKETS;
+
+    private String name;
+    private LongAdder count;
+    private LongAdder totalNanos;
+    private AtomicLongArray buckets;
+
+    public OperationTimer(String name) {
+        this.name = name;
+        this.count = new LongAdder();
+        this.totalNanos = new LongAdder();
+        this.buckets = new AtomicLongArray(BUCKETS);
+    }
+
+    public void record(long startNanos) {
+        long elapsed = Math.max(1, System.nanoTime() - startNanos);
+        count.increment();
+        totalNanos.add(elapsed);
+        buckets.incrementAndGet(bucketOf(elapsed));
+    }
+
+    // The top SUB_BITS bits below the leading one pick the sub-bucket.
+    static int bucketOf(long nanos) {
+        if (nanos < SUB_BUCKETS) return (int) nanos;
+        int exponent = 63 - Long.numberOfLeadingZeros(nanos);
+        int subBucket = (int) (nanos >>> (exponent - SUB_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BITS + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    // Largest value that falls into the given bucket.
+    static long upperBoundOf(int bucket) {
+        if (bucket < SUB_BUCKETS) return bucket;
+        int shift = bucket / SUB_BUCKETS - 1;
+        long lowerBound = (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << shift;
+        return lowerBound + (1L << shift) - 1;
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    // Upper bound of the bucket holding the given percentile.
+    public long percentileNanos(double percent) {
+        long total = count.sum();
+        long threshold = (long) Math.ceil(total * percent / 100);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += buckets.get(i);
+            if (seen >= threshold && seen > 0) {
+                return upperBoundOf(i);
+            }
+        }
+        return 0;
+    }
+
+    public void print(PrintWriter out) {
+        long total = count.sum();
+        out.printf("%s.count %d\n", name, total);
+        out.printf("%s.mean_us %.1f\n", name, total == 0 ? 0.0 : totalNanos.sum() / 1000.0 / total);
+        out.printf("%s.p50_us %.1f\n", name, percentileNanos(50) / 1000.0);
+        out.printf("%s.p99_us %.1f\n", name, percentileNanos(99) / 1000.0);
+        out.printf("%s.p999_us %.1f\n", name, percentileNanos(99.9) / 1000.0);
+    }
+}
+
+@Name("hotel.RoomSearch")
+@Label("Room Search")
+@Category("Hotel Reservation System")
+class RoomSearchEvent extends Event {
+    @Label("Guests")
+    int guests;
+
+    @Label("Nights")
+    long nights;
+
+    @Label("Rooms Found")
+    int roomsFound;
+
+    static RoomSearchEvent started() {
+        RoomSearchEvent event = new RoomSearchEvent();
+        event.begin();
+        return event;
+    }
+
+    void commitIfEnabled(int guests, long nights, int roomsFound) {
+        end();
+        if (!shouldCommit()) return;
+        this.guests = guests;
+        this.nights = nights;
+        this.roomsFound = roomsFound;
+        commit();
+    }
+}
+
+@Name("hotel.Booking")
+@Label("Booking")
+@Category("Hotel Reservation System")
+class BookingEvent extends Event {
+    @Label("Room")
+    String roomNumber;
+
+    @Label("Nights")
+    long nights;
+
+    @Label("Booked")
+    boolean booked;
+
+    static BookingEvent started() {
+        BookingEvent event = new BookingEvent();
+        event.begin();
+        return event;
+    }
+
+    void commitIfEnabled(String roomNumber, long nights, boolean booked) {
+        end();
+        if (!shouldCommit()) return;
+        this.roomNumber = roomNumber;
+        this.nights = nights;
+        this.booked = booked;
+        commit();
+    }
+}
+
+// Metrics are on unless the JVM is started with -Dhotel.metrics=false; the
+// flag is a static final, so disabled checks are folded away by the JIT.
+// Each property keeps its own counters, so a chain reports per property.
+class HotelMetrics {
+    static final boolean ENABLED = !"false".equals(System.getProperty("hotel.metrics"));
+
+    final OperationTimer searches = new OperationTimer("search");
+    final OperationTimer bookings = new OperationTimer("booking");
+    final OperationTimer payments = new OperationTimer("payment");
+    final LongAdder availabilityChecks = new LongAdder();
+    final LongAdder bookingConflicts = new LongAdder();
+    final LongAdder cancellations = new LongAdder();
+    final LongAdder paymentsDeclined = new LongAdder();
+    final LongAdder searchCacheHits = new LongAdder();
+    final LongAdder searchCacheMisses = new LongAdder();
+    private final long startedNanos = System.nanoTime();
+    private HotelReservationSystem system;
+
+    public HotelMetrics(HotelReservationSystem system) {
+        this.system = system;
+    }
+
+    public interface MetricsMBean {
+        long getSearchCount();
+        long getBookingCount();
+        long getBookingConflictCount();
+        long getCancellationCount();
+        long getPaymentsDeclinedCount();
+        long getSearchCacheHitCount();
+        long getSearchP99Micros();
+        long getBookingP99Micros();
+        double getOccupancyPercent();
+        String dump();
+    }
+
+    class Metrics implements MetricsMBean {
+        public long getSearchCount() {
+            return searches.getCount();
+        }
+
+        public long getBookingCount() {
+            return bookings.getCount();
+        }
+
+        public long getBookingConflictCount() {
+            return bookingConflicts.sum();
+        }
+
+        public long getCancellationCount() {
+            return cancellations.sum();
+        }
+
+        public long getPaymentsDeclinedCount() {
+            return paymentsDeclined.sum();
+        }
+
+        public long getSearchCacheHitCount() {
+            return searchCacheHits.sum();
+        }
+
+        public long getSearchP99Micros() {
+            return searches.percentileNanos(99) / 1000;
+        }
+
+        public long getBookingP99Micros() {
+            return bookings.percentileNanos(99) / 1000;
+        }
+
+        public double getOccupancyPercent() {
+            return system.getOccupancyPercent(LocalDate.now());
+        }
+
+        public String dump() {
+            StringWriter text = new StringWriter();
+            try (PrintWriter out = new PrintWriter(text)) {
+                print(out);
+            }
+            return text.toString();
+        }
+    }
+
+    public void register() {
+        if (!ENABLED) return;
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(new Metrics(), objectName());
+        } catch (JMException e) {
+            System.out.println("Could not register metrics MBean: " + e.getMessage());
+        }
+    }
+
+    public void unregister() {
+        if (!ENABLED) return;
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName());
+        } catch (JMException e) {
+            System.out.println("Could not unregister metrics MBean: " + e.getMessage());
+        }
+    }
+
+    private ObjectName objectName() throws JMException {
+        return new ObjectName("codealpha.hotel:type=Metrics,property=" + 
+            ObjectName.quote(system.getPropertyName()));
+    }
+
+    public static long start() {
+        return ENABLED ? System.nanoTime() : 0;
+    }
+
+    public void print(PrintWriter out) {
+        if (!ENABLED) {
+            out.println("Metrics are disabled (-Dhotel.metrics=false).");
+            return;
+        }
+        searches.print(out);
+        bookings.print(out);
+        payments.print(out);
+        out.printf("availability_checks %d\n", availabilityChecks.sum());
+        out.printf("booking_conflicts %d\n", bookingConflicts.sum());
+        out.printf("cancellations %d\n", cancellations.sum());
+        out.printf("payments_declined %d\n", paymentsDeclined.sum());
+        out.printf("search_cache_hits %d\n", searchCacheHits.sum());
+        out.printf("search_cache_misses %d\n", searchCacheMisses.sum());
+        out.printf("journal_entries_skipped %d\n", system.getSkippedJournalEntries());
+        out.printf("journal_entries_torn %d\n", system.getTornJournalEntries());
+
+        double minutes = (System.nanoTime() - startedNanos) / 60_000_000_000.0;
+        out.printf("bookings_per_minute %.2f\n", bookings.getCount() / Math.max(minutes, 1e-9));
+        out.printf("occupancy_tonight_percent %.1f\n", system.getOccupancyPercent(LocalDate.now()));
+    }
+}
+
+// Headless HTTP front end over the same thread-safe core the console uses.
+// Each request is handled on its own pooled thread and responses are
+// streamed as chunked JSON rather than built up in memory first.
+class HotelHttpService {
+    private HotelReservationSystem system;
+    private HttpServer server;
+    private ExecutorService executor;
+
+    public HotelHttpService(HotelReservationSystem system, int port) throws IOException {
+        this.system = system;
+        this.server = HttpServer.create(new InetSocketAddress(port), 1024);
+        server.createContext("/rooms", this::handleRooms);
+        server.createContext("/reservations", this::handleReservations);
+        server.createContext("/metrics", this::handleMetrics);
+        executor = Executors.newCachedThreadPool();
+        server.setExecutor(executor);
+    }
+
+    public void start() {
+        server.start();
+        System.out.println("Hotel Reservation System listening on port " + 
+            server.getAddress().getPort());
+    }
+
+    // Stops accepting requests and lets the ones in flight finish.
+    public void stop() {
+        server.stop(1);
+        executor.shutdown();
+    }
+
+    private void handleRooms(HttpExchange exchange) throws IOException {
+        try {
+            if (!exchange.getRequestMethod().equals("GET")) {
+                sendError(exchange, 405, "Use GET");
+                return;
+            }
+            Map<String, String> query = parseQuery(exchange);
+            LocalDate checkIn = LocalDate.parse(required(query, "checkIn"));
+            LocalDate checkOut = LocalDate.parse(required(query, "checkOut"));
+            int guests = Integer.parseInt(query.getOrDefault("guests", "1"));
+            RoomType roomType = query.containsKey("roomType") 
+                ? RoomType.valueOf(query.get("roomType").toUpperCase(Locale.ROOT)) : null;
+
+            // Cheapest first, the same order the console lists them in.
+            RoomSearchResult result = system.searchRooms(checkIn, checkOut, guests, roomType);
+            List<Room> available = result.getRooms();
+            try (PrintWriter out = openJsonResponse(exchange, 200)) {
+                out.print('[');
+                for (int i = 0; i < available.size(); i++) {
+                    Room room = available.get(i);
+                    if (i > 0) out.print(',');
+                    out.print("{\"roomNumber\":");
+                    Reservation.printJsonString(out, room.getRoomNumber());
+                    out.print(",\"roomType\":\"");
+                    out.print(room.getRoomType());
+                    out.print("\",\"maxOccupancy\":");
+                    out.print(room.getRoomType().getMaxOccupancy());
+                    out.print(",\"totalCost\":");
+                    Reservation.printCents(out, result.getTotalCostCents(room));
+                    out.print('}');
+                }
+                out.print(']');
+            }
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            sendError(exchange, 400, e.getMessage());
+        } catch (RuntimeException e) {
+            sendServerError(exchange, e);
+        }
+    }
+
+    private void handleReservations(HttpExchange exchange) throws IOException {
+        try {
+            Map<String, String> query = parseQuery(exchange);
+
+            switch (exchange.getRequestMethod()) {
+                case "GET":
+                    List<Reservation> found = query.containsKey("guest") 
+                        ? system.findReservationsByGuest(query.get("guest")) 
+                        : system.listReservations();
+                    try (PrintWriter out = openJsonResponse(exchange, 200)) {
+                        out.print('[');
+                        for (int i = 0; i < found.size(); i++) {
+                            if (i > 0) out.print(',');
+                            found.get(i).printJson(out);
+                        }
+                        out.print(']');
+                    }
+                    break;
+                case "POST":
+                    String guest = required(query, "guest");
+                    LocalDate checkIn = LocalDate.parse(required(query, "checkIn"));
+                    LocalDate checkOut = LocalDate.parse(required(query, "checkOut"));
+                    int guests = Integer.parseInt(query.getOrDefault("guests", "1"));
+                    Reservation reservation = query.containsKey("roomType") 
+                        ? system.bookRoomType(guest, 
+                            RoomType.valueOf(query.get("roomType").toUpperCase(Locale.ROOT)), 
+                            checkIn, checkOut, guests) 
+                        : system.bookRoom(guest, required(query, "room"), 
+                            checkIn, checkOut, guests);
+                    if (reservation == null) {
+                        sendError(exchange, 409, "Room is not available for selected dates");
+                        return;
+                    }
+                    if (!system.authorizePayment(reservation).join()) {
+                        sendError(exchange, 402, "Payment failed");
+                        return;
+                    }
+                    try (PrintWriter out = openJsonResponse(exchange, 201)) {
+                        reservation.printJson(out);
+                    }
+                    break;
+                case "DELETE":
+                    if (!system.cancelReservation(required(query, "id"))) {
+                        sendError(exchange, 404, "No active reservation with that ID");
+                        return;
+                    }
+                    try (PrintWriter out = openJsonResponse(exchange, 200)) {
+                        out.print("{\"cancelled\":true}");
+                    }
+                    break;
+                default:
+                    sendError(exchange, 405, "Use GET, POST or DELETE");
+            }
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            sendError(exchange, 400, e.getMessage());
+        } catch (RuntimeException e) {
+            sendServerError(exchange, e);
+        }
+    }
+
+    private void handleMetrics(HttpExchange exchange) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "text/plain");
+        exchange.sendResponseHeaders(200, 0);
+        try (PrintWriter out = new PrintWriter(new OutputStreamWriter(
+                exchange.getResponseBody(), StandardCharsets.UTF_8))) {
+            system.getMetrics().print(out);
+        }
+    }
+
+    private static Map<String, String> parseQuery(HttpExchange exchange) {
+        HashMap<String, String> query = new HashMap<>();
+        String rawQuery = exchange.getRequestURI().getRawQuery();
+        if (rawQuery == null) return query;
+
+        for (String pair : rawQuery.split("&")) {
+            int equals = pair.indexOf('=');
+            if (equals <= 0) continue;
+            query.put(URLDecoder.decode(pair.substring(0, equals), StandardCharsets.UTF_8), 
+                URLDecoder.decode(pair.substring(equals + 1), StandardCharsets.UTF_8));
+        }
+        return query;
+    }
+
+    private static String required(Map<String, String> query, String name) {
+        String value = query.get(name);
+        if (value == null || value.isEmpty()) {
+            throw new IllegalArgumentException("Missing parameter: " + name);
+        }
+        return value;
+    }
+
+    private static PrintWriter openJsonResponse(HttpExchange exchange, int status) 
+            throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, 0);
+        return new PrintWriter(new BufferedWriter(
+            new OutputStreamWriter(exchange.getResponseBody(), StandardCharsets.UTF_8), 1 << 13));
+    }
+
+    private static void sendError(HttpExchange exchange, int status, String message) 
+            throws IOException {
+        try (PrintWriter out = openJsonResponse(exchange, status)) {
+            out.print("{\"error\":");
+            Reservation.printJsonString(out, String.valueOf(message));
+            out.print('}');
+        }
+    }
+
+    // Anything else is a fault on this side, such as a journal that could
+    // not be written. If the response had already started, the client only
+    // sees it cut short; either way the exchange is closed.
+    private static void sendServerError(HttpExchange exchange, RuntimeException error) {
+        try {
+            sendError(exchange, 500, "Internal error: " + error.getMessage());
+        } catch (IOException | RuntimeException e) {
+            // The response was already under way.
+        } finally {
+            exchange.close();
+        }
+    }
+}
+
+// Routes requests across independent properties. Each property is its own
+// HotelReservationSystem with its own rooms, indexes, locks and journal, so
+// a booking only ever touches its own shard; searches fan out in parallel.
+class HotelChain {
+    private LinkedHashMap<String, HotelReservationSystem> properties;
+
+    // Each property keeps its files in its own subdirectory of dataDirectory.
+    public HotelChain(Path dataDirectory, List<String> propertyNames) {
+        properties = new LinkedHashMap<>();
+        for (String propertyName : propertyNames) {
+            properties.put(propertyName, 
+                new HotelReservationSystem(propertyName, dataDirectory.resolve(propertyName)));
+        }
+    }
+
+    public HotelReservationSystem getProperty(String propertyName) {
+        return properties.get(propertyName);
+    }
+
+    // Results are keyed by property in configuration order.
+    public Map<String, List<Room>> findAvailableRooms(LocalDate checkIn, LocalDate checkOut, 
+                                                      int guests) {
+        List<List<Room>> results = properties.values().parallelStream()
+            .map(property -> property.findAvailableRooms(checkIn, checkOut, guests))
+            .collect(Collectors.toList());
+
+        LinkedHashMap<String, List<Room>> byProperty = new LinkedHashMap<>();
+        int i = 0;
+        for (String propertyName : properties.keySet()) {
+            byProperty.put(propertyName, results.get(i++));
+        }
+        return byProperty;
+    }
+
+    public Reservation bookRoom(String propertyName, String guestName, String roomNumber, 
+                                LocalDate checkIn, LocalDate checkOut, int guests) {
+        HotelReservationSystem property = properties.get(propertyName);
+        return property == null ? null 
+            : property.bookRoom(guestName, roomNumber, checkIn, checkOut, guests);
+    }
+}
+
+class HotelReservationSystem {
+    private static final long PAYMENT_HOLD_SECONDS = 30;
+    private static final int ALTERNATIVE_SEARCH_DAYS = 7;
+    private static final int ALTERNATIVE_LIMIT = 3;
+    private static final long SEARCH_CACHE_TTL_MILLIS = 5_000;
+    private static final int SEARCH_CACHE_ENTRIES = 4096;
+    // Rooms the optimizer's local search tries for a stay beyond the ones it
+    // would sit back to back with.
+    private static final int RELOCATION_SCAN_ROOMS = 64;
+    // The hourly maintenance run snapshots the state once the journal tail
+    // has grown past this.
+    private static final long COMPACT_JOURNAL_BYTES = 4 << 20;
+    // How far ahead the occupancy calendar reaches; searches beyond it fall
+    // back to checking each room.
+    private static final int OCCUPANCY_HORIZON_DAYS = Integer.getInteger("hotel.horizonDays", 366);
+    // One thread runs maintenance and payment hold expiry for every property
+    // in the process.
+    private static final ScheduledExecutorService ARCHIVER = 
+        Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "reservation-archiver");
+            thread.setDaemon(true);
+            return thread;
+        });
+    private String propertyName;
+
+    private ArrayList<Room> rooms;
+    private HashMap<String, Room> roomsByNumber;
+    private EnumMap<RoomType, ArrayList<Room>> roomsByType;
+    private OccupancyCalendar occupancy;
+    private SearchCache searchCache;
+    private List<Reservation> reservations;
+    // Every change to room bookings holds the read lock, so bookings still run
+    // in parallel; whole-inventory jobs such as the optimizer take the write
+    // lock and see no booking half-way between its room and the indexes.
+    private ReentrantReadWriteLock inventoryLock;
+    // Secondary indexes, only changed while holding the reservations lock.
+    private HashMap<String, Reservation> reservationsById;
+    private HashMap<String, ArrayList<Reservation>> reservationsByGuest;
+    private TreeMap<LocalDate, ArrayList<Reservation>> reservationsByCheckIn;
+    private TreeMap<LocalDate, ArrayList<Reservation>> reservationsByCheckOut;
+    // Cancelled and checked-out reservations, moved out of the hot set above.
+    private HashMap<String, Reservation> archivedReservations;
+    // Cancelled but not yet journaled; archiving waits for these, as a
+    // failed write puts them back in the hot set.
+    private HashSet<Reservation> cancellationsInFlight;
+    private ScheduledFuture<?> maintenanceTask;
+    // Expiry of each reservation whose payment is being authorized; the hold
+    // goes away once the payment is captured or the booking cancelled.
+    private ConcurrentHashMap<Reservation, ScheduledFuture<?>> paymentHolds;
+    private PaymentProcessor paymentProcessor;
+    private ReservationJournal journal;
+    private HotelMetrics metrics;
+    // What the last startup replay had to leave out: entries that could not
+    // be applied, and entries a crash cut short.
+    private int skippedJournalEntries;
+    private int tornJournalEntries;
+    // Only created when the console runs; properties served over HTTP or
+    // through a HotelChain never read standard input.
+    private Scanner scanner;
+
+    public HotelReservationSystem() {
+        this("hotel");
+    }
+
+    // Keeps its files in the working directory.
+    public HotelReservationSystem(String propertyName) {
+        this(propertyName, Paths.get(""));
+    }
+
+    // Rooms come from <propertyName>_rooms.txt in dataDirectory on first
+    // start. Bookings are journaled to <propertyName>_reservations.journal
+    // there, which is folded into <propertyName>_reservations.snapshot on
+    // startup and as it grows. Nothing is written until the first booking.
+    public HotelReservationSystem(String propertyName, Path dataDirectory) {
+        this.propertyName = propertyName;
+        rooms = new ArrayList<>();
+        roomsByNumber = new HashMap<>();
+        roomsByType = new EnumMap<>(RoomType.class);
+        occupancy = new OccupancyCalendar(LocalDate.now(), OCCUPANCY_HORIZON_DAYS);
+        for (RoomType type : RoomType.values()) {
+            occupancy.setOverbooking(type, Integer.getInteger("hotel.overbooking." + type, 0));
+        }
+        searchCache = new SearchCache(SEARCH_CACHE_TTL_MILLIS, SEARCH_CACHE_ENTRIES);
+        reservations = Collections.synchronizedList(new ArrayList<>());
+        inventoryLock = new ReentrantReadWriteLock();
+        reservationsById = new HashMap<>();
+        reservationsByGuest = new HashMap<>();
+        reservationsByCheckIn = new TreeMap<>();
+        reservationsByCheckOut = new TreeMap<>();
+        archivedReservations = new HashMap<>();
+        cancellationsInFlight = new HashSet<>();
+        paymentHolds = new ConcurrentHashMap<>();
+        paymentProcessor = new PaymentProcessor(new SimulatedPaymentGateway(200, 0.0), 64, 10);
+        metrics = new HotelMetrics(this);
+        journal = new ReservationJournal(dataDirectory.resolve(propertyName + "_reservations.journal"), 
+            dataDirectory.resolve(propertyName + "_reservations.snapshot"));
+
+        if (journal.exists()) {
+            replayJournal();
+            compactJournal();
+        } else {
+            initializeRooms(dataDirectory.resolve(propertyName + "_rooms.txt"));
+            ArrayList<String> layout = new ArrayList<>();
+            for (Room room : rooms) {
+                layout.add(ReservationJournal.roomEntry(room));
+            }
+            journal.startWith(layout);
+        }
+
+        maintenanceTask = ARCHIVER.scheduleAtFixedRate(this::runMaintenance, 0, 1, TimeUnit.HOURS);
+        metrics.register();
+    }
+
+    private void replayJournal() {
+        tornJournalEntries = journal.replay(entry -> {
+            boolean applied;
+            try {
+                applied = replayEntry(entry);
+            } catch (RuntimeException e) {
+                applied = false;
+            }
+            if (!applied) skippedJournalEntries++;
+        });
+
+        // Room bookings are rebuilt from the final state rather than replayed
+        // step by step, since a batch of room swaps is only consistent as a whole.
+        for (Reservation reservation : reservations) {
+            if (!reservation.isCancelled()) {
+                occupyStay(reservation);
+            }
+        }
+    }
+
+    // Returns false for an entry that refers to an unknown room or
+    // reservation, or is of an unknown kind, and so was not applied.
+    private boolean replayEntry(String entry) {
+        String[] fields = entry.split("\\|", 7);
+        if (fields[0].equals("ROOM")) {
+            addRoom(new Room(fields[1], RoomType.valueOf(fields[2])));
+            return true;
+        }
+        if (fields[0].equals("BOOK")) {
+            Room room = findRoom(fields[2]);
+            if (room == null) {
+                return false;
+            }
+            // Entries written before prices were journaled end with the name
+            // and are priced again from the rate tables.
+            String guestName = fields[6];
+            LocalDate checkIn = LocalDate.parse(fields[3]);
+            LocalDate checkOut = LocalDate.parse(fields[4]);
+            int guests = Integer.parseInt(fields[5]);
+            int price = guestName.lastIndexOf('|');
+            addReservation(price < 0 
+                ? new Reservation(fields[1], guestName, room, checkIn, checkOut, guests) 
+                : new Reservation(fields[1], guestName.substring(0, price), room, checkIn, checkOut, 
+                    guests, Long.parseLong(guestName.substring(price + 1))));
+            return true;
+        }
+        if (fields[0].equals("BOOKTYPE")) {
+            String guestName = fields[6];
+            int price = guestName.lastIndexOf('|');
+            addReservation(new Reservation(fields[1], guestName.substring(0, price), 
+                RoomType.valueOf(fields[2]), LocalDate.parse(fields[3]), LocalDate.parse(fields[4]), 
+                Integer.parseInt(fields[5]), Long.parseLong(guestName.substring(price + 1))));
+            return true;
+        }
+
+        Reservation reservation = findReservation(fields[1]);
+        if (reservation == null) {
+            return false;
+        }
+        switch (fields[0]) {
+            case "PAY":
+                reservation.processPayment();
+                break;
+            case "CANCEL":
+                reservation.cancel();
+                break;
+            case "CHANGE":
+                Room room = findRoom(fields[2]);
+                if (room == null) {
+                    return false;
+                }
+                LocalDate checkIn = LocalDate.parse(fields[3]);
+                LocalDate checkOut = LocalDate.parse(fields[4]);
+                applyChange(reservation, room, room.getRoomType(), checkIn, checkOut, fields.length > 5 
+                    ? Long.parseLong(fields[5]) 
+                    : PricingEngine.quoteCents(room.getRoomType(), checkIn, checkOut, 
+                        reservation.getNumberOfGuests()));
+                break;
+            case "CHANGETYPE":
+                applyChange(reservation, null, RoomType.valueOf(fields[2]), LocalDate.parse(fields[3]), 
+                    LocalDate.parse(fields[4]), Long.parseLong(fields[5]));
+                break;
+            default:
+                return false;
+        }
+        return true;
+    }
+
+    // Writes the current state as a snapshot and starts a new journal with
+    // only what was appended meanwhile. The state is copied under the write
+    // lock, but the snapshot itself is written while bookings carry on.
+    private void compactJournal() {
+        ArrayList<String> entries = new ArrayList<>();
+        long generation;
+        long offset;
+        inventoryLock.writeLock().lock();
+        try {
+            for (Room room : rooms) {
+                entries.add(ReservationJournal.roomEntry(room));
+            }
+            synchronized (reservations) {
+                for (Reservation reservation : archivedReservations.values()) {
+                    addSnapshotEntries(entries, reservation);
+                }
+                for (Reservation reservation : reservations) {
+                    addSnapshotEntries(entries, reservation);
+                }
+            }
+            generation = journal.getGeneration();
+            offset = journal.size();
+        } finally {
+            inventoryLock.writeLock().unlock();
+        }
+
+        journal.writeSnapshot(generation, offset, entries);
+
+        inventoryLock.writeLock().lock();
+        try {
+            journal.startNewGeneration(offset);
+        } finally {
+            inventoryLock.writeLock().unlock();
+        }
+    }
+
+    // Cancelled stays are dropped; everything else is written as it stands now.
+    private static void addSnapshotEntries(List<String> entries, Reservation reservation) {
+        if (reservation.isCancelled()) return;
+        entries.add(ReservationJournal.bookingEntry(reservation));
+        if (reservation.isPaid()) {
+            entries.add(ReservationJournal.paymentEntry(reservation));
+        }
+    }
+
+    public String getPropertyName() {
+        return propertyName;
+    }
+
+    // Each non-blank line of the layout file is "roomNumber,ROOM_TYPE";
+    // lines starting with '#' are comments. The whole file is checked
+    // before any room is added, and a bad line is reported by its number.
+    private void initializeRooms(Path layoutPath) {
+        if (!Files.exists(layoutPath)) {
+            initializeRooms();
+            return;
+        }
+
+        List<String> lines;
+        try {
+            lines = Files.readAllLines(layoutPath, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read room layout " + layoutPath, e);
+        }
+
+        LinkedHashMap<String, Room> layout = new LinkedHashMap<>();
+        for (int i = 0; i < lines.size(); i++) {
+            String line = lines.get(i).trim();
+            if (line.isEmpty() || line.startsWith("#")) continue;
+
+            String problem = null;
+            String[] fields = line.split(",", -1);
+            String roomNumber = fields[0].trim();
+            RoomType type = null;
+            if (fields.length != 2) {
+                problem = "expected roomNumber,ROOM_TYPE";
+            } else if (roomNumber.isEmpty() || roomNumber.indexOf('|') >= 0) {
+                problem = "invalid room number '" + roomNumber + "'";
+            } else if (layout.containsKey(roomNumber)) {
+                problem = "room " + roomNumber + " is listed twice";
+            } else {
+                try {
+                    type = RoomType.valueOf(fields[1].trim().toUpperCase(Locale.ROOT));
+                } catch (IllegalArgumentException e) {
+                    problem = "unknown room type '" + fields[1].trim() + "'";
+                }
+            }
+            if (problem != null) {
+                throw new IllegalArgumentException(
+                    "Room layout " + layoutPath + " line " + (i + 1) + ": " + problem);
+            }
+            layout.put(roomNumber, new Room(roomNumber, type));
+        }
+
+        for (Room room : layout.values()) {
+            addRoom(room);
+        }
+    }
+
+    private void initializeRooms() {
+        String[] roomNumbers = {"101", "102", "103", "104", "201", "202", "203", "204", 
+                                "301", "302", "303", "304", "401", "402", "403", "404"};
+        RoomType[] types = {RoomType.STANDARD, RoomType.DELUXE, 
+                            RoomType.SUITE, RoomType.EXECUTIVE};
+
+        for (String roomNumber : roomNumbers) {
+            RoomType type = types[(int)(Math.random() * types.length)];
+            addRoom(new Room(roomNumber, type));
+        }
+    }
+
+    private void addRoom(Room room) {
+        room.attachTo(occupancy);
+        rooms.add(room);
+        roomsByNumber.put(room.getRoomNumber(), room);
+        roomsByType.computeIfAbsent(room.getRoomType(), type -> new ArrayList<>()).add(room);
+    }
+
+    public void searchAvailableRooms() {
+        System.out.print("Enter check-in date (YYYY-MM-DD): ");
+        LocalDate checkIn = LocalDate.parse(scanner.nextLine());
+        
+        System.out.print("Enter check-out date (YYYY-MM-DD): ");
+        LocalDate checkOut = LocalDate.parse(scanner.nextLine());
+        
+        System.out.print("Number of guests: ");
+        int guests = scanner.nextInt();
+        scanner.nextLine();
+
+        try {
+            checkStay(checkIn, checkOut, guests);
+        } catch (IllegalArgumentException e) {
+            System.out.println(e.getMessage());
+            return;
+        }
+
+        System.out.println("\nAvailable Rooms:");
+        RoomSearchResult result = searchRooms(checkIn, checkOut, guests, null);
+        for (Room room : result.getRooms()) {
+            System.out.printf("Room %s - Type: %s, Price: $%.2f/night, Max Occupancy: %d, Stay Total: $%.2f\n", 
+                room.getRoomNumber(), 
+                room.getRoomType(), 
+                room.getRoomType().getBasePrice(),
+                room.getRoomType().getMaxOccupancy(),
+                result.getTotalCostCents(room) / 100.0
+            );
+        }
+
+        if (!result.getRooms().isEmpty()) {
+            return;
+        }
+
+        System.out.println("No rooms available matching your criteria.");
+
+        if (!result.getAlternativeCheckIns().isEmpty()) {
+            long nights = ChronoUnit.DAYS.between(checkIn, checkOut);
+            System.out.println("\nNearest available dates:");
+            for (LocalDate alternative : result.getAlternativeCheckIns()) {
+                System.out.println(alternative + " to " + alternative.plusDays(nights));
+            }
+        }
+
+        SplitStay splitStay = result.getSplitStay();
+        if (splitStay != null) {
+            System.out.printf("\nSplit stay (%s): Room %s from %s, then Room %s from %s to %s\n", 
+                splitStay.getFirstRoom().getRoomType(), 
+                splitStay.getFirstRoom().getRoomNumber(), checkIn, 
+                splitStay.getSecondRoom().getRoomNumber(), splitStay.getSwitchDate(), checkOut);
+        }
+    }
+
+    // Free rooms cheapest first, optionally of one type only; the sort is
+    // stable, so equal prices keep room order. Only when nothing is free are
+    // the nearest dates and a split stay looked up. Results are served from
+    // searchCache until a booking touches the days the search looked at.
+    public RoomSearchResult searchRooms(LocalDate checkIn, LocalDate checkOut, int guests, RoomType roomType) {
+        checkStay(checkIn, checkOut, guests);
+        String key = checkIn + "|" + checkOut + "|" + guests + "|" + roomType;
+        RoomSearchResult cached = searchCache.get(key);
+        if (cached != null) {
+            if (HotelMetrics.ENABLED) metrics.searchCacheHits.increment();
+            return cached;
+        }
+        if (HotelMetrics.ENABLED) metrics.searchCacheMisses.increment();
+
+        long stamp = searchCache.stamp();
+        List<Room> availableRooms = findAvailableRooms(checkIn, checkOut, guests);
+        if (roomType != null) {
+            availableRooms.removeIf(room -> room.getRoomType() != roomType);
+        }
+        EnumMap<RoomType, Long> totalCostCents = new EnumMap<>(RoomType.class);
+        for (Room room : availableRooms) {
+            totalCostCents.computeIfAbsent(room.getRoomType(), 
+                type -> quoteCents(type, checkIn, checkOut, guests));
+        }
+        availableRooms.sort(Comparator.comparingLong(room -> totalCostCents.get(room.getRoomType())));
+
+        List<LocalDate> alternatives = new ArrayList<>();
+        SplitStay splitStay = null;
+        if (availableRooms.isEmpty()) {
+            alternatives = findAlternativeCheckIns(checkIn, checkOut, guests, roomType, 
+                ALTERNATIVE_SEARCH_DAYS, ALTERNATIVE_LIMIT);
+            splitStay = findSplitStay(checkIn, checkOut, guests, roomType);
+        }
+
+        RoomSearchResult result = new RoomSearchResult(availableRooms, totalCostCents, alternatives, splitStay);
+        searchCache.put(key, result, checkIn.minusDays(ALTERNATIVE_SEARCH_DAYS), 
+            checkOut.plusDays(ALTERNATIVE_SEARCH_DAYS), stamp);
+        return result;
+    }
+
+    // Tries stays of the same length shifted by 1, -1, 2, -2, ... days and
+    // returns up to limit check-in dates, nearest first, that have a room.
+    // Shifts that would start before today are never offered.
+    public List<LocalDate> findAlternativeCheckIns(LocalDate checkIn, LocalDate checkOut, 
+                                                   int guests, int maxShiftDays, int limit) {
+        return findAlternativeCheckIns(checkIn, checkOut, guests, null, maxShiftDays, limit);
+    }
+
+    // As above, counting only rooms of roomType unless it is null.
+    public List<LocalDate> findAlternativeCheckIns(LocalDate checkIn, LocalDate checkOut, int guests, 
+                                                   RoomType roomType, int maxShiftDays, int limit) {
+        checkStay(checkIn, checkOut, guests);
+        LocalDate today = LocalDate.now();
+        ArrayList<LocalDate> alternatives = new ArrayList<>();
+        for (int shift = 1; shift <= maxShiftDays && alternatives.size() < limit; shift++) {
+            for (int direction : new int[] {1, -1}) {
+                LocalDate shiftedCheckIn = checkIn.plusDays(shift * direction);
+                LocalDate shiftedCheckOut = checkOut.plusDays(shift * direction);
+                if (shiftedCheckIn.isBefore(today)) continue;
+                if (alternatives.size() < limit && 
+                    hasAvailableRoom(shiftedCheckIn, shiftedCheckOut, guests, roomType)) {
+                    alternatives.add(shiftedCheckIn);
+                }
+            }
+        }
+        return alternatives;
+    }
+
+    // Earliest switch date at which one room covers the start of the stay and
+    // another room of the same type covers the rest.
+    public SplitStay findSplitStay(LocalDate checkIn, LocalDate checkOut, int guests) {
+        return findSplitStay(checkIn, checkOut, guests, null);
+    }
+
+    // As above, trying only roomType unless it is null.
+    public SplitStay findSplitStay(LocalDate checkIn, LocalDate checkOut, int guests, RoomType roomType) {
+        checkStay(checkIn, checkOut, guests);
+        for (LocalDate switchDate = checkIn.plusDays(1); switchDate.isBefore(checkOut); 
+             switchDate = switchDate.plusDays(1)) {
+            for (RoomType type : RoomType.values()) {
+                if (type.getMaxOccupancy() < guests || (roomType != null && type != roomType)) continue;
+                SplitStay splitStay = findSplitStay(type, checkIn, switchDate, checkOut);
+                if (splitStay != null) {
+                    return splitStay;
+                }
+            }
+        }
+        return null;
+    }
+
+    // Inside the calendar this is two bitmap queries, one per half of the
+    // stay; outside it, each pair of rooms of the type is checked.
+    private SplitStay findSplitStay(RoomType type, LocalDate checkIn, LocalDate switchDate, 
+                                    LocalDate checkOut) {
+        BitSet firstHalf = occupancy.findFreeRooms(checkIn, switchDate, type);
+        BitSet secondHalf = firstHalf == null ? null : occupancy.findFreeRooms(switchDate, checkOut, type);
+        if (secondHalf != null) {
+            if (firstHalf.isEmpty() || secondHalf.isEmpty()) return null;
+            // Any two different rooms will do. If the first room free for each
+            // half is the same one, either half may still have another.
+            int first = firstHalf.nextSetBit(0);
+            int second = secondHalf.nextSetBit(0);
+            if (first == second) {
+                int otherSecond = secondHalf.nextSetBit(first + 1);
+                int otherFirst = firstHalf.nextSetBit(first + 1);
+                if (otherSecond >= 0) {
+                    second = otherSecond;
+                } else if (otherFirst >= 0) {
+                    first = otherFirst;
+                } else {
+                    return null;
+                }
+            }
+            return new SplitStay(rooms.get(first), rooms.get(second), switchDate);
+        }
+
+        List<Room> sameType = roomsByType.getOrDefault(type, new ArrayList<>());
+        for (Room first : sameType) {
+            if (!isRoomAvailable(first, checkIn, switchDate)) continue;
+            for (Room second : sameType) {
+                if (second != first && isRoomAvailable(second, switchDate, checkOut)) {
+                    return new SplitStay(first, second, switchDate);
+                }
+            }
+        }
+        return null;
+    }
+
+    private boolean hasAvailableRoom(LocalDate checkIn, LocalDate checkOut, int guests, RoomType roomType) {
+        if (roomType != null && roomType.getMaxOccupancy() < guests) {
+            return false;
+        }
+        BitSet free = roomType == null ? occupancy.findFreeRooms(checkIn, checkOut, guests) 
+            : occupancy.findFreeRooms(checkIn, checkOut, roomType);
+        if (free != null) {
+            return !free.isEmpty();
+        }
+        for (Room room : roomType == null ? rooms : roomsByType.getOrDefault(roomType, new ArrayList<>())) {
+            if (room.getRoomType().getMaxOccupancy() >= guests && 
+                isRoomAvailable(room, checkIn, checkOut)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Stays must end after they start; an inverted one would otherwise match
+    // every room, since no day lies between its dates.
+    public List<Room> findAvailableRooms(LocalDate checkIn, LocalDate checkOut, int guests) {
+        checkStay(checkIn, checkOut, guests);
+        long startNanos = HotelMetrics.start();
+        RoomSearchEvent event = HotelMetrics.ENABLED ? RoomSearchEvent.started() : null;
+
+        ArrayList<Room> availableRooms = new ArrayList<>();
+        BitSet free = occupancy.findFreeRooms(checkIn, checkOut, guests);
+        if (free != null) {
+            for (int i = free.nextSetBit(0); i >= 0; i = free.nextSetBit(i + 1)) {
+                availableRooms.add(rooms.get(i));
+            }
+        } else {
+            for (Room room : rooms) {
+                if (room.getRoomType().getMaxOccupancy() >= guests && 
+                    isRoomAvailable(room, checkIn, checkOut)) {
+                    availableRooms.add(room);
+                }
+            }
+        }
+
+        if (HotelMetrics.ENABLED) {
+            event.commitIfEnabled(guests, ChronoUnit.DAYS.between(checkIn, checkOut), availableRooms.size());
+            metrics.searches.record(startNanos);
+        }
+        return availableRooms;
+    }
+
+    public double getOccupancyPercent(LocalDate night) {
+        int occupied = occupancy.countOccupied(night);
+        if (occupied < 0) {
+            occupied = 0;
+            for (Room room : rooms) {
+                if (!room.isAvailable(night, night)) {
+                    occupied++;
+                }
+            }
+        }
+        return rooms.isEmpty() ? 0.0 : occupied * 100.0 / rooms.size();
+    }
+
+    boolean isRoomAvailable(Room room, LocalDate checkIn, LocalDate checkOut) {
+        if (HotelMetrics.ENABLED) metrics.availabilityChecks.increment();
+        return room.isAvailable(checkIn, checkOut);
+    }
+
+    public void makeReservation() {
+        System.out.print("Enter your name: ");
+        String guestName = scanner.nextLine();
+        
+        System.out.print("Enter room number or room type (e.g. DELUXE): ");
+        String roomNumber = scanner.nextLine();
+        
+        System.out.print("Enter check-in date (YYYY-MM-DD): ");
+        LocalDate checkIn = LocalDate.parse(scanner.nextLine());
+        
+        System.out.print("Enter check-out date (YYYY-MM-DD): ");
+        LocalDate checkOut = LocalDate.parse(scanner.nextLine());
+        
         System.out.print("Number of guests: ");
         int guests = scanner.nextInt();
         scanner.nextLine();
 
-        Room selectedRoom = findRoom(roomNumber);
-        
-        if (selectedRoom == null) {
-            System.out.println("Room not found.");
-            return;
+        try {
+            checkGuestName(guestName);
+            checkStay(checkIn, checkOut, guests);
+        } catch (IllegalArgumentException e) {
+            System.out.println(e.getMessage());
+            return;
+        }
+
+        Room selectedRoom = findRoom(roomNumber);
+        RoomType requestedType = selectedRoom == null ? parseRoomType(roomNumber) : null;
+
+        Reservation reservation;
+        if (requestedType != null) {
+            if (!canBookRoomType(requestedType, checkIn, checkOut)) {
+                System.out.println("No " + requestedType + " rooms available for selected dates.");
+                return;
+            }
+            reservation = new Reservation(ReservationIdGenerator.nextId(), guestName, requestedType, 
+                checkIn, checkOut, guests, quoteCents(requestedType, checkIn, checkOut, guests));
+        } else {
+            if (selectedRoom == null) {
+                System.out.println("Room not found.");
+                return;
+            }
+            if (!isRoomAvailable(selectedRoom, checkIn, checkOut)) {
+                System.out.println("Room is not available for selected dates.");
+                return;
+            }
+            reservation = newReservation(guestName, selectedRoom, checkIn, checkOut, guests);
+        }
+        
+        System.out.println("\nReservation Details:");
+        System.out.println(reservation.getDetailsString());
+        
+        System.out.print("\nConfirm reservation? (Y/N): ");
+        String confirm = scanner.nextLine();
+        
+        if (confirm.equalsIgnoreCase("Y")) {
+            Reservation booked = requestedType != null 
+                ? bookRoomType(guestName, requestedType, checkIn, checkOut, guests) 
+                : (commitBooking(reservation) ? reservation : null);
+            if (booked == null) {
+                System.out.println("Room is no longer available for selected dates.");
+                return;
+            }
+            if (booked.isAssigned() && requestedType != null) {
+                System.out.println("Booked room " + booked.getRoom().getRoomNumber() + ".");
+            } else if (!booked.isAssigned()) {
+                System.out.println("A " + requestedType + " room will be assigned before check-in.");
+            }
+            if (processPayment(booked)) {
+                System.out.println("Reservation confirmed!");
+            }
+        } else {
+            System.out.println("Reservation cancelled.");
+        }
+    }
+
+    public Reservation bookRoom(String guestName, String roomNumber, LocalDate checkIn,
+                                LocalDate checkOut, int guests) {
+        checkGuestName(guestName);
+        checkStay(checkIn, checkOut, guests);
+        Room room = findRoom(roomNumber);
+        if (room == null) {
+            return null;
+        }
+
+        Reservation reservation = newReservation(guestName, room, checkIn, checkOut, guests);
+        return commitBooking(reservation) ? reservation : null;
+    }
+
+    // Bookings of the type beyond its rooms that bookRoomType still accepts,
+    // for guests expected not to show up. Starts from the system property
+    // hotel.overbooking.<TYPE>, 0 if unset.
+    public void setOverbookingAllowance(RoomType roomType, int rooms) {
+        occupancy.setOverbooking(roomType, rooms);
+    }
+
+    public int getOverbookingAllowance(RoomType roomType) {
+        return occupancy.getOverbooking(roomType);
+    }
+
+    // Inside the calendar's window the booking only takes one of the type's
+    // per-day counts, in O(log days) whatever the hotel's size, and gets no
+    // room: the optimizer assigns one before check-in, once it can see every
+    // stay of the type. Up to the overbooking allowance more are taken than
+    // there are rooms. Beyond the window, where nothing is counted, the first
+    // free room of the type is booked right away, trying the next one if
+    // another session claims it first.
+    public Reservation bookRoomType(String guestName, RoomType roomType, LocalDate checkIn, 
+                                    LocalDate checkOut, int guests) {
+        checkGuestName(guestName);
+        checkStay(checkIn, checkOut, guests);
+        if (occupancy.countFreeRooms(roomType, checkIn, checkOut) >= 0) {
+            Reservation reservation = new Reservation(ReservationIdGenerator.nextId(), guestName, roomType, 
+                checkIn, checkOut, guests, quoteCents(roomType, checkIn, checkOut, guests));
+            return commitBooking(reservation) ? reservation : null;
+        }
+
+        for (Room room : roomsByType.getOrDefault(roomType, new ArrayList<>())) {
+            if (!isRoomAvailable(room, checkIn, checkOut)) continue;
+
+            Reservation reservation = newReservation(guestName, room, checkIn, checkOut, guests);
+            if (commitBooking(reservation)) {
+                return reservation;
+            }
+        }
+        return null;
+    }
+
+    // Prices a stay at the rates and occupancy of this property right now.
+    public long quoteCents(RoomType roomType, LocalDate checkIn, LocalDate checkOut, int guests) {
+        return PricingEngine.quoteCents(roomType, checkIn, checkOut, guests, occupancy);
+    }
+
+    private Reservation newReservation(String guestName, Room room, LocalDate checkIn, 
+                                       LocalDate checkOut, int guests) {
+        return new Reservation(ReservationIdGenerator.nextId(), guestName, room, checkIn, checkOut, 
+            guests, quoteCents(room.getRoomType(), checkIn, checkOut, guests));
+    }
+
+    // Whether bookRoomType would take the stay right now.
+    private boolean canBookRoomType(RoomType roomType, LocalDate checkIn, LocalDate checkOut) {
+        int free = occupancy.countFreeRooms(roomType, checkIn, checkOut);
+        if (free < 0) {
+            return findAvailableRoomOfType(roomType, checkIn, checkOut) != null;
+        }
+        return occupancy.countRooms(roomType) > 0 && free + occupancy.getOverbooking(roomType) > 0;
+    }
+
+    private Room findAvailableRoomOfType(RoomType roomType, LocalDate checkIn, LocalDate checkOut) {
+        BitSet free = occupancy.findFreeRooms(checkIn, checkOut, roomType);
+        if (free != null) {
+            return free.isEmpty() ? null : rooms.get(free.nextSetBit(0));
+        }
+        for (Room room : roomsByType.getOrDefault(roomType, new ArrayList<>())) {
+            if (isRoomAvailable(room, checkIn, checkOut)) {
+                return room;
+            }
+        }
+        return null;
+    }
+
+    // The per-room indexes assume bookings never overlap, which only holds
+    // for stays that end after they start; reject anything else up front.
+    // The name is written into the journal verbatim, so it must not be able
+    // to end the entry or add fields to it.
+    private static void checkGuestName(String guestName) {
+        if (guestName == null || guestName.isBlank()) {
+            throw new IllegalArgumentException("Guest name is required");
+        }
+        for (int i = 0; i < guestName.length(); i++) {
+            char c = guestName.charAt(i);
+            if (c == '|' || Character.isISOControl(c)) {
+                throw new IllegalArgumentException("Guest name contains an invalid character");
+            }
+        }
+    }
+
+    private static void checkStay(LocalDate checkIn, LocalDate checkOut, int guests) {
+        if (!checkIn.isBefore(checkOut)) {
+            throw new IllegalArgumentException("Check-out must be after check-in");
+        }
+        if (guests <= 0) {
+            throw new IllegalArgumentException("Number of guests must be at least 1");
+        }
+    }
+
+    private static RoomType parseRoomType(String value) {
+        for (RoomType type : RoomType.values()) {
+            if (type.name().equalsIgnoreCase(value.trim())) {
+                return type;
+            }
+        }
+        return null;
+    }
+
+    // Claims the reservation's room (or a count of its type) and dates, then
+    // journals and indexes it. A booking the journal could not record is
+    // released again, so the dates are not held by a reservation that
+    // exists nowhere.
+    private boolean commitBooking(Reservation reservation) {
+        long startNanos = HotelMetrics.start();
+        BookingEvent event = HotelMetrics.ENABLED ? BookingEvent.started() : null;
+
+        boolean booked;
+        inventoryLock.readLock().lock();
+        try {
+            booked = claimStay(reservation.getRoom(), reservation.getRoomType(), 
+                reservation.getCheckInDate(), reservation.getCheckOutDate());
+            if (booked) {
+                searchCache.invalidate(reservation.getCheckInDate(), reservation.getCheckOutDate());
+                try {
+                    journal.recordBooking(reservation);
+                } catch (RuntimeException e) {
+                    releaseStay(reservation.getRoom(), reservation.getRoomType(), 
+                        reservation.getCheckInDate(), reservation.getCheckOutDate());
+                    searchCache.invalidate(reservation.getCheckInDate(), reservation.getCheckOutDate());
+                    throw e;
+                }
+                addReservation(reservation);
+            }
+        } finally {
+            inventoryLock.readLock().unlock();
+        }
+
+        if (HotelMetrics.ENABLED) {
+            event.commitIfEnabled(reservation.getRoomLabel(), ChronoUnit.DAYS.between(
+                reservation.getCheckInDate(), reservation.getCheckOutDate()), booked);
+            if (booked) {
+                metrics.bookings.record(startNanos);
+            } else {
+                metrics.bookingConflicts.increment();
+            }
+        }
+        return booked;
+    }
+
+    // A stay with a room books the room; one without only counts against
+    // its type. Claiming can fail, the other two always succeed.
+    private boolean claimStay(Room room, RoomType roomType, LocalDate checkIn, LocalDate checkOut) {
+        return room != null ? room.tryBook(checkIn, checkOut) 
+            : occupancy.tryReserve(roomType, checkIn, checkOut);
+    }
+
+    private void releaseStay(Room room, RoomType roomType, LocalDate checkIn, LocalDate checkOut) {
+        if (room != null) {
+            room.removeBooking(checkIn);
+        } else {
+            occupancy.unreserve(roomType, checkIn, checkOut);
+        }
+    }
+
+    // Puts back a stay that was already accepted, whatever else is booked.
+    private void occupyStay(Reservation reservation) {
+        if (reservation.isAssigned()) {
+            reservation.getRoom().addBooking(reservation.getCheckInDate(), reservation.getCheckOutDate());
+        } else {
+            occupancy.reserve(reservation.getRoomType(), reservation.getCheckInDate(), 
+                reservation.getCheckOutDate());
+        }
+    }
+
+    private void releaseStay(Reservation reservation) {
+        releaseStay(reservation.getRoom(), reservation.getRoomType(), 
+            reservation.getCheckInDate(), reservation.getCheckOutDate());
+    }
+
+    private void addReservation(Reservation reservation) {
+        synchronized (reservations) {
+            reservations.add(reservation);
+            reservationsById.put(reservation.getReservationId(), reservation);
+            reservationsByGuest.computeIfAbsent(guestKey(reservation.getGuestName()), 
+                guest -> new ArrayList<>()).add(reservation);
+            indexByDate(reservationsByCheckIn, reservation.getCheckInDate(), reservation);
+            indexByDate(reservationsByCheckOut, reservation.getCheckOutDate(), reservation);
+        }
+    }
+
+    private static void indexByDate(TreeMap<LocalDate, ArrayList<Reservation>> index, 
+                                    LocalDate date, Reservation reservation) {
+        index.computeIfAbsent(date, day -> new ArrayList<>()).add(reservation);
+    }
+
+    private static void unindexByDate(TreeMap<LocalDate, ArrayList<Reservation>> index, 
+                                      LocalDate date, Reservation reservation) {
+        ArrayList<Reservation> onDate = index.get(date);
+        onDate.remove(reservation);
+        if (onDate.isEmpty()) {
+            index.remove(date);
+        }
+    }
+
+    public Reservation findReservation(String reservationId) {
+        synchronized (reservations) {
+            Reservation reservation = reservationsById.get(reservationId);
+            return reservation != null ? reservation : archivedReservations.get(reservationId);
+        }
+    }
+
+    public boolean cancelReservation(String reservationId) {
+        return cancelReservation(reservationId, false);
+    }
+
+    // The reservation is marked cancelled first, journaled without the
+    // shared lock, and only then are its dates released; a cancellation the
+    // journal could not record gets its old status back, and no other
+    // booking can have taken the dates meanwhile. With onlyIfPending, a
+    // reservation that has been paid in the meantime is left alone.
+    private boolean cancelReservation(String reservationId, boolean onlyIfPending) {
+        inventoryLock.readLock().lock();
+        try {
+            Reservation reservation;
+            synchronized (reservations) {
+                reservation = reservationsById.get(reservationId);
+            }
+            if (reservation == null) {
+                return false;
+            }
+
+            synchronized (reservation) {
+                Reservation.PaymentStatus previous;
+                synchronized (reservations) {
+                    if (reservation.isCancelled() || (onlyIfPending && !reservation.isPending())) {
+                        return false;
+                    }
+                    previous = reservation.getPaymentStatus();
+                    reservation.cancel();
+                    cancellationsInFlight.add(reservation);
+                }
+                try {
+                    journal.recordCancellation(reservation);
+                } catch (RuntimeException e) {
+                    synchronized (reservations) {
+                        reservation.restorePaymentStatus(previous);
+                        cancellationsInFlight.remove(reservation);
+                    }
+                    throw e;
+                }
+                releaseCancelledRoom(reservation);
+                synchronized (reservations) {
+                    cancellationsInFlight.remove(reservation);
+                }
+                endPaymentHold(reservation);
+            }
+            if (HotelMetrics.ENABLED) metrics.cancellations.increment();
+            return true;
+        } finally {
+            inventoryLock.readLock().unlock();
         }
+    }
 
-        if (!isRoomAvailable(selectedRoom, checkIn, checkOut)) {
-            System.out.println("Room is not available for selected dates.");
-            return;
+    // Covers shortening, extending and moving a stay. The target room is
+    // checked and its new dates claimed under that room's lock, then the
+    // change is journaled and only then applied to the reservation. Moving
+    // to another room keeps the old booking until the write succeeds; within
+    // one room the room's lock is held across the write, so the old dates
+    // can still be put back. Either way a change the journal could not
+    // record leaves the original booking untouched.
+    public boolean changeReservation(String reservationId, String roomNumber, 
+                                     LocalDate checkIn, LocalDate checkOut) {
+        checkStay(checkIn, checkOut, 1);
+        Room newRoom = findRoom(roomNumber);
+        if (newRoom == null) {
+            return false;
         }
+        return changeStay(reservationId, newRoom, newRoom.getRoomType(), checkIn, checkOut);
+    }
 
-        Reservation reservation = new Reservation(guestName, selectedRoom, checkIn, checkOut, guests);
-        
-        System.out.println("\nReservation Details:");
-        System.out.println(reservation.getDetailsString());
-        
-        System.out.print("\nConfirm reservation? (Y/N): ");
-        String confirm = scanner.nextLine();
-        
-        if (confirm.equalsIgnoreCase("Y")) {
-            processPayment(reservation);
-            reservations.add(reservation);
-            System.out.println("Reservation confirmed!");
-        } else {
-            System.out.println("Reservation cancelled.");
+    // Rebooks the stay as a booking of the type without a room, the way
+    // bookRoomType takes it inside the calendar's window.
+    public boolean changeReservation(String reservationId, RoomType roomType, 
+                                     LocalDate checkIn, LocalDate checkOut) {
+        checkStay(checkIn, checkOut, 1);
+        if (occupancy.countFreeRooms(roomType, checkIn, checkOut) < 0) {
+            return false;
+        }
+        return changeStay(reservationId, null, roomType, checkIn, checkOut);
+    }
+
+    private boolean changeStay(String reservationId, Room newRoom, RoomType newType, 
+                               LocalDate checkIn, LocalDate checkOut) {
+        inventoryLock.readLock().lock();
+        try {
+            Reservation reservation;
+            synchronized (reservations) {
+                reservation = reservationsById.get(reservationId);
+            }
+            if (reservation == null) {
+                return false;
+            }
+
+            synchronized (reservation) {
+                Room oldRoom;
+                RoomType oldType;
+                LocalDate oldCheckIn;
+                LocalDate oldCheckOut;
+                synchronized (reservations) {
+                    if (reservation.isCancelled()) {
+                        return false;
+                    }
+                    oldRoom = reservation.getRoom();
+                    oldType = reservation.getRoomType();
+                    oldCheckIn = reservation.getCheckInDate();
+                    oldCheckOut = reservation.getCheckOutDate();
+                }
+
+                // Quoted before the new dates are claimed, so the stay does
+                // not raise its own price.
+                long totalCostCents = quoteCents(newType, checkIn, checkOut, 
+                    reservation.getNumberOfGuests());
+                if (newRoom != null && newRoom == oldRoom) {
+                    synchronized (oldRoom) {
+                        if (!oldRoom.tryRebook(oldCheckIn, checkIn, checkOut)) {
+                            return false;
+                        }
+                        searchCache.invalidate(checkIn, checkOut);
+                        try {
+                            journal.recordChange(reservation, newRoom, newType, checkIn, checkOut, 
+                                totalCostCents);
+                        } catch (RuntimeException e) {
+                            oldRoom.removeBooking(checkIn);
+                            oldRoom.addBooking(oldCheckIn, oldCheckOut);
+                            searchCache.invalidate(checkIn, checkOut);
+                            throw e;
+                        }
+                    }
+                } else {
+                    // A stay without a room gives its count back first, so
+                    // it does not compete with itself; a count can always be
+                    // taken back.
+                    boolean releasedFirst = oldRoom == null;
+                    if (releasedFirst) {
+                        releaseStay(null, oldType, oldCheckIn, oldCheckOut);
+                    }
+                    if (!claimStay(newRoom, newType, checkIn, checkOut)) {
+                        if (releasedFirst) occupyStay(reservation);
+                        return false;
+                    }
+                    searchCache.invalidate(checkIn, checkOut);
+                    try {
+                        journal.recordChange(reservation, newRoom, newType, checkIn, checkOut, totalCostCents);
+                    } catch (RuntimeException e) {
+                        releaseStay(newRoom, newType, checkIn, checkOut);
+                        if (releasedFirst) occupyStay(reservation);
+                        searchCache.invalidate(checkIn, checkOut);
+                        throw e;
+                    }
+                    if (!releasedFirst) {
+                        releaseStay(oldRoom, oldType, oldCheckIn, oldCheckOut);
+                    }
+                }
+                searchCache.invalidate(oldCheckIn, oldCheckOut);
+
+                synchronized (reservations) {
+                    applyChange(reservation, newRoom, newType, checkIn, checkOut, totalCostCents);
+                }
+                return true;
+            }
+        } finally {
+            inventoryLock.readLock().unlock();
+        }
+    }
+
+    private void releaseCancelledRoom(Reservation reservation) {
+        releaseStay(reservation);
+        searchCache.invalidate(reservation.getCheckInDate(), reservation.getCheckOutDate());
+    }
+
+    private void applyChange(Reservation reservation, Room room, RoomType roomType, LocalDate checkIn, 
+                             LocalDate checkOut, long totalCostCents) {
+        unindexByDate(reservationsByCheckIn, reservation.getCheckInDate(), reservation);
+        unindexByDate(reservationsByCheckOut, reservation.getCheckOutDate(), reservation);
+
+        reservation.reschedule(room, roomType, checkIn, checkOut, totalCostCents);
+        indexByDate(reservationsByCheckIn, checkIn, reservation);
+        indexByDate(reservationsByCheckOut, checkOut, reservation);
+    }
+
+    // Runs hourly on the archiver thread. Bookings of a type that arrive by
+    // tomorrow get their room here if nobody ran the optimizer.
+    private void runMaintenance() {
+        archivePastReservations();
+        inventoryLock.writeLock().lock();
+        try {
+            occupancy.advanceTo(LocalDate.now(), rooms);
+        } finally {
+            inventoryLock.writeLock().unlock();
+        }
+        if (hasUnassignedArrivals(LocalDate.now().plusDays(1))) {
+            optimizeRoomAssignments(LocalDate.now());
+        }
+        if (journal.size() > COMPACT_JOURNAL_BYTES) {
+            compactJournal();
+        }
+    }
+
+    private boolean hasUnassignedArrivals(LocalDate until) {
+        synchronized (reservations) {
+            for (ArrayList<Reservation> arrivals : reservationsByCheckIn.headMap(until, true).values()) {
+                for (Reservation reservation : arrivals) {
+                    if (!reservation.isAssigned() && !reservation.isCancelled()) return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    // Past stays are also released from their rooms, so availability lookups
+    // only ever walk current and future bookings.
+    private void archivePastReservations() {
+        LocalDate today = LocalDate.now();
+
+        inventoryLock.readLock().lock();
+        try {
+            synchronized (reservations) {
+                reservations.removeIf(reservation -> {
+                    boolean archive = reservation.isCancelled() || 
+                        reservation.getCheckOutDate().isBefore(today);
+                    if (!archive || cancellationsInFlight.contains(reservation)) return false;
+
+                    if (!reservation.isCancelled()) {
+                        releaseStay(reservation);
+                    }
+                    archivedReservations.put(reservation.getReservationId(), reservation);
+                    reservationsById.remove(reservation.getReservationId());
+
+                    String guestKey = guestKey(reservation.getGuestName());
+                    ArrayList<Reservation> guestReservations = reservationsByGuest.get(guestKey);
+                    guestReservations.remove(reservation);
+                    if (guestReservations.isEmpty()) {
+                        reservationsByGuest.remove(guestKey);
+                    }
+
+                    unindexByDate(reservationsByCheckIn, reservation.getCheckInDate(), reservation);
+                    unindexByDate(reservationsByCheckOut, reservation.getCheckOutDate(), reservation);
+                    return true;
+                });
+            }
+            searchCache.clear();
+        } finally {
+            inventoryLock.readLock().unlock();
+        }
+    }
+
+    public List<Reservation> findReservationsByGuest(String guestName) {
+        synchronized (reservations) {
+            return new ArrayList<>(reservationsByGuest.getOrDefault(
+                guestKey(guestName), new ArrayList<>()));
         }
     }
 
-    private void processPayment(Reservation reservation) {
+    // Guest lookups ignore case the same way whatever the default locale,
+    // so a key written under one locale is found under any other.
+    private static String guestKey(String guestName) {
+        return guestName.toLowerCase(Locale.ROOT);
+    }
+
+    public List<Reservation> listReservations() {
+        synchronized (reservations) {
+            return new ArrayList<>(reservations);
+        }
+    }
+
+    public List<Reservation> findArrivals(LocalDate date) {
+        synchronized (reservations) {
+            return new ArrayList<>(reservationsByCheckIn.getOrDefault(date, new ArrayList<>()));
+        }
+    }
+
+    public List<Reservation> findDepartures(LocalDate date) {
+        synchronized (reservations) {
+            return new ArrayList<>(reservationsByCheckOut.getOrDefault(date, new ArrayList<>()));
+        }
+    }
+
+    private boolean processPayment(Reservation reservation) {
         System.out.println("\n--- Payment Processing ---");
         System.out.printf("Total Amount Due: $%.2f\n", reservation.getTotalCost());
         System.out.println("Payment Methods:");
@@ -249,42 +3131,652 @@ class HotelReservationSystem {
         System.out.println("3. Cash");
         
         System.out.print("Select payment method: ");
-        int paymentMethod = scanner.nextInt();
         scanner.nextLine();
 
-        reservation.processPayment();
-        System.out.println("Payment Successful!");
+        System.out.println("Authorizing payment...");
+        if (authorizePayment(reservation).join()) {
+            System.out.println("Payment Successful!");
+            return true;
+        }
+        System.out.println("Payment failed. The room has been released.");
+        return false;
     }
 
-    private Room findRoom(String roomNumber) {
-        for (Room room : rooms) {
-            if (room.getRoomNumber().equals(roomNumber)) {
-                return room;
+    // The room is already held by the reservation. A declined, failed or
+    // timed-out authorization cancels it, returning the dates to inventory,
+    // and an approval that arrives after the hold expired is not captured.
+    public CompletableFuture<Boolean> authorizePayment(Reservation reservation) {
+        long startNanos = HotelMetrics.start();
+        ScheduledFuture<?> hold = ARCHIVER.schedule(() -> releaseUnpaidHold(reservation),
+            PAYMENT_HOLD_SECONDS, TimeUnit.SECONDS);
+        ScheduledFuture<?> previousHold = paymentHolds.put(reservation, hold);
+        if (previousHold != null) {
+            previousHold.cancel(false);
+        }
+        return paymentProcessor.submit(reservation)
+            .orTimeout(PAYMENT_HOLD_SECONDS, TimeUnit.SECONDS)
+            .exceptionally(error -> false)
+            .thenApply(approved -> {
+                if (HotelMetrics.ENABLED) {
+                    metrics.payments.record(startNanos);
+                    if (!approved) metrics.paymentsDeclined.increment();
+                }
+                if (approved) {
+                    return capturePayment(reservation);
+                }
+                releaseUnpaidHold(reservation);
+                return false;
+            });
+    }
+
+    // The reservation's own lock orders its payment, cancellation and changes
+    // in the journal the way they happened, while the shared reservations
+    // lock is only held to flip the status; the fsync runs without it, so
+    // other reservations are not held up. A payment the journal could not
+    // record is undone.
+    private boolean capturePayment(Reservation reservation) {
+        inventoryLock.readLock().lock();
+        try {
+            synchronized (reservation) {
+                synchronized (reservations) {
+                    if (!reservation.isPending()) {
+                        return false;
+                    }
+                    reservation.processPayment();
+                }
+                try {
+                    journal.recordPayment(reservation);
+                } catch (RuntimeException e) {
+                    synchronized (reservations) {
+                        reservation.restorePaymentStatus(Reservation.PaymentStatus.PENDING);
+                    }
+                    throw e;
+                }
+                endPaymentHold(reservation);
+                return true;
             }
+        } finally {
+            inventoryLock.readLock().unlock();
         }
-        return null;
     }
 
-    public void viewReservations() {
-        if (reservations.isEmpty()) {
+    private void releaseUnpaidHold(Reservation reservation) {
+        cancelReservation(reservation.getReservationId(), true);
+    }
+
+    private void endPaymentHold(Reservation reservation) {
+        ScheduledFuture<?> hold = paymentHolds.remove(reservation);
+        if (hold != null) {
+            hold.cancel(false);
+        }
+    }
+
+    Room findRoom(String roomNumber) {
+        return roomsByNumber.get(roomNumber);
+    }
+
+    public void searchReservations() {
+        System.out.print("Enter reservation ID or guest name: ");
+        String query = scanner.nextLine().trim();
+
+        Reservation byId = findReservation(query);
+        List<Reservation> matches = byId != null ? List.of(byId) : findReservationsByGuest(query);
+
+        if (matches.isEmpty()) {
             System.out.println("No reservations found.");
             return;
         }
 
-        System.out.println("\n=== CURRENT RESERVATIONS ===");
-        for (Reservation reservation : reservations) {
+        for (Reservation reservation : matches) {
             System.out.println(reservation.getDetailsString());
             System.out.println("--------------------");
         }
     }
 
+    public void manageReservation() {
+        System.out.print("Enter reservation ID: ");
+        String reservationId = scanner.nextLine().trim();
+
+        Reservation reservation = findReservation(reservationId);
+        if (reservation == null || reservation.isCancelled()) {
+            System.out.println("No active reservation with that ID.");
+            return;
+        }
+
+        System.out.println("\n" + reservation.getDetailsString());
+        System.out.println("\n1. Cancel Reservation");
+        System.out.println("2. Change Dates");
+        System.out.println("3. Change Room");
+        System.out.print("Choose an option: ");
+        String choice = scanner.nextLine();
+
+        // A booking without a room keeps its type unless a room is chosen.
+        String roomNumber = reservation.isAssigned() ? reservation.getRoom().getRoomNumber() : null;
+        LocalDate checkIn = reservation.getCheckInDate();
+        LocalDate checkOut = reservation.getCheckOutDate();
+
+        switch (choice) {
+            case "1":
+                System.out.println(cancelReservation(reservationId) 
+                    ? "Reservation cancelled." : "Reservation could not be cancelled.");
+                return;
+            case "2":
+                System.out.print("Enter new check-in date (YYYY-MM-DD): ");
+                checkIn = LocalDate.parse(scanner.nextLine());
+                System.out.print("Enter new check-out date (YYYY-MM-DD): ");
+                checkOut = LocalDate.parse(scanner.nextLine());
+                break;
+            case "3":
+                System.out.print("Enter new room number: ");
+                roomNumber = scanner.nextLine();
+                break;
+            default:
+                System.out.println("Invalid option.");
+                return;
+        }
+
+        try {
+            boolean changed = roomNumber != null 
+                ? changeReservation(reservationId, roomNumber, checkIn, checkOut) 
+                : changeReservation(reservationId, reservation.getRoomType(), checkIn, checkOut);
+            if (changed) {
+                System.out.println("Reservation updated:");
+                System.out.println(reservation.getDetailsString());
+            } else {
+                System.out.println("Room is not available for the requested change.");
+            }
+        } catch (IllegalArgumentException e) {
+            System.out.println(e.getMessage());
+        }
+    }
+
+    public void viewDailyArrivals() {
+        System.out.print("Enter date (YYYY-MM-DD): ");
+        LocalDate date = LocalDate.parse(scanner.nextLine());
+
+        List<Reservation> arrivals = findArrivals(date);
+        if (arrivals.isEmpty()) {
+            System.out.println("No arrivals on " + date + ".");
+        } else {
+            System.out.println("\nArrivals on " + date + ":");
+            for (Reservation reservation : arrivals) {
+                System.out.printf("Room %s - %s (%d guests, until %s)\n", 
+                    reservation.getRoomLabel(), reservation.getGuestName(), 
+                    reservation.getNumberOfGuests(), reservation.getCheckOutDate());
+            }
+        }
+
+        List<Reservation> departures = findDepartures(date);
+        if (departures.isEmpty()) {
+            System.out.println("No departures on " + date + ".");
+        } else {
+            System.out.println("\nDepartures on " + date + ":");
+            for (Reservation reservation : departures) {
+                System.out.printf("Room %s - %s (%d guests, since %s)\n", 
+                    reservation.getRoomLabel(), reservation.getGuestName(), 
+                    reservation.getNumberOfGuests(), reservation.getCheckInDate());
+            }
+        }
+    }
+
+    public void viewReservations() {
+        if (reservations.isEmpty()) {
+            System.out.println("No reservations found.");
+            return;
+        }
+
+        PrintWriter out = new PrintWriter(
+            new BufferedWriter(new OutputStreamWriter(System.out), 1 << 16));
+        out.println("\n=== CURRENT RESERVATIONS ===");
+        synchronized (reservations) {
+            for (Reservation reservation : reservations) {
+                reservation.printDetails(out);
+                out.println("--------------------");
+            }
+        }
+        out.flush();
+    }
+
+    public void exportReservations() {
+        System.out.print("Enter CSV file name: ");
+        Path path = Paths.get(scanner.nextLine());
+
+        int exported = 0;
+        try (PrintWriter out = new PrintWriter(
+                Files.newBufferedWriter(path, StandardCharsets.UTF_8))) {
+            out.println("reservation_id,guest,room,room_type,check_in,check_out,guests,total_cost,payment_status");
+            synchronized (reservations) {
+                for (Reservation reservation : reservations) {
+                    reservation.printCsvRow(out);
+                }
+                exported = reservations.size();
+            }
+        } catch (IOException e) {
+            System.out.println("Could not write " + path + ": " + e.getMessage());
+            return;
+        }
+
+        System.out.println("Exported " + exported + " reservations to " + path);
+    }
+
+    public void optimizeRoomAssignments() {
+        List<RoomAssignmentPlan> plans = optimizeRoomAssignments(LocalDate.now());
+
+        int moved = 0;
+        int assigned = 0;
+        int gapDaysBefore = 0;
+        int gapDaysAfter = 0;
+        for (RoomAssignmentPlan plan : plans) {
+            moved += plan.getReassignedCount();
+            assigned += plan.getAssignedCount();
+            gapDaysBefore += plan.getGapDaysBefore();
+            gapDaysAfter += plan.getGapDaysAfter();
+            System.out.printf("%s: unsellable gap nights %d -> %d\n", 
+                plan.getRoomType(), plan.getGapDaysBefore(), plan.getGapDaysAfter());
+            if (plan.getUnplacedCount() > 0) {
+                System.out.printf("%s: %d bookings still have no room (overbooked)\n", 
+                    plan.getRoomType(), plan.getUnplacedCount());
+            }
+        }
+        System.out.printf("Assigned rooms to %d bookings and reassigned %d reservations, " + 
+            "changing sellable room-nights by %d.\n", assigned, moved, gapDaysBefore - gapDaysAfter);
+    }
+
+    // Repacks future reservations (check-in after today) into rooms of their
+    // own type, and gives a room to every booking of a type that has none
+    // yet, whatever its dates. Plans are computed in parallel per RoomType on the common
+    // fork-join pool, then applied on this thread. The inventory write lock
+    // is held throughout, so every claimed room is already in reservations
+    // and no booking can interleave with the moves.
+    public List<RoomAssignmentPlan> optimizeRoomAssignments(LocalDate today) {
+        ArrayList<RoomAssignmentPlan> applied = new ArrayList<>();
+
+        inventoryLock.writeLock().lock();
+        try {
+            synchronized (reservations) {
+                EnumMap<RoomType, ArrayList<Reservation>> activeByType = new EnumMap<>(RoomType.class);
+                for (Reservation reservation : reservations) {
+                    if (!reservation.isCancelled()) {
+                        activeByType.computeIfAbsent(reservation.getRoomType(), 
+                            type -> new ArrayList<>()).add(reservation);
+                    }
+                }
+
+                List<RoomAssignmentPlan> plans = activeByType.entrySet().parallelStream()
+                    .map(entry -> planRoomAssignments(entry.getKey(), 
+                        roomsByType.getOrDefault(entry.getKey(), new ArrayList<>()), entry.getValue(), today))
+                    .filter(plan -> plan != null)
+                    .collect(Collectors.toList());
+
+                for (RoomAssignmentPlan plan : plans) {
+                    if (applyRoomAssignments(plan)) {
+                        applied.add(plan);
+                    }
+                }
+            }
+        } finally {
+            inventoryLock.writeLock().unlock();
+        }
+        return applied;
+    }
+
+    // Best-fit greedy interval partitioning: in check-in order, each future
+    // stay goes to the room whose last stay ends closest before it, which
+    // packs stays back to back and pushes free nights into long windows.
+    // A local search then moves stays that still border a stranded day,
+    // starting from the current rooms if the greedy pass could not place
+    // every stay. Bookings without a room are always placed, in the
+    // greedy pass or else in the first room they fit; those that fit
+    // nowhere are left without one. Returns null if no booking gets its
+    // first room and the result would not reduce stranded days, leaving
+    // the type as is.
+    static RoomAssignmentPlan planRoomAssignments(RoomType roomType, List<Room> typeRooms, 
+                                                          List<Reservation> active, LocalDate today) {
+        HashMap<Room, LocalDate> lastCheckOut = new HashMap<>();
+        ArrayList<Reservation> movable = new ArrayList<>();
+        int waiting = 0;
+        for (Reservation reservation : active) {
+            if (!reservation.isAssigned()) {
+                movable.add(reservation);
+                waiting++;
+            } else if (reservation.getCheckInDate().isAfter(today)) {
+                movable.add(reservation);
+            } else {
+                lastCheckOut.merge(reservation.getRoom(), reservation.getCheckOutDate(), 
+                    (a, b) -> a.isAfter(b) ? a : b);
+            }
+        }
+        movable.sort(Comparator.comparing(Reservation::getCheckInDate)
+            .thenComparing(Reservation::getCheckOutDate)
+            .thenComparing(Reservation::getReservationId));
+
+        TreeMap<LocalDate, ArrayList<Room>> roomsByLastCheckOut = new TreeMap<>();
+        for (Room room : typeRooms) {
+            roomsByLastCheckOut.computeIfAbsent(lastCheckOut.getOrDefault(room, LocalDate.MIN), 
+                date -> new ArrayList<>()).add(room);
+        }
+
+        HashMap<Reservation, Room> assignments = new HashMap<>();
+        for (Reservation reservation : movable) {
+            Map.Entry<LocalDate, ArrayList<Room>> closest = 
+                roomsByLastCheckOut.lowerEntry(reservation.getCheckInDate());
+            if (closest == null) {
+                assignments.clear();
+                break;
+            }
+            // Landing one free day after a stay would strand that day; a room
+            // that leaves a longer, sellable gap is preferred when one exists.
+            if (ChronoUnit.DAYS.between(closest.getKey(), reservation.getCheckInDate()) == 2) {
+                Map.Entry<LocalDate, ArrayList<Room>> farther = 
+                    roomsByLastCheckOut.lowerEntry(closest.getKey());
+                if (farther != null) {
+                    closest = farther;
+                }
+            }
+
+            ArrayList<Room> candidates = closest.getValue();
+            Room room = candidates.remove(candidates.size() - 1);
+            if (candidates.isEmpty()) {
+                roomsByLastCheckOut.remove(closest.getKey());
+            }
+            roomsByLastCheckOut.computeIfAbsent(reservation.getCheckOutDate(), 
+                date -> new ArrayList<>()).add(room);
+            assignments.put(reservation, room);
+        }
+
+        HashMap<Reservation, Room> current = new HashMap<>();
+        for (Reservation reservation : active) {
+            if (reservation.isAssigned()) {
+                current.put(reservation, reservation.getRoom());
+            }
+        }
+        HashMap<Reservation, Room> proposed = new HashMap<>(current);
+        proposed.putAll(assignments);
+        if (assignments.isEmpty()) {
+            placeUnassigned(proposed, movable, typeRooms, today);
+        }
+        ArrayList<Reservation> placed = new ArrayList<>();
+        for (Reservation reservation : movable) {
+            if (proposed.containsKey(reservation)) placed.add(reservation);
+        }
+        relocateGapStays(proposed, placed, typeRooms, today);
+
+        int reassignedCount = 0;
+        int assignedCount = 0;
+        for (Reservation reservation : placed) {
+            Room room = proposed.get(reservation);
+            assignments.put(reservation, room);
+            if (!reservation.isAssigned()) {
+                assignedCount++;
+            } else if (room != reservation.getRoom()) {
+                reassignedCount++;
+            }
+        }
+
+        int gapDaysBefore = countGapDays(current, today);
+        int gapDaysAfter = countGapDays(proposed, today);
+        if (assignedCount == 0 && gapDaysAfter >= gapDaysBefore) {
+            return null;
+        }
+        return new RoomAssignmentPlan(roomType, assignments, reassignedCount, assignedCount, 
+            waiting - assignedCount, gapDaysBefore, gapDaysAfter);
+    }
+
+    // Gives each booking still without a room, in check-in order, the first
+    // room of the type it fits in next to what is already placed.
+    private static void placeUnassigned(HashMap<Reservation, Room> proposed, List<Reservation> movable, 
+                                        List<Room> typeRooms, LocalDate today) {
+        HashMap<Room, TreeMap<LocalDate, Reservation>> schedules = new HashMap<>();
+        for (Room room : typeRooms) {
+            schedules.put(room, new TreeMap<>());
+        }
+        for (Map.Entry<Reservation, Room> assignment : proposed.entrySet()) {
+            schedules.computeIfAbsent(assignment.getValue(), room -> new TreeMap<>())
+                .put(assignment.getKey().getCheckInDate(), assignment.getKey());
+        }
+        for (Reservation stay : movable) {
+            if (stay.isAssigned()) continue;
+            for (Room room : typeRooms) {
+                if (insertionGapDays(schedules.get(room), stay, today) >= 0) {
+                    schedules.get(room).put(stay.getCheckInDate(), stay);
+                    proposed.put(stay, room);
+                    break;
+                }
+            }
+        }
+    }
+
+    // Local search after the greedy pass. A movable stay that borders a
+    // stranded day is moved to the room of its type where that saves the
+    // most stranded days: rooms where it lands back to back with a stay
+    // are tried first, then empty rooms, then up to RELOCATION_SCAN_ROOMS
+    // others. Every move lowers the total, so the pass always ends.
+    static void relocateGapStays(HashMap<Reservation, Room> assignments, 
+                                 List<Reservation> movable, List<Room> typeRooms, LocalDate today) {
+        HashMap<Room, TreeMap<LocalDate, Reservation>> schedules = new HashMap<>();
+        LinkedHashSet<Room> emptyRooms = new LinkedHashSet<>(typeRooms);
+        HashMap<LocalDate, LinkedHashSet<Room>> roomsByCheckIn = new HashMap<>();
+        HashMap<LocalDate, LinkedHashSet<Room>> roomsByCheckOut = new HashMap<>();
+        for (Room room : typeRooms) {
+            schedules.put(room, new TreeMap<>());
+        }
+        for (Map.Entry<Reservation, Room> assignment : assignments.entrySet()) {
+            placeStay(assignment.getKey(), assignment.getValue(), schedules, emptyRooms, 
+                roomsByCheckIn, roomsByCheckOut);
+        }
+
+        HashSet<Reservation> isMovable = new HashSet<>(movable);
+        ArrayDeque<Reservation> pending = new ArrayDeque<>(movable);
+        while (!pending.isEmpty()) {
+            Reservation stay = pending.poll();
+            Room from = assignments.get(stay);
+            TreeMap<LocalDate, Reservation> fromSchedule = schedules.get(from);
+            Reservation before = valueOf(fromSchedule.lowerEntry(stay.getCheckInDate()));
+            Reservation after = valueOf(fromSchedule.higherEntry(stay.getCheckInDate()));
+            int saved = gapDay(before, stay, today) + gapDay(stay, after, today) 
+                - gapDay(before, after, today);
+            if (saved <= 0) continue;
+
+            LinkedHashSet<Room> candidates = new LinkedHashSet<>();
+            candidates.addAll(roomsByCheckOut.getOrDefault(stay.getCheckInDate().minusDays(1), 
+                new LinkedHashSet<>()));
+            candidates.addAll(roomsByCheckIn.getOrDefault(stay.getCheckOutDate().plusDays(1), 
+                new LinkedHashSet<>()));
+            if (!emptyRooms.isEmpty()) {
+                candidates.add(emptyRooms.iterator().next());
+            }
+            for (int i = 0; i < Math.min(RELOCATION_SCAN_ROOMS, typeRooms.size()); i++) {
+                candidates.add(typeRooms.get(i));
+            }
+
+            Room best = null;
+            int bestChange = 0;
+            for (Room candidate : candidates) {
+                if (candidate == from) continue;
+                int added = insertionGapDays(schedules.get(candidate), stay, today);
+                if (added >= 0 && added - saved < bestChange) {
+                    best = candidate;
+                    bestChange = added - saved;
+                }
+            }
+            if (best == null) continue;
+
+            removeStay(stay, from, schedules, emptyRooms, roomsByCheckIn, roomsByCheckOut);
+            placeStay(stay, best, schedules, emptyRooms, roomsByCheckIn, roomsByCheckOut);
+            assignments.put(stay, best);
+            // The stays left next to each other may now strand a day.
+            if (before != null && isMovable.contains(before)) pending.add(before);
+            if (after != null && isMovable.contains(after)) pending.add(after);
+        }
+    }
+
+    // Stranded days the stay would add to the room, or -1 if it does not fit.
+    private static int insertionGapDays(TreeMap<LocalDate, Reservation> schedule, Reservation stay, 
+                                        LocalDate today) {
+        Reservation before = valueOf(schedule.lowerEntry(stay.getCheckInDate()));
+        Reservation after = valueOf(schedule.ceilingEntry(stay.getCheckInDate()));
+        if ((before != null && !before.getCheckOutDate().isBefore(stay.getCheckInDate())) || 
+            (after != null && !after.getCheckInDate().isAfter(stay.getCheckOutDate()))) {
+            return -1;
+        }
+        return gapDay(before, stay, today) + gapDay(stay, after, today) - gapDay(before, after, today);
+    }
+
+    // 1 if exactly one free day separates the two stays, by countGapDays's rule.
+    private static int gapDay(Reservation earlier, Reservation later, LocalDate today) {
+        if (earlier == null || later == null || earlier.getCheckOutDate().isBefore(today)) {
+            return 0;
+        }
+        return ChronoUnit.DAYS.between(earlier.getCheckOutDate(), later.getCheckInDate()) == 2 ? 1 : 0;
+    }
+
+    private static Reservation valueOf(Map.Entry<LocalDate, Reservation> entry) {
+        return entry == null ? null : entry.getValue();
+    }
+
+    private static void placeStay(Reservation stay, Room room, 
+                                  HashMap<Room, TreeMap<LocalDate, Reservation>> schedules, 
+                                  LinkedHashSet<Room> emptyRooms, 
+                                  HashMap<LocalDate, LinkedHashSet<Room>> roomsByCheckIn, 
+                                  HashMap<LocalDate, LinkedHashSet<Room>> roomsByCheckOut) {
+        schedules.computeIfAbsent(room, r -> new TreeMap<>()).put(stay.getCheckInDate(), stay);
+        emptyRooms.remove(room);
+        roomsByCheckIn.computeIfAbsent(stay.getCheckInDate(), date -> new LinkedHashSet<>()).add(room);
+        roomsByCheckOut.computeIfAbsent(stay.getCheckOutDate(), date -> new LinkedHashSet<>()).add(room);
+    }
+
+    private static void removeStay(Reservation stay, Room room, 
+                                   HashMap<Room, TreeMap<LocalDate, Reservation>> schedules, 
+                                   LinkedHashSet<Room> emptyRooms, 
+                                   HashMap<LocalDate, LinkedHashSet<Room>> roomsByCheckIn, 
+                                   HashMap<LocalDate, LinkedHashSet<Room>> roomsByCheckOut) {
+        TreeMap<LocalDate, Reservation> schedule = schedules.get(room);
+        schedule.remove(stay.getCheckInDate());
+        if (schedule.isEmpty()) emptyRooms.add(room);
+        // A room holds at most one stay starting or ending on a given day.
+        roomsByCheckIn.get(stay.getCheckInDate()).remove(room);
+        roomsByCheckOut.get(stay.getCheckOutDate()).remove(room);
+    }
+
+    // Free single days between two stays in the same room can never be sold:
+    // a stay needs both its check-in and check-out day clear of neighbours.
+    private static int countGapDays(Map<Reservation, Room> assignments, LocalDate today) {
+        HashMap<Room, ArrayList<Reservation>> byRoom = new HashMap<>();
+        for (Map.Entry<Reservation, Room> assignment : assignments.entrySet()) {
+            byRoom.computeIfAbsent(assignment.getValue(), room -> new ArrayList<>())
+                .add(assignment.getKey());
+        }
+
+        int gapDays = 0;
+        for (ArrayList<Reservation> stays : byRoom.values()) {
+            stays.sort(Comparator.comparing(Reservation::getCheckInDate));
+            for (int i = 1; i < stays.size(); i++) {
+                LocalDate previousCheckOut = stays.get(i - 1).getCheckOutDate();
+                if (previousCheckOut.isBefore(today)) continue;
+                if (ChronoUnit.DAYS.between(previousCheckOut, stays.get(i).getCheckInDate()) == 2) {
+                    gapDays++;
+                }
+            }
+        }
+        return gapDays;
+    }
+
+    // All old bookings are released before any new one is claimed, so two
+    // stays swapping rooms never collide on the same check-in key. If any
+    // stay cannot be placed, every move is undone and the plan is dropped.
+    private boolean applyRoomAssignments(RoomAssignmentPlan plan) {
+        ArrayList<Reservation> moves = new ArrayList<>();
+        for (Map.Entry<Reservation, Room> assignment : plan.getAssignments().entrySet()) {
+            if (assignment.getKey().getRoom() != assignment.getValue()) {
+                moves.add(assignment.getKey());
+            }
+        }
+
+        for (Reservation reservation : moves) {
+            releaseStay(reservation);
+        }
+        for (int placed = 0; placed < moves.size(); placed++) {
+            Reservation reservation = moves.get(placed);
+            Room room = plan.getAssignments().get(reservation);
+            if (!room.tryAssign(reservation.getCheckInDate(), reservation.getCheckOutDate())) {
+                for (int i = 0; i < placed; i++) {
+                    Reservation undone = moves.get(i);
+                    plan.getAssignments().get(undone).removeBooking(undone.getCheckInDate());
+                }
+                for (Reservation restored : moves) {
+                    occupyStay(restored);
+                }
+                invalidateSearches(moves);
+                return false;
+            }
+        }
+        invalidateSearches(moves);
+
+        // Same type and dates, so the guest keeps the price they booked at.
+        for (Reservation reservation : moves) {
+            reservation.reschedule(plan.getAssignments().get(reservation), reservation.getRoomType(), 
+                reservation.getCheckInDate(), reservation.getCheckOutDate(), reservation.getTotalCostCents());
+        }
+        journal.recordChanges(moves);
+        return true;
+    }
+
+    // Searches run without the inventory lock, so this comes after the rooms
+    // reached their final state.
+    private void invalidateSearches(List<Reservation> moved) {
+        for (Reservation reservation : moved) {
+            searchCache.invalidate(reservation.getCheckInDate(), reservation.getCheckOutDate());
+        }
+    }
+
+    HotelMetrics getMetrics() {
+        return metrics;
+    }
+
+    public int getSkippedJournalEntries() {
+        return skippedJournalEntries;
+    }
+
+    public int getTornJournalEntries() {
+        return tornJournalEntries;
+    }
+
+    ReservationJournal getJournal() {
+        return journal;
+    }
+
+    public void viewMetrics() {
+        PrintWriter out = new PrintWriter(new OutputStreamWriter(System.out));
+        out.println("\n=== METRICS ===");
+        metrics.print(out);
+        out.flush();
+    }
+
+    // Stops this property's background work and closes its journal; the
+    // shared archiver and batcher threads keep serving other properties.
+    public void shutdown() {
+        maintenanceTask.cancel(false);
+        paymentHolds.values().forEach(hold -> hold.cancel(false));
+        paymentHolds.clear();
+        paymentProcessor.shutdown();
+        metrics.unregister();
+        journal.close();
+    }
+
     public void run() {
+        scanner = new Scanner(System.in);
         while (true) {
             System.out.println("\n--- Hotel Reservation System ---");
             System.out.println("1. Search Available Rooms");
             System.out.println("2. Make Reservation");
             System.out.println("3. View Reservations");
-            System.out.println("4. Exit");
+            System.out.println("4. Find Reservations");
+            System.out.println("5. Manage Reservation");
+            System.out.println("6. View Daily Arrivals and Departures");
+            System.out.println("7. Export Reservations (CSV)");
+            System.out.println("8. View Metrics");
+            System.out.println("9. Optimize Room Assignments");
+            System.out.println("10. Exit");
             System.out.print("Choose an option: ");
 
             String choice = scanner.nextLine();
@@ -300,7 +3792,26 @@ class HotelReservationSystem {
                     viewReservations();
                     break;
                 case "4":
+                    searchReservations();
+                    break;
+                case "5":
+                    manageReservation();
+                    break;
+                case "6":
+                    viewDailyArrivals();
+                    break;
+                case "7":
+                    exportReservations();
+                    break;
+                case "8":
+                    viewMetrics();
+                    break;
+                case "9":
+                    optimizeRoomAssignments();
+                    break;
+                case "10":
                     System.out.println("Exiting Hotel Reservation System...");
+                    shutdown();
                     scanner.close();
                     return;
                 default:
@@ -309,8 +3820,23 @@ class HotelReservationSystem {
         }
     }
 
-    public static void main(String[] args) {
+    public static void main(String[] args) throws IOException {
         HotelReservationSystem reservationSystem = new HotelReservationSystem();
+        if (reservationSystem.getSkippedJournalEntries() > 0) {
+            System.out.println("Skipped " + reservationSystem.getSkippedJournalEntries() + 
+                " journal entries that could not be applied.");
+        }
+        if (reservationSystem.getTornJournalEntries() > 0) {
+            System.out.println("Skipped " + reservationSystem.getTornJournalEntries() + 
+                " incomplete journal entries left by a crash.");
+        }
+
+        if (args.length > 0 && args[0].equals("--serve")) {
+            int port = args.length > 1 ? Integer.parseInt(args[1]) : 8080;
+            new HotelHttpService(reservationSystem, port).start();
+            return;
+        }
+
         reservationSystem.run();
     }
 }
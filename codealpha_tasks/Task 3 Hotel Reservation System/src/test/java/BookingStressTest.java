@@ -0,0 +1,201 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+// Many sessions booking the same few rooms at once must never end up with
+// two stays on one room that share a night, in memory or after a restart.
+class BookingStressTest {
+    private static final int ROOMS = 20;
+    private static final int THREADS = 64;
+    private static final int BOOKINGS = 5_000;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void concurrentBookingsNeverOverlap() throws Exception {
+        String propertyName = writeRooms();
+        HotelReservationSystem system = new HotelReservationSystem(propertyName);
+        List<Reservation> confirmed;
+        try {
+            confirmed = bookConcurrently(system);
+            assertNoOverlaps(system.listReservations());
+            assertEquals(new HashSet<>(confirmed), new HashSet<>(system.listReservations()));
+            assertTrue(confirmed.size() > ROOMS, "expected most rooms to take several stays");
+            assertTrue(confirmed.size() < BOOKINGS, "expected some requests to collide");
+        } finally {
+            system.shutdown();
+        }
+
+        HotelReservationSystem restarted = new HotelReservationSystem(propertyName);
+        try {
+            assertNoOverlaps(restarted.listReservations());
+            HashSet<String> confirmedIds = new HashSet<>();
+            for (Reservation reservation : confirmed) {
+                confirmedIds.add(reservation.getReservationId());
+            }
+            HashSet<String> recoveredIds = new HashSet<>();
+            for (Reservation reservation : restarted.listReservations()) {
+                recoveredIds.add(reservation.getReservationId());
+            }
+            assertEquals(confirmedIds, recoveredIds);
+        } finally {
+            restarted.shutdown();
+        }
+    }
+
+    // Type bookings racing for the same nights get one room each until the
+    // type is sold out, inside the calendar and beyond it alike. Inside it
+    // the rooms are only handed out by the optimizer.
+    @Test
+    void concurrentTypeBookingsFillEveryRoomOnce() throws Exception {
+        String propertyName = writeRooms();
+        HotelReservationSystem system = new HotelReservationSystem(propertyName);
+        int standardRooms = ROOMS / RoomType.values().length;
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        try {
+            LocalDate[] checkIns = {LocalDate.now().plusDays(2), LocalDate.now().plusDays(500)};
+            for (LocalDate checkIn : checkIns) {
+                CountDownLatch start = new CountDownLatch(1);
+                ArrayList<Future<Reservation>> results = new ArrayList<>();
+                for (int i = 0; i < THREADS; i++) {
+                    String guest = "Guest " + i;
+                    results.add(pool.submit(() -> {
+                        start.await();
+                        return system.bookRoomType(guest, RoomType.STANDARD, checkIn, checkIn.plusDays(3), 1);
+                    }));
+                }
+                start.countDown();
+
+                ArrayList<Reservation> booked = new ArrayList<>();
+                for (Future<Reservation> result : results) {
+                    Reservation reservation = result.get(60, TimeUnit.SECONDS);
+                    if (reservation != null) booked.add(reservation);
+                }
+                assertEquals(standardRooms, booked.size(), () -> "rooms booked from " + checkIn);
+                system.optimizeRoomAssignments(LocalDate.now());
+
+                HashSet<String> rooms = new HashSet<>();
+                for (Reservation reservation : booked) {
+                    assertEquals(RoomType.STANDARD, reservation.getRoom().getRoomType());
+                    assertTrue(rooms.add(reservation.getRoom().getRoomNumber()));
+                }
+                assertEquals(standardRooms, rooms.size(), () -> "rooms booked from " + checkIn);
+            }
+            assertNoOverlaps(system.listReservations());
+        } finally {
+            pool.shutdownNow();
+            system.shutdown();
+        }
+    }
+
+    // A booking the journal cannot record must not keep its room: the next
+    // guest gets the dates, and nothing about the failed one survives.
+    @Test
+    void failedJournalWriteReleasesTheRoom() throws Exception {
+        String propertyName = writeRooms();
+        HotelReservationSystem system = new HotelReservationSystem(propertyName);
+        LocalDate checkIn = LocalDate.now().plusDays(1);
+        LocalDate checkOut = checkIn.plusDays(2);
+        try {
+            // A directory in the journal's place makes every write fail.
+            Path journal = Path.of(propertyName + "_reservations.journal");
+            Files.deleteIfExists(journal);
+            Files.createDirectory(journal);
+
+            assertThrows(UncheckedIOException.class, 
+                () -> system.bookRoom("Guest", "100", checkIn, checkOut, 1));
+            assertTrue(system.isRoomAvailable(system.findRoom("100"), checkIn, checkOut));
+            assertTrue(system.listReservations().isEmpty());
+        } finally {
+            system.shutdown();
+        }
+    }
+
+    private String writeRooms() throws IOException {
+        StringBuilder layout = new StringBuilder();
+        RoomType[] types = RoomType.values();
+        for (int i = 0; i < ROOMS; i++) {
+            layout.append(100 + i).append(',').append(types[i % types.length]).append('\n');
+        }
+        String propertyName = directory.resolve("stress").toString();
+        Files.write(Path.of(propertyName + "_rooms.txt"), layout.toString().getBytes(StandardCharsets.UTF_8));
+        return propertyName;
+    }
+
+    // JDK 17 has no virtual threads, so a fixed pool of platform threads
+    // stands in for the concurrent sessions; all of them start together.
+    private static List<Reservation> bookConcurrently(HotelReservationSystem system) throws Exception {
+        LocalDate firstNight = LocalDate.now().plusDays(1);
+        Random random = new Random(42);
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        ArrayList<Future<Reservation>> results = new ArrayList<>();
+        try {
+            for (int i = 0; i < BOOKINGS; i++) {
+                String guest = "Guest " + i;
+                String room = String.valueOf(100 + random.nextInt(ROOMS));
+                LocalDate checkIn = firstNight.plusDays(random.nextInt(60));
+                LocalDate checkOut = checkIn.plusDays(1 + random.nextInt(4));
+                results.add(pool.submit(() -> {
+                    start.await();
+                    return system.bookRoom(guest, room, checkIn, checkOut, 1);
+                }));
+            }
+            start.countDown();
+
+            ArrayList<Reservation> confirmed = new ArrayList<>();
+            for (Future<Reservation> result : results) {
+                Reservation reservation = result.get(60, TimeUnit.SECONDS);
+                if (reservation != null) {
+                    confirmed.add(reservation);
+                }
+            }
+            return confirmed;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    // Stays are inclusive of both dates, so consecutive stays in a room must
+    // not even share a check-out and check-in day.
+    private static void assertNoOverlaps(List<Reservation> reservations) {
+        HashMap<String, ArrayList<Reservation>> byRoom = new HashMap<>();
+        for (Reservation reservation : reservations) {
+            if (reservation.isCancelled()) continue;
+            byRoom.computeIfAbsent(reservation.getRoom().getRoomNumber(), room -> new ArrayList<>())
+                .add(reservation);
+        }
+        for (ArrayList<Reservation> stays : byRoom.values()) {
+            stays.sort(Comparator.comparing(Reservation::getCheckInDate));
+            for (int i = 1; i < stays.size(); i++) {
+                Reservation previous = stays.get(i - 1);
+                Reservation next = stays.get(i);
+                assertTrue(next.getCheckInDate().isAfter(previous.getCheckOutDate()),
+                    () -> previous.getReservationId() + " overlaps " + next.getReservationId()
+                        + " in room " + next.getRoom().getRoomNumber());
+            }
+        }
+    }
+}
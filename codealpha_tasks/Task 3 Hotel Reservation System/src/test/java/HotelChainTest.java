@@ -0,0 +1,48 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+// Each property of a chain keeps its files in its own directory, and a
+// property nobody booked writes nothing at all.
+class HotelChainTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void propertiesKeepTheirFilesApart() {
+        LocalDate tomorrow = LocalDate.now().plusDays(1);
+        HotelChain chain = new HotelChain(directory, List.of("north", "south"));
+        String reservationId;
+        try {
+            reservationId = chain.bookRoom("north", "Ada", "101", tomorrow, tomorrow.plusDays(2), 1)
+                .getReservationId();
+        } finally {
+            chain.getProperty("north").shutdown();
+            chain.getProperty("south").shutdown();
+        }
+
+        assertTrue(Files.exists(directory.resolve("north").resolve("north_reservations.journal")));
+        assertFalse(Files.exists(directory.resolve("south")));
+        assertFalse(Files.exists(Path.of("north_reservations.journal")));
+        assertFalse(Files.exists(Path.of("north_reservations.snapshot")));
+
+        // The layout went into the journal with the first booking, so the
+        // restarted property still knows the room.
+        chain = new HotelChain(directory, List.of("north"));
+        try {
+            Reservation reservation = chain.getProperty("north").findReservation(reservationId);
+            assertEquals("101", reservation.getRoom().getRoomNumber());
+            assertTrue(Files.exists(directory.resolve("north").resolve("north_reservations.snapshot")));
+        } finally {
+            chain.getProperty("north").shutdown();
+        }
+    }
+}
@@ -0,0 +1,118 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+// A room search the hotel cannot answer is refused with 400 rather than
+// answered with every room at no cost, and a failure on the server side is
+// answered with 500 instead of leaving the client waiting.
+class HotelHttpServiceTest {
+    @TempDir
+    Path directory;
+
+    private HotelReservationSystem system;
+    private HotelHttpService service;
+    private HttpClient client;
+    private int port;
+
+    @BeforeEach
+    void start() throws IOException {
+        String propertyName = directory.resolve("hotel").toString();
+        Files.write(Path.of(propertyName + "_rooms.txt"),
+            "100,DELUXE\n101,STANDARD\n".getBytes(StandardCharsets.UTF_8));
+        system = new HotelReservationSystem(propertyName);
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        service = new HotelHttpService(system, port);
+        service.start();
+        client = HttpClient.newHttpClient();
+    }
+
+    @AfterEach
+    void stop() {
+        service.stop();
+        system.shutdown();
+    }
+
+    @Test
+    void rejectsInvertedStays() throws Exception {
+        LocalDate checkIn = LocalDate.now().plusDays(5);
+        HttpResponse<String> response = get("/rooms?checkIn=" + checkIn + "&checkOut=" + checkIn.minusDays(2));
+
+        assertEquals(400, response.statusCode());
+        assertTrue(response.body().contains("Check-out must be after check-in"), response.body());
+    }
+
+    @Test
+    void rejectsEmptyParties() throws Exception {
+        LocalDate checkIn = LocalDate.now().plusDays(5);
+        HttpResponse<String> response = get("/rooms?checkIn=" + checkIn + "&checkOut=" + checkIn.plusDays(2)
+            + "&guests=0");
+
+        assertEquals(400, response.statusCode());
+        assertTrue(response.body().contains("Number of guests must be at least 1"), response.body());
+    }
+
+    @Test
+    void listsRoomsForValidStays() throws Exception {
+        LocalDate checkIn = LocalDate.now().plusDays(5);
+        HttpResponse<String> response = get("/rooms?checkIn=" + checkIn + "&checkOut=" + checkIn.plusDays(2));
+
+        assertEquals(200, response.statusCode());
+        // Cheapest first, as the console lists them.
+        int standard = response.body().indexOf("\"roomNumber\":\"101\"");
+        int deluxe = response.body().indexOf("\"roomNumber\":\"100\"");
+        assertTrue(standard >= 0 && deluxe > standard, response.body());
+    }
+
+    @Test
+    void filtersByRoomType() throws Exception {
+        LocalDate checkIn = LocalDate.now().plusDays(5);
+        HttpResponse<String> response = get("/rooms?checkIn=" + checkIn + "&checkOut=" + checkIn.plusDays(2)
+            + "&roomType=deluxe");
+
+        assertEquals(200, response.statusCode());
+        assertTrue(response.body().contains("\"roomNumber\":\"100\""), response.body());
+        assertFalse(response.body().contains("\"roomNumber\":\"101\""), response.body());
+        assertEquals(400, get("/rooms?checkIn=" + checkIn + "&checkOut=" + checkIn.plusDays(2)
+            + "&roomType=PENTHOUSE").statusCode());
+    }
+
+    @Test
+    void answersServerErrorsWith500() throws Exception {
+        // A directory where the journal should be makes every booking fail to record.
+        Path journal = Path.of(directory.resolve("hotel") + "_reservations.journal");
+        Files.deleteIfExists(journal);
+        Files.createDirectory(journal);
+        LocalDate checkIn = LocalDate.now().plusDays(5);
+        HttpResponse<String> response = client.send(HttpRequest.newBuilder(URI.create(
+                "http://localhost:" + port + "/reservations?guest=Ada&room=100&checkIn=" + checkIn
+                + "&checkOut=" + checkIn.plusDays(2)))
+            .POST(HttpRequest.BodyPublishers.noBody()).build(), HttpResponse.BodyHandlers.ofString());
+
+        assertEquals(500, response.statusCode());
+        assertTrue(response.body().contains("Could not write journal"), response.body());
+        assertEquals(200, get("/rooms?checkIn=" + checkIn + "&checkOut=" + checkIn.plusDays(2)).statusCode());
+    }
+
+    private HttpResponse<String> get(String path) throws IOException, InterruptedException {
+        return client.send(HttpRequest.newBuilder(URI.create("http://localhost:" + port + path)).build(),
+            HttpResponse.BodyHandlers.ofString());
+    }
+}
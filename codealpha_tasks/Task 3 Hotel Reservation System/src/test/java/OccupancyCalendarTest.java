@@ -0,0 +1,153 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import org.junit.jupiter.api.Test;
+
+// The calendar must give the same answers as asking every room's own
+// booking map, through any mix of bookings, cancellations, moves and the
+// window sliding forward.
+class OccupancyCalendarTest {
+    private static final int HORIZON_DAYS = 64;
+    private static final int ROOMS = 40;
+    private static final int STEPS = 20_000;
+
+    @Test
+    void matchesPerRoomBookings() {
+        Random random = new Random(42);
+        LocalDate today = LocalDate.of(2030, 1, 1);
+        OccupancyCalendar calendar = new OccupancyCalendar(today, HORIZON_DAYS);
+        RoomType[] types = RoomType.values();
+        List<Room> rooms = new ArrayList<>();
+        for (int i = 0; i < ROOMS; i++) {
+            Room room = new Room(String.valueOf(100 + i), types[random.nextInt(types.length)]);
+            room.attachTo(calendar);
+            rooms.add(room);
+        }
+        // What each room holds, kept apart from the rooms themselves.
+        List<TreeMap<LocalDate, LocalDate>> expected = new ArrayList<>();
+        for (int i = 0; i < ROOMS; i++) {
+            expected.add(new TreeMap<>());
+        }
+
+        for (int step = 0; step < STEPS; step++) {
+            int r = random.nextInt(ROOMS);
+            Room room = rooms.get(r);
+            TreeMap<LocalDate, LocalDate> bookings = expected.get(r);
+            LocalDate checkIn = today.plusDays(random.nextInt(HORIZON_DAYS + 20) - 10);
+            LocalDate checkOut = checkIn.plusDays(1 + random.nextInt(6));
+
+            switch (random.nextInt(10)) {
+                case 0, 1, 2, 3 -> {
+                    if (room.tryBook(checkIn, checkOut)) bookings.put(checkIn, checkOut);
+                }
+                case 4, 5 -> {
+                    if (bookings.isEmpty()) break;
+                    LocalDate booked = randomKey(bookings, random);
+                    room.removeBooking(booked);
+                    bookings.remove(booked);
+                }
+                case 6 -> {
+                    if (bookings.isEmpty()) break;
+                    LocalDate booked = randomKey(bookings, random);
+                    LocalDate bookedCheckOut = bookings.get(booked);
+                    if (room.tryRebook(booked, checkIn, checkOut)) {
+                        bookings.remove(booked);
+                        bookings.put(checkIn, checkOut);
+                    } else {
+                        assertEquals(bookedCheckOut, bookings.get(booked));
+                    }
+                }
+                case 7 -> {
+                    if (random.nextInt(20) == 0) {
+                        today = today.plusDays(1 + random.nextInt(5));
+                        calendar.advanceTo(today, rooms);
+                    }
+                }
+                default -> assertSameAnswers(calendar, rooms, expected, today, random);
+            }
+        }
+    }
+
+    @Test
+    void rejectsInvertedStays() {
+        LocalDate today = LocalDate.of(2030, 1, 1);
+        OccupancyCalendar calendar = new OccupancyCalendar(today, HORIZON_DAYS);
+        new Room("100", RoomType.STANDARD).attachTo(calendar);
+
+        assertThrows(IllegalArgumentException.class,
+            () -> calendar.findFreeRooms(today.plusDays(5), today.plusDays(2), 1));
+        assertThrows(IllegalArgumentException.class,
+            () -> calendar.findFreeRooms(today.plusDays(5), today.plusDays(2), RoomType.STANDARD));
+        assertThrows(IllegalArgumentException.class,
+            () -> calendar.countFreeRooms(RoomType.STANDARD, today.plusDays(5), today.plusDays(2)));
+    }
+
+    private static void assertSameAnswers(OccupancyCalendar calendar, List<Room> rooms,
+                                          List<TreeMap<LocalDate, LocalDate>> expected,
+                                          LocalDate today, Random random) {
+        LocalDate checkIn = today.plusDays(random.nextInt(HORIZON_DAYS + 10) - 5);
+        LocalDate checkOut = checkIn.plusDays(1 + random.nextInt(10));
+        boolean inWindow = !checkIn.isBefore(today) && checkOut.isBefore(today.plusDays(HORIZON_DAYS));
+        int guests = 1 + random.nextInt(4);
+        RoomType type = RoomType.values()[random.nextInt(RoomType.values().length)];
+
+        BitSet byGuests = calendar.findFreeRooms(checkIn, checkOut, guests);
+        BitSet byType = calendar.findFreeRooms(checkIn, checkOut, type);
+        int freeOfType = calendar.countFreeRooms(type, checkIn, checkOut);
+        if (!inWindow) {
+            assertNull(byGuests);
+            assertNull(byType);
+            assertEquals(-1, freeOfType);
+            return;
+        }
+
+        BitSet expectedByGuests = new BitSet();
+        BitSet expectedByType = new BitSet();
+        for (int i = 0; i < rooms.size(); i++) {
+            RoomType roomType = rooms.get(i).getRoomType();
+            if (!isFree(expected.get(i), checkIn, checkOut)) continue;
+            if (roomType.getMaxOccupancy() >= guests) expectedByGuests.set(i);
+            if (roomType == type) expectedByType.set(i);
+        }
+        assertEquals(expectedByGuests, byGuests, () -> "rooms for " + guests + " from " + checkIn);
+        assertEquals(expectedByType, byType, () -> type + " rooms from " + checkIn);
+
+        // Free rooms of the type on the busiest day of the stay.
+        int expectedFree = Integer.MAX_VALUE;
+        for (LocalDate day = checkIn; !day.isAfter(checkOut); day = day.plusDays(1)) {
+            int free = 0;
+            for (int i = 0; i < rooms.size(); i++) {
+                if (rooms.get(i).getRoomType() == type && isFree(expected.get(i), day, day)) free++;
+            }
+            expectedFree = Math.min(expectedFree, free);
+        }
+        assertEquals(expectedFree, freeOfType, () -> type + " count from " + checkIn);
+    }
+
+    // Stays hold both their check-in and check-out day.
+    private static boolean isFree(TreeMap<LocalDate, LocalDate> bookings, LocalDate checkIn, LocalDate checkOut) {
+        for (Map.Entry<LocalDate, LocalDate> booking : bookings.entrySet()) {
+            if (!booking.getKey().isAfter(checkOut) && !booking.getValue().isBefore(checkIn)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static LocalDate randomKey(TreeMap<LocalDate, LocalDate> bookings, Random random) {
+        int index = random.nextInt(bookings.size());
+        for (LocalDate key : bookings.keySet()) {
+            if (index-- == 0) return key;
+        }
+        throw new AssertionError();
+    }
+}
@@ -0,0 +1,32 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+// Every latency lands in a bucket whose reported bound is at most 1/32 above
+// it, and buckets never go backwards as latencies grow.
+class OperationTimerTest {
+    @Test
+    void bucketBoundsStayWithinOneThirtySecond() {
+        Random random = new Random(7);
+        for (int i = 0; i < 100_000; i++) {
+            long nanos = 1 + (random.nextLong() >>> (1 + random.nextInt(63)));
+            long bound = OperationTimer.upperBoundOf(OperationTimer.bucketOf(nanos));
+            assertTrue(bound >= nanos, () -> nanos + " reported as " + bound);
+            assertTrue(bound - nanos <= nanos / 32, () -> nanos + " reported as " + bound);
+        }
+        assertEquals(Long.MAX_VALUE, OperationTimer.upperBoundOf(OperationTimer.bucketOf(Long.MAX_VALUE)));
+    }
+
+    @Test
+    void bucketsAreOrdered() {
+        int previous = OperationTimer.bucketOf(1);
+        for (long nanos = 2; nanos < 1 << 20; nanos++) {
+            int bucket = OperationTimer.bucketOf(nanos);
+            assertTrue(bucket == previous || bucket == previous + 1, "gap before " + nanos);
+            previous = bucket;
+        }
+    }
+}
@@ -0,0 +1,53 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+// Whatever the gateway does, every submitted reservation gets an answer.
+class PaymentProcessorTest {
+    private static final LocalDate CHECK_IN = LocalDate.of(2030, 3, 1);
+
+    @Test
+    void gatewayThatThrowsFailsTheWholeBatch() throws Exception {
+        PaymentProcessor processor = new PaymentProcessor(batch -> {
+            throw new IllegalStateException("gateway down");
+        }, 2, 10);
+        CompletableFuture<Boolean> first = processor.submit(reservation("Ada"));
+        CompletableFuture<Boolean> second = processor.submit(reservation("Ben"));
+
+        for (CompletableFuture<Boolean> result : List.of(first, second)) {
+            ExecutionException error = assertThrows(ExecutionException.class,
+                () -> result.get(5, TimeUnit.SECONDS));
+            assertEquals("gateway down", error.getCause().getMessage());
+        }
+
+        // The periodic flush keeps running after a failed batch.
+        processor.submit(reservation("Cal"));
+        processor.shutdown();
+    }
+
+    @Test
+    void missingApprovalsFailOnlyTheUnansweredRequests() throws Exception {
+        PaymentProcessor processor = new PaymentProcessor(
+            batch -> CompletableFuture.completedFuture(List.of(true)), 3, 10);
+        CompletableFuture<Boolean> first = processor.submit(reservation("Ada"));
+        CompletableFuture<Boolean> second = processor.submit(reservation("Ben"));
+        CompletableFuture<Boolean> third = processor.submit(reservation("Cal"));
+
+        assertTrue(first.get(5, TimeUnit.SECONDS));
+        assertThrows(ExecutionException.class, () -> second.get(5, TimeUnit.SECONDS));
+        assertThrows(ExecutionException.class, () -> third.get(5, TimeUnit.SECONDS));
+        processor.shutdown();
+    }
+
+    private static Reservation reservation(String guest) {
+        return new Reservation(guest, new Room("101", RoomType.STANDARD), CHECK_IN, CHECK_IN.plusDays(2), 1);
+    }
+}
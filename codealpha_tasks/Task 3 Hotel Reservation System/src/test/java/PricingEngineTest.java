@@ -0,0 +1,95 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.HashMap;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+// Occupancy surcharges apply per night from the calendar, and a booking
+// keeps the price it was quoted through later bookings and restarts.
+class PricingEngineTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void surchargesNightsThatAreNearlySoldOut() {
+        LocalDate today = LocalDate.of(2030, 3, 4);
+        OccupancyCalendar calendar = new OccupancyCalendar(today, 30);
+        Room[] rooms = new Room[4];
+        for (int i = 0; i < rooms.length; i++) {
+            rooms[i] = new Room(String.valueOf(100 + i), RoomType.STANDARD);
+            rooms[i].attachTo(calendar);
+        }
+        LocalDate night = today.plusDays(7);
+        long base = PricingEngine.quoteCents(RoomType.STANDARD, night, night.plusDays(1), 1);
+
+        rooms[0].addBooking(night, night);
+        rooms[1].addBooking(night, night);
+        assertEquals(base, PricingEngine.quoteCents(RoomType.STANDARD, night, night.plusDays(1), 1, calendar));
+
+        rooms[2].addBooking(night, night);
+        assertEquals(base * 110 / 100,
+            PricingEngine.quoteCents(RoomType.STANDARD, night, night.plusDays(1), 1, calendar));
+
+        rooms[3].addBooking(night, night);
+        assertEquals(base * 125 / 100,
+            PricingEngine.quoteCents(RoomType.STANDARD, night, night.plusDays(1), 1, calendar));
+
+        // Other types and nights outside the window are not affected.
+        assertEquals(PricingEngine.quoteCents(RoomType.SUITE, night, night.plusDays(1), 1),
+            PricingEngine.quoteCents(RoomType.SUITE, night, night.plusDays(1), 1, calendar));
+        LocalDate later = today.plusDays(60);
+        assertEquals(PricingEngine.quoteCents(RoomType.STANDARD, later, later.plusDays(3), 1),
+            PricingEngine.quoteCents(RoomType.STANDARD, later, later.plusDays(3), 1, calendar));
+    }
+
+    @Test
+    void bookedPriceSurvivesRestart() throws IOException {
+        String propertyName = directory.resolve("hotel").toString();
+        Files.write(Path.of(propertyName + "_rooms.txt"),
+            "100,STANDARD\n101,STANDARD\n102,STANDARD\n103,STANDARD\n".getBytes(StandardCharsets.UTF_8));
+        LocalDate checkIn = LocalDate.now().plusDays(3);
+        LocalDate checkOut = checkIn.plusDays(2);
+        long base = PricingEngine.quoteCents(RoomType.STANDARD, checkIn, checkOut, 1);
+
+        HashMap<String, Long> prices = new HashMap<>();
+        HotelReservationSystem system = new HotelReservationSystem(propertyName);
+        try {
+            for (int i = 0; i < 4; i++) {
+                Reservation reservation = system.bookRoom("Guest " + i, String.valueOf(100 + i),
+                    checkIn, checkOut, 1);
+                prices.put(reservation.getReservationId(), reservation.getTotalCostCents());
+            }
+            // The last booking came in with three of four rooms taken.
+            assertEquals(base, prices.values().stream().mapToLong(Long::longValue).min().getAsLong());
+            assertEquals(base * 110 / 100, prices.values().stream().mapToLong(Long::longValue).max().getAsLong());
+        } finally {
+            system.shutdown();
+        }
+
+        // Entries written before prices were journaled are priced from the
+        // rate tables alone. It is paid, so its long-expired hold is kept.
+        Files.write(Path.of(propertyName + "_reservations.journal"),
+            ("BOOK|1|100|" + checkOut.plusDays(5) + "|" + checkOut.plusDays(7) + "|1|Old Guest\nPAY|1\n")
+                .getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+        prices.put("1", PricingEngine.quoteCents(RoomType.STANDARD, checkOut.plusDays(5), checkOut.plusDays(7), 1));
+
+        system = new HotelReservationSystem(propertyName);
+        try {
+            HashMap<String, Long> recovered = new HashMap<>();
+            for (Reservation reservation : system.listReservations()) {
+                recovered.put(reservation.getReservationId(), reservation.getTotalCostCents());
+            }
+            assertEquals(prices, recovered);
+            assertEquals("Old Guest", system.findReservation("1").getGuestName());
+        } finally {
+            system.shutdown();
+        }
+    }
+}
@@ -0,0 +1,294 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletionException;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+// What a restart recovers after the files were left behind by a crash at
+// each point of a write: a half-written journal entry, a snapshot that was
+// renamed into place before the journal moved to its next generation, and
+// temporary files that never got renamed.
+class ReservationJournalTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void tornTailIsSkipped() throws IOException {
+        write("hotel_reservations.journal", "JOURNAL|0\nA\nB\nC-cut-sh");
+
+        ArrayList<String> entries = new ArrayList<>();
+        assertEquals(1, journal().replay(entries::add));
+        assertEquals(List.of("A", "B"), entries);
+    }
+
+    @Test
+    void snapshotWithoutGenerationSwitchReplaysOnlyTheTail() throws IOException {
+        String covered = "JOURNAL|2\nA\nB\n";
+        write("hotel_reservations.journal", covered + "C\n");
+        write("hotel_reservations.snapshot", "SNAPSHOT|2|" + covered.length() + "\nS1\nS2\n");
+
+        ReservationJournal journal = journal();
+        assertEquals(List.of("S1", "S2", "C"), replay(journal));
+        assertEquals(2, journal.getGeneration());
+    }
+
+    @Test
+    void compactedJournalReplaysAfterTheSnapshot() throws IOException {
+        write("hotel_reservations.journal", "JOURNAL|3\nC\nD\n");
+        write("hotel_reservations.snapshot", "SNAPSHOT|2|40\nS1\nS2\n");
+
+        ReservationJournal journal = journal();
+        assertEquals(List.of("S1", "S2", "C", "D"), replay(journal));
+        assertEquals(3, journal.getGeneration());
+    }
+
+    @Test
+    void journalOlderThanTheSnapshotIsIgnored() throws IOException {
+        write("hotel_reservations.journal", "JOURNAL|1\nA\nB\n");
+        write("hotel_reservations.snapshot", "SNAPSHOT|2|0\nS1\n");
+
+        assertEquals(List.of("S1"), replay());
+    }
+
+    @Test
+    void truncatedSnapshotKeepsItsWholeEntries() throws IOException {
+        write("hotel_reservations.snapshot", "SNAPSHOT|0|10\nS1\nS2\nS3-cut");
+
+        assertEquals(List.of("S1", "S2"), replay());
+    }
+
+    @Test
+    void leftoverTemporaryFilesAreIgnored() throws IOException {
+        write("hotel_reservations.journal", "JOURNAL|1\nA\n");
+        write("hotel_reservations.journal.tmp", "JOURNAL|2\nX\n");
+        write("hotel_reservations.snapshot.tmp", "SNAPSHOT|1|10\nY");
+
+        assertEquals(List.of("A"), replay());
+    }
+
+    // A crash left the last booking half written: the earlier bookings come
+    // back, and bookings made after the restart are not glued onto the
+    // broken entry when the journal is replayed again.
+    @Test
+    void restartAfterTornTailKeepsLaterBookings() throws IOException {
+        String propertyName = directory.resolve("hotel").toString();
+        writeRooms(propertyName);
+        LocalDate tomorrow = LocalDate.now().plusDays(1);
+
+        HotelReservationSystem system = new HotelReservationSystem(propertyName);
+        HashSet<String> booked = new HashSet<>();
+        try {
+            booked.add(system.bookRoom("Ada", "100", tomorrow, tomorrow.plusDays(2), 1).getReservationId());
+            booked.add(system.bookRoom("Ben", "101", tomorrow, tomorrow.plusDays(2), 1).getReservationId());
+        } finally {
+            system.shutdown();
+        }
+        Files.write(Path.of(propertyName + "_reservations.journal"),
+            "BOOK|123|102|".getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+
+        system = new HotelReservationSystem(propertyName);
+        try {
+            assertEquals(booked, reservationIds(system));
+            assertEquals(1, system.getTornJournalEntries());
+            booked.add(system.bookRoom("Cy", "102", tomorrow, tomorrow.plusDays(2), 1).getReservationId());
+        } finally {
+            system.shutdown();
+        }
+
+        system = new HotelReservationSystem(propertyName);
+        try {
+            assertEquals(booked, reservationIds(system));
+            assertFalse(system.isRoomAvailable(system.findRoom("102"), tomorrow, tomorrow));
+        } finally {
+            system.shutdown();
+        }
+    }
+
+    // The crash came after the snapshot was renamed into place but before
+    // the journal it covers was cut: bookings it already holds must not be
+    // replayed a second time from the journal.
+    @Test
+    void restartBetweenSnapshotAndGenerationSwitchDoesNotDuplicate() throws IOException {
+        String propertyName = directory.resolve("hotel").toString();
+        writeRooms(propertyName);
+        LocalDate tomorrow = LocalDate.now().plusDays(1);
+
+        HotelReservationSystem system = new HotelReservationSystem(propertyName);
+        HashSet<String> booked = new HashSet<>();
+        try {
+            for (int i = 0; i < 3; i++) {
+                Reservation reservation = system.bookRoom("Guest " + i, String.valueOf(100 + i),
+                    tomorrow, tomorrow.plusDays(3), 1);
+                booked.add(reservation.getReservationId());
+            }
+        } finally {
+            system.shutdown();
+        }
+
+        Path journalPath = Path.of(propertyName + "_reservations.journal");
+        ReservationJournal journal = new ReservationJournal(journalPath,
+            Path.of(propertyName + "_reservations.snapshot"));
+        List<String> entries = replay(journal);
+        journal.writeSnapshot(journal.getGeneration(), Files.size(journalPath), entries);
+
+        system = new HotelReservationSystem(propertyName);
+        try {
+            assertEquals(3, system.listReservations().size());
+            assertEquals(booked, reservationIds(system));
+        } finally {
+            system.shutdown();
+        }
+    }
+
+    // An entry that cannot be applied is skipped; the ones around it are not.
+    @Test
+    void unreadableEntryIsSkipped() throws IOException {
+        String propertyName = directory.resolve("hotel").toString();
+        writeRooms(propertyName);
+        LocalDate tomorrow = LocalDate.now().plusDays(1);
+
+        HotelReservationSystem system = new HotelReservationSystem(propertyName);
+        String first;
+        try {
+            first = system.bookRoom("Ada", "100", tomorrow, tomorrow.plusDays(2), 1).getReservationId();
+        } finally {
+            system.shutdown();
+        }
+        Files.write(Path.of(propertyName + "_reservations.journal"),
+            "BOOK|1|101|not-a-date|2030-01-02|1|Eve\nCANCEL|unknown\n".getBytes(StandardCharsets.UTF_8),
+            StandardOpenOption.APPEND);
+
+        system = new HotelReservationSystem(propertyName);
+        try {
+            assertEquals(Set.of(first), reservationIds(system));
+            assertEquals(2, system.getSkippedJournalEntries());
+            assertTrue(system.isRoomAvailable(system.findRoom("101"), tomorrow, tomorrow.plusDays(2)));
+        } finally {
+            system.shutdown();
+        }
+    }
+
+    // A payment the journal cannot record is not kept either: the
+    // reservation is still waiting for payment, as a restart would see it.
+    @Test
+    void paymentThatCannotBeJournaledIsUndone() throws IOException {
+        String propertyName = directory.resolve("hotel").toString();
+        writeRooms(propertyName);
+        LocalDate tomorrow = LocalDate.now().plusDays(1);
+
+        HotelReservationSystem system = new HotelReservationSystem(propertyName);
+        try {
+            Reservation reservation = system.bookRoom("Ada", "100", tomorrow, tomorrow.plusDays(2), 1);
+            system.getJournal().close();
+
+            assertThrows(CompletionException.class, () -> system.authorizePayment(reservation).join());
+            assertTrue(reservation.isPending());
+        } finally {
+            system.shutdown();
+        }
+    }
+
+    @Test
+    void cancellationThatCannotBeJournaledIsUndone() throws IOException {
+        String propertyName = directory.resolve("hotel").toString();
+        writeRooms(propertyName);
+        LocalDate tomorrow = LocalDate.now().plusDays(1);
+
+        HotelReservationSystem system = new HotelReservationSystem(propertyName);
+        try {
+            Reservation reservation = system.bookRoom("Ada", "100", tomorrow, tomorrow.plusDays(2), 1);
+            system.getJournal().close();
+
+            assertThrows(UncheckedIOException.class,
+                () -> system.cancelReservation(reservation.getReservationId()));
+            assertTrue(reservation.isPending());
+            assertTrue(system.findAvailableRooms(tomorrow, tomorrow.plusDays(2), 1).stream()
+                .noneMatch(room -> room.getRoomNumber().equals("100")));
+        } finally {
+            system.shutdown();
+        }
+    }
+
+    @Test
+    void changeThatCannotBeJournaledIsUndone() throws IOException {
+        String propertyName = directory.resolve("hotel").toString();
+        writeRooms(propertyName);
+        LocalDate tomorrow = LocalDate.now().plusDays(1);
+
+        HotelReservationSystem system = new HotelReservationSystem(propertyName);
+        try {
+            Reservation reservation = system.bookRoom("Ada", "100", tomorrow, tomorrow.plusDays(2), 1);
+            system.getJournal().close();
+
+            // Moving to another room, then to later dates in the same one.
+            assertThrows(UncheckedIOException.class, () -> system.changeReservation(
+                reservation.getReservationId(), "101", tomorrow, tomorrow.plusDays(2)));
+            assertThrows(UncheckedIOException.class, () -> system.changeReservation(
+                reservation.getReservationId(), "100", tomorrow.plusDays(1), tomorrow.plusDays(4)));
+
+            assertEquals("100", reservation.getRoom().getRoomNumber());
+            assertEquals(tomorrow, reservation.getCheckInDate());
+            assertEquals(tomorrow.plusDays(2), reservation.getCheckOutDate());
+            assertEquals(Set.of("101", "102"), availableRoomNumbers(system, tomorrow, tomorrow.plusDays(2)));
+            assertEquals(Set.of("101", "102"), availableRoomNumbers(system, tomorrow.plusDays(1), tomorrow.plusDays(4)));
+        } finally {
+            system.shutdown();
+        }
+    }
+
+    private ReservationJournal journal() {
+        return new ReservationJournal(directory.resolve("hotel_reservations.journal"),
+            directory.resolve("hotel_reservations.snapshot"));
+    }
+
+    private List<String> replay() {
+        return replay(journal());
+    }
+
+    private static List<String> replay(ReservationJournal journal) {
+        ArrayList<String> entries = new ArrayList<>();
+        journal.replay(entries::add);
+        return entries;
+    }
+
+    private void write(String fileName, String content) throws IOException {
+        Files.write(directory.resolve(fileName), content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void writeRooms(String propertyName) throws IOException {
+        Files.write(Path.of(propertyName + "_rooms.txt"),
+            "100,STANDARD\n101,STANDARD\n102,DELUXE\n".getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static HashSet<String> availableRoomNumbers(HotelReservationSystem system,
+                                                        LocalDate checkIn, LocalDate checkOut) {
+        HashSet<String> numbers = new HashSet<>();
+        for (Room room : system.findAvailableRooms(checkIn, checkOut, 1)) {
+            numbers.add(room.getRoomNumber());
+        }
+        return numbers;
+    }
+
+    private static HashSet<String> reservationIds(HotelReservationSystem system) {
+        HashSet<String> ids = new HashSet<>();
+        for (Reservation reservation : system.listReservations()) {
+            ids.add(reservation.getReservationId());
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,61 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+// A broken layout file stops the hotel from opening with a message naming
+// the file and line, and leaves no journal behind that would skip the
+// layout on the next start.
+class RoomLayoutTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void readsRoomsAndComments() throws IOException {
+        HotelReservationSystem system = open("# first floor\n100,standard\n\n101, SUITE \n");
+        try {
+            assertEquals(RoomType.STANDARD, system.findRoom("100").getRoomType());
+            assertEquals(RoomType.SUITE, system.findRoom("101").getRoomType());
+        } finally {
+            system.shutdown();
+        }
+    }
+
+    @Test
+    void reportsTheLineOfAnUnknownType() {
+        assertRejected("100,STANDARD\n# comment\n101,PENTHOUSE\n", "line 3: unknown room type 'PENTHOUSE'");
+    }
+
+    @Test
+    void reportsMalformedLines() {
+        assertRejected("100,STANDARD\n101\n", "line 2: expected roomNumber,ROOM_TYPE");
+        assertRejected("100,STANDARD,extra\n", "line 1: expected roomNumber,ROOM_TYPE");
+        assertRejected(" ,STANDARD\n", "line 1: invalid room number ''");
+        assertRejected("1|0,STANDARD\n", "line 1: invalid room number '1|0'");
+    }
+
+    @Test
+    void rejectsDuplicateRoomNumbers() {
+        assertRejected("100,STANDARD\n101,DELUXE\n100,SUITE\n", "line 3: room 100 is listed twice");
+    }
+
+    private void assertRejected(String layout, String expectedProblem) {
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> open(layout));
+        Path layoutPath = directory.resolve("hotel_rooms.txt");
+        assertEquals("Room layout " + layoutPath + " " + expectedProblem, e.getMessage());
+        assertFalse(Files.exists(directory.resolve("hotel_reservations.journal")));
+    }
+
+    private HotelReservationSystem open(String layout) throws IOException {
+        String propertyName = directory.resolve("hotel").toString();
+        Files.write(Path.of(propertyName + "_rooms.txt"), layout.getBytes(StandardCharsets.UTF_8));
+        return new HotelReservationSystem(propertyName);
+    }
+}
@@ -0,0 +1,195 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+// On hotels small enough to try every assignment, a plan the optimizer
+// proposes must keep stays apart, report its stranded days truthfully and
+// strictly improve on the current layout, and can never beat the optimum.
+class RoomOptimizerTest {
+    private static final LocalDate TODAY = LocalDate.of(2030, 1, 1);
+    private static final int TRIALS = 500;
+
+    @Test
+    void plansAreFeasibleAndNeverBeatTheOptimum() {
+        Random random = new Random(11);
+        int improvable = 0;
+        int optimal = 0;
+        for (int trial = 0; trial < TRIALS; trial++) {
+            List<Room> rooms = new ArrayList<>();
+            for (int i = 0; i < 2 + random.nextInt(2); i++) {
+                rooms.add(new Room(String.valueOf(100 + i), RoomType.STANDARD));
+            }
+            List<Reservation> active = randomStays(random, rooms);
+            HashMap<Reservation, Room> current = new HashMap<>();
+            List<Reservation> movable = new ArrayList<>();
+            for (Reservation reservation : active) {
+                current.put(reservation, reservation.getRoom());
+                if (reservation.getCheckInDate().isAfter(TODAY)) movable.add(reservation);
+            }
+            int before = gapDays(current);
+            int optimum = bestGapDays(movable, 0, rooms, new HashMap<>(current));
+
+            RoomAssignmentPlan plan = HotelReservationSystem.planRoomAssignments(RoomType.STANDARD, rooms, 
+                active, TODAY);
+            if (optimum < before) improvable++;
+            if (plan == null) continue;
+
+            HashMap<Reservation, Room> proposed = new HashMap<>(current);
+            proposed.putAll(plan.getAssignments());
+            String layout = "trial " + trial + ": " + describe(current) + "-> " + describe(proposed);
+            assertTrue(isFeasible(proposed), layout);
+            assertEquals(before, plan.getGapDaysBefore(), layout);
+            assertEquals(gapDays(proposed), plan.getGapDaysAfter(), layout);
+            assertTrue(plan.getGapDaysAfter() < before, layout);
+            assertTrue(plan.getGapDaysAfter() >= optimum, layout);
+            if (plan.getGapDaysAfter() == optimum) optimal++;
+        }
+        // Greedy plus local search is a heuristic, but on layouts this small
+        // it should find the best one most of the time.
+        int found = optimal;
+        int possible = improvable;
+        assertTrue(possible > TRIALS / 10, "too few improvable layouts: " + possible);
+        assertTrue(found * 10 >= possible * 9, () -> "optimal in " + found + " of " + possible);
+    }
+
+    // The local search on its own, from wherever the stays were booked: it
+    // may only ever move future stays into rooms where they fit, and only
+    // when that strands fewer days.
+    @Test
+    void localSearchOnlyEverImproves() {
+        Random random = new Random(23);
+        int improvable = 0;
+        int improved = 0;
+        for (int trial = 0; trial < TRIALS; trial++) {
+            List<Room> rooms = new ArrayList<>();
+            for (int i = 0; i < 2 + random.nextInt(2); i++) {
+                rooms.add(new Room(String.valueOf(100 + i), RoomType.STANDARD));
+            }
+            HashMap<Reservation, Room> current = new HashMap<>();
+            List<Reservation> movable = new ArrayList<>();
+            for (Reservation reservation : randomStays(random, rooms)) {
+                current.put(reservation, reservation.getRoom());
+                if (reservation.getCheckInDate().isAfter(TODAY)) movable.add(reservation);
+            }
+            int before = gapDays(current);
+            int optimum = bestGapDays(movable, 0, rooms, new HashMap<>(current));
+
+            HashMap<Reservation, Room> relocated = new HashMap<>(current);
+            HotelReservationSystem.relocateGapStays(relocated, movable, rooms, TODAY);
+            String layout = "trial " + trial + ": " + describe(current) + "-> " + describe(relocated);
+            assertTrue(isFeasible(relocated), layout);
+            for (Reservation reservation : current.keySet()) {
+                if (!movable.contains(reservation)) {
+                    assertEquals(current.get(reservation), relocated.get(reservation), layout);
+                }
+            }
+            int after = gapDays(relocated);
+            assertTrue(after <= before && after >= optimum, layout);
+            if (optimum < before) improvable++;
+            if (after < before) improved++;
+        }
+        int found = improved;
+        int possible = improvable;
+        assertTrue(found * 2 >= possible, () -> "improved " + found + " of " + possible);
+    }
+
+    // A few stays that started already and cannot move, then future stays in
+    // whichever room they first fit, starting from a random one.
+    private static List<Reservation> randomStays(Random random, List<Room> rooms) {
+        ArrayList<Reservation> stays = new ArrayList<>();
+        HashMap<Reservation, Room> placed = new HashMap<>();
+        int count = 4 + random.nextInt(5);
+        for (int i = 0; i < count; i++) {
+            LocalDate checkIn = i == 0 && random.nextBoolean() 
+                ? TODAY.minusDays(random.nextInt(3)) : TODAY.plusDays(1 + random.nextInt(12));
+            LocalDate checkOut = checkIn.plusDays(1 + random.nextInt(3));
+            int first = random.nextInt(rooms.size());
+            for (int j = 0; j < rooms.size(); j++) {
+                Room room = rooms.get((first + j) % rooms.size());
+                Reservation stay = new Reservation("r" + i, "Guest " + i, room, checkIn, checkOut, 1);
+                placed.put(stay, room);
+                if (isFeasible(placed)) {
+                    stays.add(stay);
+                    break;
+                }
+                placed.remove(stay);
+            }
+        }
+        return stays;
+    }
+
+    private static int bestGapDays(List<Reservation> movable, int next, List<Room> rooms, 
+                                   HashMap<Reservation, Room> assignments) {
+        if (next == movable.size()) {
+            return isFeasible(assignments) ? gapDays(assignments) : Integer.MAX_VALUE;
+        }
+        int best = Integer.MAX_VALUE;
+        Reservation stay = movable.get(next);
+        Room original = assignments.get(stay);
+        for (Room room : rooms) {
+            assignments.put(stay, room);
+            best = Math.min(best, bestGapDays(movable, next + 1, rooms, assignments));
+        }
+        assignments.put(stay, original);
+        return best;
+    }
+
+    private static HashMap<Room, List<Reservation>> byRoom(Map<Reservation, Room> assignments) {
+        HashMap<Room, List<Reservation>> byRoom = new HashMap<>();
+        for (Map.Entry<Reservation, Room> assignment : assignments.entrySet()) {
+            byRoom.computeIfAbsent(assignment.getValue(), room -> new ArrayList<>()).add(assignment.getKey());
+        }
+        for (List<Reservation> stays : byRoom.values()) {
+            stays.sort(Comparator.comparing(Reservation::getCheckInDate));
+        }
+        return byRoom;
+    }
+
+    // Stays hold both their check-in and check-out day.
+    private static boolean isFeasible(Map<Reservation, Room> assignments) {
+        for (List<Reservation> stays : byRoom(assignments).values()) {
+            for (int i = 1; i < stays.size(); i++) {
+                if (!stays.get(i).getCheckInDate().isAfter(stays.get(i - 1).getCheckOutDate())) return false;
+            }
+        }
+        return true;
+    }
+
+    // A single free day between two stays in a room, unless the first one
+    // has already checked out.
+    private static int gapDays(Map<Reservation, Room> assignments) {
+        int gapDays = 0;
+        for (List<Reservation> stays : byRoom(assignments).values()) {
+            for (int i = 1; i < stays.size(); i++) {
+                LocalDate previousCheckOut = stays.get(i - 1).getCheckOutDate();
+                if (!previousCheckOut.isBefore(TODAY) 
+                    && ChronoUnit.DAYS.between(previousCheckOut, stays.get(i).getCheckInDate()) == 2) {
+                    gapDays++;
+                }
+            }
+        }
+        return gapDays;
+    }
+
+    private static String describe(Map<Reservation, Room> assignments) {
+        StringBuilder text = new StringBuilder();
+        byRoom(assignments).forEach((room, stays) -> {
+            text.append(room.getRoomNumber()).append('=');
+            for (Reservation stay : stays) {
+                text.append('[').append(stay.getCheckInDate()).append("..").append(stay.getCheckOutDate()).append(']');
+            }
+            text.append(' ');
+        });
+        return text.toString();
+    }
+}
@@ -0,0 +1,90 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+// Searches list rooms cheapest first, offer split stays from the calendar
+// and from the per-room fallback alike, and never serve a cached answer
+// that a later booking or cancellation made wrong.
+class RoomSearchTest {
+    @TempDir
+    Path directory;
+
+    private HotelReservationSystem system;
+
+    @BeforeEach
+    void open() throws IOException {
+        String propertyName = directory.resolve("hotel").toString();
+        Files.write(Path.of(propertyName + "_rooms.txt"),
+            "100,DELUXE\n101,STANDARD\n102,STANDARD\n".getBytes(StandardCharsets.UTF_8));
+        system = new HotelReservationSystem(propertyName);
+    }
+
+    @AfterEach
+    void close() {
+        system.shutdown();
+    }
+
+    @Test
+    void listsCheapestFirst() {
+        LocalDate checkIn = LocalDate.now().plusDays(3);
+        RoomSearchResult result = system.searchRooms(checkIn, checkIn.plusDays(2), 1, null);
+
+        assertEquals(List.of("101", "102", "100"), roomNumbers(result));
+        assertEquals(List.of("100"), roomNumbers(system.searchRooms(checkIn, checkIn.plusDays(2), 1, RoomType.DELUXE)));
+    }
+
+    @Test
+    void bookingsAndCancellationsReachCachedSearches() {
+        LocalDate checkIn = LocalDate.now().plusDays(3);
+        LocalDate checkOut = checkIn.plusDays(2);
+        RoomSearchResult first = system.searchRooms(checkIn, checkOut, 1, null);
+        assertSame(first, system.searchRooms(checkIn, checkOut, 1, null));
+
+        // Overlaps only the last day of the cached stay.
+        Reservation reservation = system.bookRoom("Ada", "101", checkOut, checkOut.plusDays(3), 1);
+        assertEquals(List.of("102", "100"), roomNumbers(system.searchRooms(checkIn, checkOut, 1, null)));
+
+        assertTrue(system.cancelReservation(reservation.getReservationId()));
+        assertEquals(List.of("101", "102", "100"), roomNumbers(system.searchRooms(checkIn, checkOut, 1, null)));
+    }
+
+    @Test
+    void splitStaysMatchInsideAndOutsideTheCalendar() {
+        // Far enough out that the calendar cannot answer and rooms are checked one by one.
+        for (LocalDate checkIn : new LocalDate[] {LocalDate.now().plusDays(10), LocalDate.now().plusDays(500)}) {
+            system.bookRoom("Ben", "101", checkIn.minusDays(2), checkIn.plusDays(1), 1);
+            system.bookRoom("Cy", "102", checkIn.plusDays(3), checkIn.plusDays(5), 1);
+            system.bookRoom("Di", "100", checkIn, checkIn.plusDays(4), 1);
+
+            RoomSearchResult result = system.searchRooms(checkIn, checkIn.plusDays(4), 1, RoomType.STANDARD);
+            assertTrue(result.getRooms().isEmpty());
+            SplitStay splitStay = result.getSplitStay();
+            assertNotNull(splitStay, () -> "split stay from " + checkIn);
+            assertEquals("102", splitStay.getFirstRoom().getRoomNumber());
+            assertEquals("101", splitStay.getSecondRoom().getRoomNumber());
+            assertEquals(checkIn.plusDays(2), splitStay.getSwitchDate());
+        }
+    }
+
+    private static List<String> roomNumbers(RoomSearchResult result) {
+        ArrayList<String> numbers = new ArrayList<>();
+        for (Room room : result.getRooms()) {
+            numbers.add(room.getRoomNumber());
+        }
+        return numbers;
+    }
+}
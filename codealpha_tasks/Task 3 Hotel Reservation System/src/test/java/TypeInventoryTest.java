@@ -0,0 +1,111 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.HashSet;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+// Bookings by room type only take a count of the type until the optimizer
+// gives them a room, and the count may run past the rooms by the type's
+// overbooking allowance.
+class TypeInventoryTest {
+    private static final String PROPERTY_NAME = "hotel";
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void allowanceLetsTheTypeSellPastItsRooms() throws IOException {
+        writeRooms();
+        // Far enough out that maintenance leaves the bookings unassigned.
+        LocalDate checkIn = LocalDate.now().plusDays(5);
+        HotelReservationSystem system = new HotelReservationSystem(PROPERTY_NAME, directory);
+        try {
+            system.setOverbookingAllowance(RoomType.STANDARD, 1);
+            for (int i = 0; i < 3; i++) {
+                assertNotNull(system.bookRoomType("Guest " + i, RoomType.STANDARD, checkIn, checkIn.plusDays(2), 1));
+            }
+            assertNull(system.bookRoomType("Guest 3", RoomType.STANDARD, checkIn, checkIn.plusDays(2), 1));
+            // Every room of the type is promised, so none is sold on its own.
+            assertNull(system.bookRoom("Walk-in", "100", checkIn, checkIn.plusDays(2), 1));
+            assertNotNull(system.bookRoomType("Guest 4", RoomType.DELUXE, checkIn, checkIn.plusDays(2), 1));
+
+            List<RoomAssignmentPlan> plans = system.optimizeRoomAssignments(LocalDate.now());
+            RoomAssignmentPlan standard = plans.stream()
+                .filter(plan -> plan.getRoomType() == RoomType.STANDARD).findFirst().orElseThrow();
+            assertEquals(2, standard.getAssignedCount());
+            assertEquals(1, standard.getUnplacedCount());
+
+            HashSet<String> rooms = new HashSet<>();
+            int unassigned = 0;
+            for (Reservation reservation : system.listReservations()) {
+                if (reservation.getRoomType() != RoomType.STANDARD) continue;
+                if (reservation.isAssigned()) {
+                    assertTrue(rooms.add(reservation.getRoom().getRoomNumber()));
+                } else {
+                    unassigned++;
+                }
+            }
+            assertEquals(2, rooms.size());
+            assertEquals(1, unassigned);
+        } finally {
+            system.shutdown();
+        }
+    }
+
+    @Test
+    void typeBookingHasNoRoomUntilTheOptimizerRuns() throws IOException {
+        writeRooms();
+        LocalDate checkIn = LocalDate.now().plusDays(5);
+        HotelReservationSystem system = new HotelReservationSystem(PROPERTY_NAME, directory);
+        String reservationId;
+        try {
+            Reservation reservation = system.bookRoomType("Ada", RoomType.STANDARD, checkIn, checkIn.plusDays(2), 1);
+            reservationId = reservation.getReservationId();
+            assertFalse(reservation.isAssigned());
+            assertNull(reservation.getRoom());
+        } finally {
+            system.shutdown();
+        }
+
+        String roomNumber;
+        system = new HotelReservationSystem(PROPERTY_NAME, directory);
+        try {
+            Reservation reservation = system.findReservation(reservationId);
+            assertFalse(reservation.isAssigned());
+            assertEquals(RoomType.STANDARD, reservation.getRoomType());
+            // The recovered booking still holds one of the two rooms.
+            assertNotNull(system.bookRoomType("Ben", RoomType.STANDARD, checkIn, checkIn.plusDays(2), 1));
+            assertNull(system.bookRoomType("Cal", RoomType.STANDARD, checkIn, checkIn.plusDays(2), 1));
+
+            system.optimizeRoomAssignments(LocalDate.now());
+            assertTrue(reservation.isAssigned());
+            assertEquals(RoomType.STANDARD, reservation.getRoom().getRoomType());
+            roomNumber = reservation.getRoom().getRoomNumber();
+        } finally {
+            system.shutdown();
+        }
+
+        system = new HotelReservationSystem(PROPERTY_NAME, directory);
+        try {
+            assertEquals(roomNumber, system.findReservation(reservationId).getRoom().getRoomNumber());
+        } finally {
+            system.shutdown();
+        }
+    }
+
+    private void writeRooms() throws IOException {
+        Files.write(directory.resolve(PROPERTY_NAME + "_rooms.txt"),
+            "100,STANDARD\n101,STANDARD\n102,DELUXE\n".getBytes(StandardCharsets.UTF_8));
+    }
+}